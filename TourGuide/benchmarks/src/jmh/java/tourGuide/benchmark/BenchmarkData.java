@@ -0,0 +1,74 @@
+package tourGuide.benchmark;
+
+import tourGuide.cache.RewardPointsCache;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.Location;
+import tourGuide.service.RewardsService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded data shared by the benchmarks, so that every run measures the same inputs
+ */
+public final class BenchmarkData {
+
+	public static final long SEED = 8;
+	// Attractions and locations are spread over the continental United States, where the attraction list lies
+	private static final double minLatitude = 25;
+	private static final double maxLatitude = 49;
+	private static final double minLongitude = -124;
+	private static final double maxLongitude = -67;
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Rewards service over in-memory clients, with the attraction catalog never refreshed
+	 * @param attractions
+	 * @return rewards service
+	 */
+	public static RewardsService rewardsService(List<Attraction> attractions) {
+		return new RewardsService(new InMemoryRewardsClient(),
+				new AttractionCatalog(new InMemoryLocationClient(attractions), 0), new RewardPointsCache());
+	}
+
+	public static List<Attraction> attractions(int count) {
+		SplittableRandom random = new SplittableRandom(SEED);
+		List<Attraction> attractions = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			attractions.add(new Attraction("Attraction " + i, "City " + i, "State",
+					random.nextDouble(minLatitude, maxLatitude), random.nextDouble(minLongitude, maxLongitude)));
+		}
+		return attractions;
+	}
+
+	public static Location[] locations(int count) {
+		SplittableRandom random = new SplittableRandom(SEED + 1);
+		Location[] locations = new Location[count];
+		for (int i = 0; i < count; i++) {
+			locations[i] = new Location(random.nextDouble(minLatitude, maxLatitude),
+					random.nextDouble(minLongitude, maxLongitude));
+		}
+		return locations;
+	}
+
+	/**
+	 * Locations a few miles from randomly chosen attractions, so that a history scan finds rewards
+	 * @param attractions
+	 * @param count
+	 * @return locations near attractions
+	 */
+	public static Location[] locationsNear(List<Attraction> attractions, int count) {
+		SplittableRandom random = new SplittableRandom(SEED + 2);
+		Location[] locations = new Location[count];
+		for (int i = 0; i < count; i++) {
+			Attraction attraction = attractions.get(random.nextInt(attractions.size()));
+			locations[i] = new Location(attraction.latitude + random.nextDouble(-0.1, 0.1),
+					attraction.longitude + random.nextDouble(-0.1, 0.1));
+		}
+		return locations;
+	}
+}
@@ -0,0 +1,62 @@
+package tourGuide.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.Location;
+import tourGuide.geo.GeoIndex;
+import tourGuide.geo.GeoMath;
+import tourGuide.geo.TopK;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selection of the attractions closest to a user's location, as done for /nearby-attractions
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClosestAttractionsBenchmark {
+
+	private static final int locationCount = 1024;
+	private static final int numberOfClosestAttractions = 5;
+
+	@Param({"26", "1000", "100000"})
+	public int attractionCount;
+
+	private List<Attraction> attractions;
+	private GeoIndex geoIndex;
+	private Location[] locations;
+	private int i;
+
+	@Setup
+	public void setUp() {
+		attractions = BenchmarkData.attractions(attractionCount);
+		geoIndex = new GeoIndex(attractions);
+		locations = BenchmarkData.locations(locationCount);
+	}
+
+	private Location nextLocation() {
+		i = (i + 1) & (locationCount - 1);
+		return locations[i];
+	}
+
+	@Benchmark
+	public TopK<Attraction> nearestNeighbors() {
+		return geoIndex.nearestNeighbors(nextLocation(), numberOfClosestAttractions);
+	}
+
+	// Sorting every attraction by distance, as the closest attractions were selected before the index
+	@Benchmark
+	public List<Attraction> sortByDistance() {
+		Location location = nextLocation();
+		List<Attraction> sortedAttractions = new ArrayList<>(attractions);
+		sortedAttractions.sort(Comparator.comparingDouble(attraction -> GeoMath.distanceMiles(attraction, location)));
+		return sortedAttractions.subList(0, numberOfClosestAttractions);
+	}
+}
@@ -0,0 +1,80 @@
+package tourGuide.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.Location;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.geo.GeoMath;
+import tourGuide.geo.GeoPoint;
+import tourGuide.service.RewardsService;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distance between two locations, as computed for every visited location and attraction pair
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DistanceBenchmark {
+
+	private static final int locationCount = 1024;
+
+	private RewardsService rewardsService;
+	private Location[] locations;
+	private GeoPoint[] geoPoints;
+	private VisitedLocation[] visitedLocations;
+	private List<Attraction> attractions;
+	private int i;
+
+	@Setup
+	public void setUp() {
+		attractions = BenchmarkData.attractions(locationCount);
+		rewardsService = BenchmarkData.rewardsService(attractions);
+		locations = BenchmarkData.locations(locationCount);
+		geoPoints = new GeoPoint[locationCount];
+		visitedLocations = new VisitedLocation[locationCount];
+		UUID userId = UUID.randomUUID();
+		for (int j = 0; j < locationCount; j++) {
+			geoPoints[j] = GeoPoint.of(locations[j]);
+			visitedLocations[j] = new VisitedLocation(userId, locations[j], new Date());
+		}
+	}
+
+	// Consecutive pairs of the seeded locations, so that no distance is computed twice in a row
+	private int next() {
+		i = (i + 1) & (locationCount - 1);
+		return i;
+	}
+
+	@Benchmark
+	public double getDistance() {
+		int j = next();
+		return rewardsService.getDistance(locations[j], locations[(j + 1) & (locationCount - 1)]);
+	}
+
+	@Benchmark
+	public double distanceMilesGeoPoints() {
+		int j = next();
+		return GeoMath.distanceMiles(geoPoints[j], geoPoints[(j + 1) & (locationCount - 1)]);
+	}
+
+	@Benchmark
+	public double distanceMilesEquirectangular() {
+		int j = next();
+		return GeoMath.distanceMiles(geoPoints[j], geoPoints[(j + 1) & (locationCount - 1)],
+				GeoMath.DistanceMode.EQUIRECTANGULAR);
+	}
+
+	@Benchmark
+	public boolean nearAttraction() {
+		int j = next();
+		return rewardsService.nearAttraction(visitedLocations[j], attractions.get(j));
+	}
+}
@@ -0,0 +1,33 @@
+package tourGuide.benchmark;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import tourGuide.client.LocationClient;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.AttractionListWrapper;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Location service answering from a fixed attraction list, so that benchmarks measure no network
+ */
+public class InMemoryLocationClient extends LocationClient {
+
+	private final AttractionListWrapper attractionListWrapper = new AttractionListWrapper();
+
+	public InMemoryLocationClient(List<Attraction> attractions) {
+		super(new RestTemplate());
+		attractionListWrapper.setAttractionList(attractions);
+	}
+
+	@Override
+	public ResponseEntity<AttractionListWrapper> getAttractions(String eTag) {
+		return ResponseEntity.ok(attractionListWrapper);
+	}
+
+	@Override
+	public CompletableFuture<ResponseEntity<AttractionListWrapper>> getAttractionsAsync(String eTag) {
+		return CompletableFuture.completedFuture(getAttractions(eTag));
+	}
+}
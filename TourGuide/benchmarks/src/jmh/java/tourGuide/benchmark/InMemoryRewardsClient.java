@@ -0,0 +1,27 @@
+package tourGuide.benchmark;
+
+import org.springframework.web.client.RestTemplate;
+import tourGuide.client.RewardsClient;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Rewards service computing the points of a pair from its ids, so that benchmarks measure no network
+ */
+public class InMemoryRewardsClient extends RewardsClient {
+
+	public InMemoryRewardsClient() {
+		super(new RestTemplate());
+	}
+
+	@Override
+	public Integer getRewardPoints(UUID attractionId, UUID userId) {
+		return 1 + Math.floorMod(attractionId.hashCode() ^ userId.hashCode(), 1000);
+	}
+
+	@Override
+	public CompletableFuture<Integer> getRewardPointsAsync(UUID attractionId, UUID userId) {
+		return CompletableFuture.completedFuture(getRewardPoints(attractionId, userId));
+	}
+}
@@ -0,0 +1,106 @@
+package tourGuide.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.Location;
+import tourGuide.domain.user.User;
+import tourGuide.service.RewardsService;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reward calculation of a user against an in-memory attraction list, reward points answered without network
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RewardsBenchmark {
+
+	// 26 is the size of the attraction list of the location service
+	@Param({"26", "1000"})
+	public int attractionCount;
+
+	@Param({"10", "1000"})
+	public int visitedLocationCount;
+
+	private RewardsService rewardsService;
+	private double[] latitudes;
+	private double[] longitudes;
+	private long[] timesMillis;
+	private User rescannedUser;
+
+	@Setup
+	public void setUp() {
+		List<Attraction> attractions = BenchmarkData.attractions(attractionCount);
+		rewardsService = BenchmarkData.rewardsService(attractions);
+		// Every other location is near an attraction, as for a user touring them
+		Location[] nearLocations = BenchmarkData.locationsNear(attractions, visitedLocationCount);
+		Location[] farLocations = BenchmarkData.locations(visitedLocationCount);
+		latitudes = new double[visitedLocationCount];
+		longitudes = new double[visitedLocationCount];
+		timesMillis = new long[visitedLocationCount];
+		for (int i = 0; i < visitedLocationCount; i++) {
+			Location location = i % 2 == 0 ? nearLocations[i] : farLocations[i];
+			latitudes[i] = location.latitude;
+			longitudes[i] = location.longitude;
+			timesMillis[i] = i * 1000L;
+		}
+		rescannedUser = newUser();
+		rewardsService.calculateRewards(rescannedUser);
+	}
+
+	private User newUser() {
+		User user = new User(UUID.randomUUID(), "benchmark", "000", "benchmark@tourGuide.com");
+		user.addToVisitedLocations(latitudes, longitudes, timesMillis);
+		return user;
+	}
+
+	/**
+	 * Users seen for the first time, built before each invocation. An invocation goes through a whole batch of them,
+	 * so that the cost of the per-invocation setup and timestamps is negligible next to the calls measured
+	 */
+	@State(Scope.Thread)
+	public static class NewUsers {
+
+		static final int batchSize = 100;
+
+		private User[] users;
+
+		@Setup(Level.Invocation)
+		public void setUp(RewardsBenchmark benchmark) {
+			users = new User[batchSize];
+			for (int i = 0; i < batchSize; i++) {
+				users[i] = benchmark.newUser();
+			}
+		}
+	}
+
+	// A user seen for the first time: every location is evaluated and every reward is new
+	@Benchmark
+	@OperationsPerInvocation(NewUsers.batchSize)
+	public User[] calculateRewardsNewUser(NewUsers newUsers) {
+		for (User user : newUsers.users) {
+			rewardsService.calculateRewards(user);
+		}
+		return newUsers.users;
+	}
+
+	// A user whose history was already rewarded: every location is evaluated again, no reward is new
+	@Benchmark
+	public User calculateRewardsFullRescan() {
+		rewardsService.calculateRewards(rescannedUser, true);
+		return rescannedUser;
+	}
+
+	// The tracker's usual call, on a user with no location visited since the last one
+	@Benchmark
+	public User calculateRewardsNothingNew() {
+		rewardsService.calculateRewards(rescannedUser);
+		return rescannedUser;
+	}
+}
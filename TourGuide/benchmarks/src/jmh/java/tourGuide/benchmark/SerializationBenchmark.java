@@ -0,0 +1,138 @@
+package tourGuide.benchmark;
+
+import com.jsoniter.output.JsonStream;
+import org.openjdk.jmh.annotations.*;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.Location;
+import tourGuide.domain.location.NearbyAttraction;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.rewards.Provider;
+import tourGuide.domain.user.UserReward;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * jsoniter serialization of the controller's response bodies
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+	private static final int userCount = 10_000;
+
+	private Location location;
+	private List<NearbyAttraction> nearbyAttractions;
+	private List<Provider> tripDeals;
+	private List<UserReward> userRewards;
+	private UUID[] userIds;
+	private Location[] userLocations;
+	private final DiscardingOutputStream outputStream = new DiscardingOutputStream();
+
+	@Setup
+	public void setUp() {
+		List<Attraction> attractions = BenchmarkData.attractions(26);
+		Location[] locations = BenchmarkData.locations(userCount);
+		location = locations[0];
+		VisitedLocation visitedLocation = new VisitedLocation(UUID.randomUUID(), location, new Date());
+
+		nearbyAttractions = new ArrayList<>();
+		for (Attraction attraction : attractions.subList(0, 5)) {
+			NearbyAttraction nearbyAttraction = new NearbyAttraction();
+			nearbyAttraction.setAttractionName(attraction.attractionName);
+			nearbyAttraction.setAttractionLocation(new Location(attraction.latitude, attraction.longitude));
+			nearbyAttraction.setUserLocation(location);
+			nearbyAttraction.setAttractionDistance(123.456);
+			nearbyAttraction.setAttractionRewardPoints(500);
+			nearbyAttractions.add(nearbyAttraction);
+		}
+
+		tripDeals = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			tripDeals.add(new Provider(UUID.randomUUID(), "Provider " + i, 100 + i));
+		}
+
+		userRewards = new ArrayList<>();
+		for (Attraction attraction : attractions) {
+			userRewards.add(new UserReward(visitedLocation, attraction, 100));
+		}
+
+		userIds = new UUID[userCount];
+		userLocations = locations;
+		for (int i = 0; i < userCount; i++) {
+			userIds[i] = UUID.randomUUID();
+		}
+	}
+
+	// /location
+	@Benchmark
+	public String location() {
+		return JsonStream.serialize(location);
+	}
+
+	// /nearby-attractions
+	@Benchmark
+	public String nearbyAttractions() {
+		return JsonStream.serialize(nearbyAttractions);
+	}
+
+	// /trip-deals
+	@Benchmark
+	public String tripDeals() {
+		return JsonStream.serialize(tripDeals);
+	}
+
+	// /rewards
+	@Benchmark
+	public String userRewards() {
+		return JsonStream.serialize(userRewards);
+	}
+
+	// /all-current-locations, written field by field to the response stream as the controller does
+	@Benchmark
+	public long allCurrentLocations() throws IOException {
+		JsonStream stream = new JsonStream(outputStream, 8192);
+		stream.writeObjectStart();
+		for (int i = 0; i < userCount; i++) {
+			if (i > 0) {
+				stream.writeMore();
+			}
+			stream.writeObjectField(userIds[i].toString());
+			stream.writeObjectStart();
+			stream.writeObjectField("longitude");
+			stream.writeVal(userLocations[i].longitude);
+			stream.writeMore();
+			stream.writeObjectField("latitude");
+			stream.writeVal(userLocations[i].latitude);
+			stream.writeObjectEnd();
+		}
+		stream.writeObjectEnd();
+		stream.flush();
+		return outputStream.count;
+	}
+
+	// Counts the bytes written, so that the response body is produced but not kept
+	private static final class DiscardingOutputStream extends OutputStream {
+
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
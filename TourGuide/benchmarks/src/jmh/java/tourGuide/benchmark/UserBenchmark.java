@@ -0,0 +1,98 @@
+package tourGuide.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.Location;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.user.User;
+import tourGuide.domain.user.UserReward;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User operations done on every tracking round and on every request reading a user
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserBenchmark {
+
+	private static final int attractionCount = 1024;
+
+	private User rewardedUser;
+	private UserReward[] userRewards;
+	private int i;
+
+	/**
+	 * User with a location history of a given depth
+	 */
+	@State(Scope.Thread)
+	public static class History {
+
+		@Param({"10", "1000"})
+		public int visitedLocationCount;
+
+		private User user;
+
+		@Setup
+		public void setUp() {
+			user = new User(UUID.randomUUID(), "benchmark", "000", "benchmark@tourGuide.com");
+			Location[] locations = BenchmarkData.locations(visitedLocationCount);
+			for (int j = 0; j < visitedLocationCount; j++) {
+				user.addToVisitedLocations(new VisitedLocation(user.getUserId(), locations[j], new Date(j * 1000L)));
+			}
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		VisitedLocation visitedLocation = new VisitedLocation(UUID.randomUUID(), BenchmarkData.locations(1)[0], new Date());
+		List<Attraction> attractions = BenchmarkData.attractions(attractionCount);
+		userRewards = new UserReward[attractionCount];
+		for (int j = 0; j < attractionCount; j++) {
+			userRewards[j] = new UserReward(visitedLocation, attractions.get(j), 10);
+		}
+		rewardedUser = new User(UUID.randomUUID(), "rewarded", "000", "rewarded@tourGuide.com");
+		for (UserReward userReward : userRewards) {
+			rewardedUser.addUserReward(userReward);
+		}
+	}
+
+	// Rewards a new user for every attraction; the time reported is that of one reward
+	@Benchmark
+	@OperationsPerInvocation(attractionCount)
+	public User addUserReward() {
+		User newUser = new User(UUID.randomUUID(), "new", "000", "new@tourGuide.com");
+		for (UserReward userReward : userRewards) {
+			newUser.addUserReward(userReward);
+		}
+		return newUser;
+	}
+
+	// Rewarding a user again for an attraction, as the reward calculation does on every full re-scan
+	@Benchmark
+	public boolean addUserRewardDuplicate() {
+		return rewardedUser.addUserReward(userRewards[i++ & (attractionCount - 1)]);
+	}
+
+	@Benchmark
+	public boolean hasUserReward() {
+		return rewardedUser.hasUserReward(userRewards[i++ & (attractionCount - 1)].attraction.attractionName);
+	}
+
+	@Benchmark
+	public List<VisitedLocation> getVisitedLocations(History history) {
+		return history.user.getVisitedLocations();
+	}
+
+	@Benchmark
+	public VisitedLocation getLastVisitedLocation(History history) {
+		return history.user.getLastVisitedLocation();
+	}
+}
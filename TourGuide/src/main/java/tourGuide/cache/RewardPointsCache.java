@@ -0,0 +1,135 @@
+package tourGuide.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import tourGuide.concurrent.SingleFlight;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of the reward points returned by the rewards service for an (attraction, user) pair
+ */
+public class RewardPointsCache implements MeterBinder {
+
+	private static final long defaultMaximumSize = 1_000_000;
+	private static final long defaultTimeToLiveSeconds = TimeUnit.MINUTES.toSeconds(30);
+
+	private final Cache<Key, Integer> cache;
+	private final SingleFlight<Key, Integer> loads = new SingleFlight<>();
+
+	public RewardPointsCache() {
+		this(defaultMaximumSize, defaultTimeToLiveSeconds);
+	}
+
+	public RewardPointsCache(long maximumSize, long timeToLiveSeconds) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Gets the cached reward points, calling the loader at most once per pair while the entry is live; concurrent
+	 * misses for the same pair share a single load
+	 * @param attractionId
+	 * @param userId
+	 * @param loader fetches the points from the rewards service on a miss
+	 * @return reward points
+	 */
+	public Integer get(UUID attractionId, UUID userId, Supplier<Integer> loader) {
+		Key key = new Key(attractionId, userId);
+		Integer rewardPoints = cache.getIfPresent(key);
+		if (rewardPoints != null) {
+			return rewardPoints;
+		}
+		return loads.call(key, () -> {
+			Integer loadedPoints = loader.get();
+			cache.put(key, loadedPoints);
+			return loadedPoints;
+		});
+	}
+
+	/**
+	 * Gets the cached reward points without blocking, concurrent misses for the same pair sharing a single load
+	 * @param attractionId
+	 * @param userId
+	 * @param loader fetches the points from the rewards service on a miss
+	 * @return future reward points, already completed on a hit
+	 */
+	public CompletableFuture<Integer> getAsync(UUID attractionId, UUID userId, Supplier<CompletableFuture<Integer>> loader) {
+		Key key = new Key(attractionId, userId);
+		Integer rewardPoints = cache.getIfPresent(key);
+		if (rewardPoints != null) {
+			return CompletableFuture.completedFuture(rewardPoints);
+		}
+		return loads.callAsync(key, () -> loader.get().thenApply(loadedPoints -> {
+			cache.put(key, loadedPoints);
+			return loadedPoints;
+		}));
+	}
+
+	public Integer getIfPresent(UUID attractionId, UUID userId) {
+		return cache.getIfPresent(new Key(attractionId, userId));
+	}
+
+	public void put(UUID attractionId, UUID userId, int rewardPoints) {
+		cache.put(new Key(attractionId, userId), rewardPoints);
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	public long hitCount() {
+		return cache.stats().hitCount();
+	}
+
+	public long missCount() {
+		return cache.stats().missCount();
+	}
+
+	public long evictionCount() {
+		return cache.stats().evictionCount();
+	}
+
+	public long size() {
+		return cache.estimatedSize();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, "rewardPoints");
+	}
+
+	private static final class Key {
+
+		private final UUID attractionId;
+		private final UUID userId;
+
+		private Key(UUID attractionId, UUID userId) {
+			this.attractionId = attractionId;
+			this.userId = userId;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Key)) return false;
+			Key key = (Key) o;
+			return Objects.equals(attractionId, key.attractionId) && Objects.equals(userId, key.userId);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Objects.hashCode(attractionId) + Objects.hashCode(userId);
+		}
+	}
+}
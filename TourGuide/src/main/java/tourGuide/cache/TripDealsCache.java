@@ -0,0 +1,240 @@
+package tourGuide.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tourGuide.concurrent.Futures;
+import tourGuide.concurrent.SingleFlight;
+import tourGuide.domain.rewards.Provider;
+import tourGuide.domain.user.UserPreferences;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the trip deals returned by the pricer service for a user.
+ * The deals only depend on the user's number of adults, number of children, trip duration and cumulative reward
+ * points, so an entry is only used while these are unchanged. Past its time to live, an entry is still served for a
+ * while, during which a single background load refreshes it.
+ */
+public class TripDealsCache implements MeterBinder {
+
+	private Logger logger = LoggerFactory.getLogger(TripDealsCache.class);
+	private static final long defaultMaximumSize = 100_000;
+	private static final long defaultTimeToLiveSeconds = TimeUnit.MINUTES.toSeconds(5);
+	private static final long defaultMaxStaleSeconds = TimeUnit.MINUTES.toSeconds(5);
+	private static final int defaultRefreshThreads = 4;
+
+	private final Cache<UUID, Entry> cache;
+	private final SingleFlight<Key, List<Provider>> loads = new SingleFlight<>();
+	private final long timeToLiveNanos;
+	private final Executor refreshExecutor;
+	private final AtomicLong staleHits = new AtomicLong();
+
+	public TripDealsCache() {
+		this(defaultMaximumSize, defaultTimeToLiveSeconds, defaultMaxStaleSeconds);
+	}
+
+	/**
+	 * @param maximumSize
+	 * @param timeToLiveSeconds time during which deals are served without being refreshed
+	 * @param maxStaleSeconds time after the time to live during which deals are still served while being refreshed
+	 */
+	public TripDealsCache(long maximumSize, long timeToLiveSeconds, long maxStaleSeconds) {
+		this(maximumSize, timeToLiveSeconds, maxStaleSeconds, newRefreshExecutor(defaultRefreshThreads));
+	}
+
+	/**
+	 * @param maximumSize
+	 * @param timeToLiveSeconds time during which deals are served without being refreshed
+	 * @param maxStaleSeconds time after the time to live during which deals are still served while being refreshed
+	 * @param refreshExecutor runs the blocking loads that refresh stale deals for get
+	 */
+	public TripDealsCache(long maximumSize, long timeToLiveSeconds, long maxStaleSeconds, Executor refreshExecutor) {
+		this.refreshExecutor = refreshExecutor;
+		this.timeToLiveNanos = TimeUnit.SECONDS.toNanos(timeToLiveSeconds);
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(timeToLiveSeconds + maxStaleSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * @param threads
+	 * @return executor for the blocking refreshes of stale deals, whose threads stop when idle
+	 */
+	public static ExecutorService newRefreshExecutor(int threads) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "trip-deals-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Gets the user's cached trip deals, loading them if there are none for the current inputs; concurrent misses for
+	 * the same inputs share a single load
+	 * @param userId
+	 * @param userPreferences
+	 * @param cumulativeRewardPoints
+	 * @param loader fetches the deals from the pricer service, without blocking
+	 * @return future trip deals, already completed on a hit, stale or not; cancelling it cancels the load once no
+	 * other caller is waiting for it
+	 */
+	public CompletableFuture<List<Provider>> getAsync(UUID userId, UserPreferences userPreferences, int cumulativeRewardPoints,
+													  Supplier<CompletableFuture<List<Provider>>> loader) {
+		Key key = new Key(userId, userPreferences, cumulativeRewardPoints);
+		Entry entry = cache.getIfPresent(userId);
+		if (entry != null && entry.key.equals(key)) {
+			if (System.nanoTime() - entry.loadedAtNanos > timeToLiveNanos) {
+				staleHits.incrementAndGet();
+				refresh(key, loader);
+			}
+			return CompletableFuture.completedFuture(entry.tripDeals);
+		}
+		return load(key, loader);
+	}
+
+	/**
+	 * Same as getAsync, for callers that wait for the deals anyway
+	 * @param userId
+	 * @param userPreferences
+	 * @param cumulativeRewardPoints
+	 * @param loader fetches the deals from the pricer service; it runs on the calling thread on a miss, and on the
+	 * refresh executor to refresh a stale entry
+	 * @return trip deals
+	 */
+	public List<Provider> get(UUID userId, UserPreferences userPreferences, int cumulativeRewardPoints,
+							  Supplier<List<Provider>> loader) {
+		Key key = new Key(userId, userPreferences, cumulativeRewardPoints);
+		Entry entry = cache.getIfPresent(userId);
+		if (entry != null && entry.key.equals(key)) {
+			if (System.nanoTime() - entry.loadedAtNanos > timeToLiveNanos) {
+				staleHits.incrementAndGet();
+				refresh(key, () -> CompletableFuture.supplyAsync(loader, refreshExecutor));
+			}
+			return entry.tripDeals;
+		}
+		return loads.call(key, () -> {
+			List<Provider> tripDeals = loader.get();
+			cache.put(userId, new Entry(key, tripDeals));
+			return tripDeals;
+		});
+	}
+
+	// Stale deals keep being served when a refresh fails, until they expire
+	private void refresh(Key key, Supplier<CompletableFuture<List<Provider>>> loader) {
+		load(key, loader).whenComplete((tripDeals, throwable) -> {
+			if (throwable != null) {
+				Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+				logger.warn("Unable to refresh the trip deals of user " + key.userId + ": " + cause.getMessage());
+			}
+		});
+	}
+
+	private CompletableFuture<List<Provider>> load(Key key, Supplier<CompletableFuture<List<Provider>>> loader) {
+		return loads.callAsync(key, () -> {
+			CompletableFuture<List<Provider>> response = loader.get();
+			return Futures.cancelUpstream(response.thenApply(tripDeals -> {
+				cache.put(key.userId, new Entry(key, tripDeals));
+				return tripDeals;
+			}), response);
+		});
+	}
+
+	/**
+	 * Drops the user's deals, e.g. once their preferences were replaced
+	 * @param userId
+	 */
+	public void invalidate(UUID userId) {
+		cache.invalidate(userId);
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	public long hitCount() {
+		return cache.stats().hitCount();
+	}
+
+	public long missCount() {
+		return cache.stats().missCount();
+	}
+
+	public long staleHitCount() {
+		return staleHits.get();
+	}
+
+	public long size() {
+		return cache.estimatedSize();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, "tripDeals");
+	}
+
+	// Inputs of the pricer service that the deals depend on
+	private static final class Key {
+
+		private final UUID userId;
+		private final int numberOfAdults;
+		private final int numberOfChildren;
+		private final int tripDuration;
+		private final int cumulativeRewardPoints;
+
+		private Key(UUID userId, UserPreferences userPreferences, int cumulativeRewardPoints) {
+			this.userId = userId;
+			this.numberOfAdults = userPreferences.getNumberOfAdults();
+			this.numberOfChildren = userPreferences.getNumberOfChildren();
+			this.tripDuration = userPreferences.getTripDuration();
+			this.cumulativeRewardPoints = cumulativeRewardPoints;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Key)) return false;
+			Key key = (Key) o;
+			return numberOfAdults == key.numberOfAdults && numberOfChildren == key.numberOfChildren
+					&& tripDuration == key.tripDuration && cumulativeRewardPoints == key.cumulativeRewardPoints
+					&& Objects.equals(userId, key.userId);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(userId, numberOfAdults, numberOfChildren, tripDuration, cumulativeRewardPoints);
+		}
+	}
+
+	private static final class Entry {
+
+		private final Key key;
+		private final List<Provider> tripDeals;
+		private final long loadedAtNanos = System.nanoTime();
+
+		private Entry(Key key, List<Provider> tripDeals) {
+			this.key = key;
+			this.tripDeals = tripDeals;
+		}
+	}
+}
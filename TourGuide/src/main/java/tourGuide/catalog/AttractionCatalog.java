@@ -0,0 +1,150 @@
+package tourGuide.catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+import tourGuide.client.LocationClient;
+import tourGuide.concurrent.SingleFlight;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.AttractionListWrapper;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current snapshot of the attraction list in memory so that callers never go over the network on the hot path.
+ * The snapshot is refreshed in the background and swapped atomically; if the location service is unavailable the last
+ * good copy keeps being served.
+ */
+public class AttractionCatalog {
+
+	private Logger logger = LoggerFactory.getLogger(AttractionCatalog.class);
+	private static final long defaultRefreshIntervalSeconds = TimeUnit.MINUTES.toSeconds(10);
+	private static final String noETag = "";
+
+	private final LocationClient locationClient;
+	private final AtomicReference<AttractionSnapshot> snapshot = new AtomicReference<>();
+	// Keyed by the eTag sent, so that identical concurrent requests for the attraction list share one response
+	private final SingleFlight<String, AttractionSnapshot> attractionRequests = new SingleFlight<>();
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "attraction-catalog-refresh");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public AttractionCatalog(LocationClient locationClient) {
+		this(locationClient, defaultRefreshIntervalSeconds);
+	}
+
+	public AttractionCatalog(LocationClient locationClient, long refreshIntervalSeconds) {
+		this.locationClient = locationClient;
+		if (refreshIntervalSeconds > 0) {
+			scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalSeconds, refreshIntervalSeconds, TimeUnit.SECONDS);
+		}
+	}
+
+	public List<Attraction> getAttractions() {
+		return getSnapshot().getAttractions();
+	}
+
+	/**
+	 * Gets the current snapshot, loading it synchronously the first time it is needed
+	 * @return attraction snapshot
+	 */
+	public AttractionSnapshot getSnapshot() {
+		AttractionSnapshot current = snapshot.get();
+		if (current == null) {
+			current = attractionRequests.call(noETag, () -> {
+				AttractionSnapshot loaded = snapshot.get();
+				return loaded != null ? loaded : apply(locationClient.getAttractions(null));
+			});
+		}
+		return current;
+	}
+
+	/**
+	 * Gets the current snapshot if one was loaded, without ever loading it
+	 * @return attraction snapshot, or null before the first load
+	 */
+	public AttractionSnapshot getLoadedSnapshot() {
+		return snapshot.get();
+	}
+
+	/**
+	 * Gets the current snapshot without blocking, fetching it asynchronously the first time it is needed
+	 * @return future attraction snapshot
+	 */
+	public CompletableFuture<AttractionSnapshot> getSnapshotAsync() {
+		AttractionSnapshot current = snapshot.get();
+		if (current != null) {
+			return CompletableFuture.completedFuture(current);
+		}
+		return attractionRequests.callAsync(noETag, () -> locationClient.getAttractionsAsync(null).thenApply(this::apply));
+	}
+
+	public long getVersion() {
+		AttractionSnapshot current = snapshot.get();
+		return current == null ? 0 : current.getVersion();
+	}
+
+	/**
+	 * Asks the location service for a newer attraction list and swaps it in if it changed
+	 * @return false if the location service could not be reached and the previous snapshot was kept
+	 */
+	public boolean refresh() {
+		try {
+			String eTag = currentETag();
+			attractionRequests.call(eTag == null ? noETag : eTag, () -> apply(locationClient.getAttractions(eTag)));
+			return true;
+		} catch (RuntimeException e) {
+			logger.warn("Unable to refresh attractions, serving version " + getVersion() + ": " + e.getMessage());
+			return false;
+		}
+	}
+
+	public CompletableFuture<AttractionSnapshot> refreshAsync() {
+		String eTag = currentETag();
+		return attractionRequests.callAsync(eTag == null ? noETag : eTag,
+				() -> locationClient.getAttractionsAsync(eTag).thenApply(this::apply));
+	}
+
+	public void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	private String currentETag() {
+		AttractionSnapshot current = snapshot.get();
+		return current == null ? null : current.getETag();
+	}
+
+	// Swaps in a new snapshot unless the response says, or its content shows, that the attractions have not changed
+	private AttractionSnapshot apply(ResponseEntity<AttractionListWrapper> response) {
+		synchronized (snapshot) {
+			AttractionSnapshot current = snapshot.get();
+			if (current != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+				return current;
+			}
+			if (response.getBody() == null || response.getBody().getAttractionList() == null) {
+				throw new RestClientException("Location service returned no attractions");
+			}
+
+			List<Attraction> attractions = response.getBody().getAttractionList();
+			long fingerprint = AttractionSnapshot.fingerprint(attractions);
+			if (current != null && current.getFingerprint() == fingerprint) {
+				return current;
+			}
+
+			AttractionSnapshot loaded = new AttractionSnapshot(attractions, current == null ? 1 : current.getVersion() + 1,
+					fingerprint, response.getHeaders().getETag(), System.currentTimeMillis());
+			snapshot.set(loaded);
+			logger.debug("Loaded " + attractions.size() + " attractions, version " + loaded.getVersion());
+			return loaded;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package tourGuide.catalog;
+
+import tourGuide.domain.location.Attraction;
+import tourGuide.geo.GeoIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of the attraction list as returned by the location service at a given version, with its spatial index
+ */
+public final class AttractionSnapshot {
+
+	private final List<Attraction> attractions;
+	private final GeoIndex geoIndex;
+	private final long version;
+	private final long fingerprint;
+	private final String eTag;
+	private final long loadedAtMillis;
+
+	AttractionSnapshot(List<Attraction> attractions, long version, long fingerprint, String eTag, long loadedAtMillis) {
+		this.attractions = Collections.unmodifiableList(new ArrayList<>(attractions));
+		this.geoIndex = new GeoIndex(this.attractions);
+		this.version = version;
+		this.fingerprint = fingerprint;
+		this.eTag = eTag;
+		this.loadedAtMillis = loadedAtMillis;
+	}
+
+	public List<Attraction> getAttractions() {
+		return attractions;
+	}
+
+	public GeoIndex getGeoIndex() {
+		return geoIndex;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	public String getETag() {
+		return eTag;
+	}
+
+	public long getLoadedAtMillis() {
+		return loadedAtMillis;
+	}
+
+	/**
+	 * Computes a content fingerprint so that an unchanged list does not produce a new version
+	 * @param attractions
+	 * @return fingerprint of the attractions' ids, names and coordinates
+	 */
+	static long fingerprint(List<Attraction> attractions) {
+		long hash = 1125899906842597L;
+		for (Attraction attraction : attractions) {
+			hash = 31 * hash + (attraction.attractionId == null ? 0 : attraction.attractionId.hashCode());
+			hash = 31 * hash + (attraction.attractionName == null ? 0 : attraction.attractionName.hashCode());
+			hash = 31 * hash + Double.hashCode(attraction.latitude);
+			hash = 31 * hash + Double.hashCode(attraction.longitude);
+		}
+		return hash;
+	}
+}
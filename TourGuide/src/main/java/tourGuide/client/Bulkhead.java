@@ -0,0 +1,170 @@
+package tourGuide.client;
+
+import tourGuide.concurrent.Futures;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of concurrent calls to one downstream service, so that a slow service only holds its own share of
+ * threads and connections. Blocking calls wait up to maxWaitMillis for a permit; non-blocking calls are queued, up to
+ * maxQueuedCalls, and started when a permit is released. Cancelling the future of a non-blocking call cancels the call,
+ * or takes it out of the queue if it has not started yet.
+ */
+public class Bulkhead {
+
+	private final String name;
+	private final int maxConcurrentCalls;
+	private final long maxWaitMillis;
+	private final int maxQueuedCalls;
+	private final Semaphore permits;
+	private final Queue<Runnable> queuedCalls = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queuedCallCount = new AtomicInteger();
+
+	private final LongAdder rejectedCalls = new LongAdder();
+	private final LongAdder waits = new LongAdder();
+	private final LongAdder waitNanos = new LongAdder();
+
+	public Bulkhead(String name, int maxConcurrentCalls, long maxWaitMillis, int maxQueuedCalls) {
+		this.name = name;
+		this.maxConcurrentCalls = maxConcurrentCalls;
+		this.maxWaitMillis = maxWaitMillis;
+		this.maxQueuedCalls = maxQueuedCalls;
+		this.permits = new Semaphore(maxConcurrentCalls);
+	}
+
+	/**
+	 * @param name
+	 * @return bulkhead that never limits calls
+	 */
+	public static Bulkhead unlimited(String name) {
+		return new Bulkhead(name, Integer.MAX_VALUE, 0, 0);
+	}
+
+	public <T> T call(Supplier<T> call) {
+		long waitStart = System.nanoTime();
+		boolean acquired;
+		try {
+			acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BulkheadFullException("Interrupted while waiting for the " + name + " bulkhead");
+		}
+		recordWait(waitStart);
+		if (!acquired) {
+			rejectedCalls.increment();
+			throw new BulkheadFullException("Bulkhead " + name + " is full: " + maxConcurrentCalls + " calls in progress");
+		}
+		try {
+			return call.get();
+		} finally {
+			release();
+		}
+	}
+
+	public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> call) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		if (permits.tryAcquire()) {
+			start(call, result);
+			return result;
+		}
+		if (queuedCallCount.incrementAndGet() > maxQueuedCalls) {
+			queuedCallCount.decrementAndGet();
+			rejectedCalls.increment();
+			result.completeExceptionally(new BulkheadFullException("Bulkhead " + name + " is full: "
+					+ maxConcurrentCalls + " calls in progress and " + maxQueuedCalls + " queued"));
+			return result;
+		}
+		long waitStart = System.nanoTime();
+		Runnable queuedCall = () -> {
+			recordWait(waitStart);
+			// Cancelled after drain took it from the queue
+			if (result.isDone()) {
+				permits.release();
+				return;
+			}
+			start(call, result);
+		};
+		queuedCalls.add(queuedCall);
+		result.whenComplete((value, throwable) -> {
+			if (result.isCancelled() && queuedCalls.remove(queuedCall)) {
+				queuedCallCount.decrementAndGet();
+			}
+		});
+		// A permit may have been released between tryAcquire and add
+		drain();
+		return result;
+	}
+
+	private <T> void start(Supplier<CompletableFuture<T>> call, CompletableFuture<T> result) {
+		CompletableFuture<T> future;
+		try {
+			future = call.get();
+		} catch (RuntimeException e) {
+			future = new CompletableFuture<>();
+			future.completeExceptionally(e);
+		}
+		future.whenComplete((value, throwable) -> {
+			release();
+			if (throwable != null) {
+				result.completeExceptionally(throwable);
+			} else {
+				result.complete(value);
+			}
+		});
+		// The permit is released once the cancelled call has completed
+		Futures.cancelUpstream(result, future);
+	}
+
+	private void release() {
+		permits.release();
+		drain();
+	}
+
+	private void drain() {
+		while (!queuedCalls.isEmpty() && permits.tryAcquire()) {
+			Runnable queuedCall = queuedCalls.poll();
+			if (queuedCall == null) {
+				permits.release();
+				return;
+			}
+			queuedCallCount.decrementAndGet();
+			queuedCall.run();
+		}
+	}
+
+	private void recordWait(long waitStart) {
+		waits.increment();
+		waitNanos.add(System.nanoTime() - waitStart);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getActiveCalls() {
+		return maxConcurrentCalls - permits.availablePermits();
+	}
+
+	public int getQueuedCalls() {
+		return queuedCallCount.get();
+	}
+
+	public long getRejectedCalls() {
+		return rejectedCalls.sum();
+	}
+
+	public long getWaits() {
+		return waits.sum();
+	}
+
+	public double getWaitNanos() {
+		return waitNanos.sum();
+	}
+}
@@ -0,0 +1,15 @@
+package tourGuide.client;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown when a call to a downstream service is refused because its bulkhead is full
+ */
+public class BulkheadFullException extends RestClientException {
+
+	private static final long serialVersionUID = 1L;
+
+	public BulkheadFullException(String msg) {
+		super(msg);
+	}
+}
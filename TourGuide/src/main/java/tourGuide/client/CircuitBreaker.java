@@ -0,0 +1,156 @@
+package tourGuide.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Stops calling a downstream service while it is unhealthy. The breaker opens when the failure rate over the last
+ * windowSize calls reaches failureRateThreshold; calls then fail fast until openMillis have passed, after which a
+ * single trial call decides whether it closes again or stays open. Calls refused by a bulkhead are not failures of
+ * the service and are not counted.
+ */
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final String name;
+	private final int windowSize;
+	private final int minimumCalls;
+	private final double failureRateThreshold;
+	private final long openNanos;
+
+	// Outcomes of the last windowSize calls, true for a failure
+	private final boolean[] outcomes;
+	private int recordedCalls;
+	private int nextOutcome;
+	private int failures;
+
+	private State state = State.CLOSED;
+	private long openedAt;
+	private boolean trialCallInProgress;
+
+	public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold, long openMillis) {
+		this.name = name;
+		this.windowSize = windowSize;
+		this.minimumCalls = minimumCalls;
+		this.failureRateThreshold = failureRateThreshold;
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+		this.outcomes = new boolean[windowSize];
+	}
+
+	public <T> T call(Supplier<T> call) {
+		acquirePermission();
+		try {
+			T result = call.get();
+			onSuccess();
+			return result;
+		} catch (RuntimeException e) {
+			onFailure(e);
+			throw e;
+		}
+	}
+
+	public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> call) {
+		try {
+			acquirePermission();
+		} catch (CircuitBreakerOpenException e) {
+			CompletableFuture<T> rejected = new CompletableFuture<>();
+			rejected.completeExceptionally(e);
+			return rejected;
+		}
+		CompletableFuture<T> future;
+		try {
+			future = call.get();
+		} catch (RuntimeException e) {
+			onFailure(e);
+			throw e;
+		}
+		return future.whenComplete((result, throwable) -> {
+			if (throwable == null) {
+				onSuccess();
+			} else {
+				onFailure(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+			}
+		});
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	private synchronized void acquirePermission() {
+		if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+			state = State.HALF_OPEN;
+		}
+		if (state == State.CLOSED) {
+			return;
+		}
+		if (state == State.HALF_OPEN && !trialCallInProgress) {
+			trialCallInProgress = true;
+			return;
+		}
+		throw new CircuitBreakerOpenException("Circuit breaker " + name + " is open");
+	}
+
+	private synchronized void onSuccess() {
+		if (state == State.HALF_OPEN) {
+			close();
+			return;
+		}
+		record(false);
+	}
+
+	private synchronized void onFailure(Throwable throwable) {
+		if (throwable instanceof BulkheadFullException) {
+			if (state == State.HALF_OPEN) {
+				trialCallInProgress = false;
+			}
+			return;
+		}
+		if (state == State.HALF_OPEN) {
+			open();
+			return;
+		}
+		record(true);
+		if (state == State.CLOSED && recordedCalls >= minimumCalls && failures >= failureRateThreshold * recordedCalls) {
+			open();
+		}
+	}
+
+	private void record(boolean failure) {
+		if (recordedCalls == windowSize) {
+			if (outcomes[nextOutcome]) {
+				failures--;
+			}
+		} else {
+			recordedCalls++;
+		}
+		outcomes[nextOutcome] = failure;
+		if (failure) {
+			failures++;
+		}
+		nextOutcome = (nextOutcome + 1) % windowSize;
+	}
+
+	private void open() {
+		state = State.OPEN;
+		openedAt = System.nanoTime();
+		trialCallInProgress = false;
+	}
+
+	private void close() {
+		state = State.CLOSED;
+		trialCallInProgress = false;
+		recordedCalls = 0;
+		nextOutcome = 0;
+		failures = 0;
+	}
+}
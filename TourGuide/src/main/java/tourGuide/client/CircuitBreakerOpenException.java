@@ -0,0 +1,15 @@
+package tourGuide.client;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown instead of calling a downstream service while its circuit breaker is open
+ */
+public class CircuitBreakerOpenException extends RestClientException {
+
+	private static final long serialVersionUID = 1L;
+
+	public CircuitBreakerOpenException(String msg) {
+		super(msg);
+	}
+}
@@ -0,0 +1,212 @@
+package tourGuide.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.HttpClientConnection;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.Connection;
+import reactor.netty.ConnectionObserver;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connections to one downstream service, isolated from the other services: its own keep-alive connection pools for the
+ * blocking and non-blocking clients, its own timeouts and its own bulkhead. Pool usage of both clients, pool wait time
+ * of the blocking one and bulkhead usage are published as tourguide.downstream.* metrics tagged with the service name.
+ */
+public class DownstreamService implements MeterBinder {
+
+	private final String name;
+	private final String uri;
+	private final TimedConnectionManager connectionManager;
+	private final CloseableHttpClient httpClient;
+	private final ConnectionProvider connectionProvider;
+	private final RestTemplate restTemplate;
+	private final WebClient webClient;
+	private final Bulkhead bulkhead;
+	// Reactor 0.8 pools publish no statistics, so open and leased connections are tracked from their state changes
+	private final Set<Channel> reactiveConnections = ConcurrentHashMap.newKeySet();
+	private final Set<Channel> leasedReactiveConnections = ConcurrentHashMap.newKeySet();
+
+	public DownstreamService(String name, DownstreamServiceProperties properties) {
+		this.name = name;
+		this.uri = properties.getUri();
+
+		connectionManager = new TimedConnectionManager();
+		connectionManager.setMaxTotal(properties.getMaxConnections());
+		connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerRoute());
+		httpClient = HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectTimeout(properties.getConnectTimeoutMillis())
+						.setSocketTimeout(properties.getReadTimeoutMillis())
+						.setConnectionRequestTimeout(properties.getConnectionRequestTimeoutMillis())
+						.build())
+				.evictExpiredConnections()
+				.evictIdleConnections(properties.getKeepAliveSeconds(), TimeUnit.SECONDS)
+				.build();
+		restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+
+		// Reactor pools connections per remote address, so its limit is the per-route limit
+		connectionProvider = ConnectionProvider.fixed(name, properties.getMaxConnectionsPerRoute(),
+				properties.getConnectionRequestTimeoutMillis());
+		HttpClient reactorHttpClient = HttpClient.create(connectionProvider)
+				.tcpConfiguration(tcpClient -> tcpClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, properties.getConnectTimeoutMillis()))
+				.observe(this::onReactiveConnectionStateChange)
+				// Handlers added to a connection are removed when it goes back to the pool, so idle connections never time out
+				.doOnRequest((request, connection) -> connection.addHandlerLast(
+						new ReadTimeoutHandler(properties.getReadTimeoutMillis(), TimeUnit.MILLISECONDS)));
+		webClient = WebClient.builder()
+				.clientConnector(new ReactorClientHttpConnector(reactorHttpClient))
+				.build();
+
+		bulkhead = new Bulkhead(name, properties.getBulkheadMaxConcurrentCalls(), properties.getBulkheadMaxWaitMillis(),
+				properties.getBulkheadMaxQueuedCalls());
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getURI() {
+		return uri;
+	}
+
+	public RestTemplate getRestTemplate() {
+		return restTemplate;
+	}
+
+	public WebClient getWebClient() {
+		return webClient;
+	}
+
+	public Bulkhead getBulkhead() {
+		return bulkhead;
+	}
+
+	public int getLeasedConnections() {
+		return connectionManager.getTotalStats().getLeased();
+	}
+
+	public int getAvailableConnections() {
+		return connectionManager.getTotalStats().getAvailable();
+	}
+
+	public int getPendingConnectionRequests() {
+		return connectionManager.getTotalStats().getPending();
+	}
+
+	public int getLeasedReactiveConnections() {
+		return leasedReactiveConnections.size();
+	}
+
+	public int getAvailableReactiveConnections() {
+		return Math.max(0, reactiveConnections.size() - leasedReactiveConnections.size());
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("tourguide.downstream.connections.leased", this, DownstreamService::getLeasedConnections)
+				.tag("service", name).register(registry);
+		Gauge.builder("tourguide.downstream.connections.available", this, DownstreamService::getAvailableConnections)
+				.tag("service", name).register(registry);
+		Gauge.builder("tourguide.downstream.connections.pending", this, DownstreamService::getPendingConnectionRequests)
+				.tag("service", name).register(registry);
+		FunctionTimer.builder("tourguide.downstream.connections.wait", connectionManager,
+				manager -> manager.leases.sum(), manager -> manager.leaseNanos.sum(), TimeUnit.NANOSECONDS)
+				.tag("service", name).register(registry);
+		Gauge.builder("tourguide.downstream.reactive.connections.leased", this, DownstreamService::getLeasedReactiveConnections)
+				.tag("service", name).register(registry);
+		Gauge.builder("tourguide.downstream.reactive.connections.available", this,
+				DownstreamService::getAvailableReactiveConnections)
+				.tag("service", name).register(registry);
+
+		Gauge.builder("tourguide.downstream.bulkhead.active", bulkhead, Bulkhead::getActiveCalls)
+				.tag("service", name).register(registry);
+		Gauge.builder("tourguide.downstream.bulkhead.queued", bulkhead, Bulkhead::getQueuedCalls)
+				.tag("service", name).register(registry);
+		FunctionCounter.builder("tourguide.downstream.bulkhead.rejected", bulkhead, Bulkhead::getRejectedCalls)
+				.tag("service", name).register(registry);
+		FunctionTimer.builder("tourguide.downstream.bulkhead.wait", bulkhead,
+				Bulkhead::getWaits, Bulkhead::getWaitNanos, TimeUnit.NANOSECONDS)
+				.tag("service", name).register(registry);
+	}
+
+	public void close() throws IOException {
+		httpClient.close();
+		connectionProvider.dispose();
+	}
+
+	// A new connection is configured rather than acquired, then both kinds are released back to the pool
+	private void onReactiveConnectionStateChange(Connection connection, ConnectionObserver.State newState) {
+		Channel channel = connection.channel();
+		if (newState == ConnectionObserver.State.CONNECTED) {
+			reactiveConnections.add(channel);
+			channel.closeFuture().addListener(future -> {
+				reactiveConnections.remove(channel);
+				leasedReactiveConnections.remove(channel);
+			});
+		} else if (newState == ConnectionObserver.State.CONFIGURED || newState == ConnectionObserver.State.ACQUIRED) {
+			if (channel.isOpen()) {
+				leasedReactiveConnections.add(channel);
+			}
+		} else if (newState == ConnectionObserver.State.RELEASED) {
+			leasedReactiveConnections.remove(channel);
+		}
+	}
+
+	/**
+	 * Pooling connection manager recording how long callers wait to lease a connection
+	 */
+	private static final class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+
+		private final LongAdder leases = new LongAdder();
+		private final LongAdder leaseNanos = new LongAdder();
+
+		@Override
+		public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+			ConnectionRequest connectionRequest = super.requestConnection(route, state);
+			return new ConnectionRequest() {
+				@Override
+				public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+						throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+					long leaseStart = System.nanoTime();
+					try {
+						return connectionRequest.get(timeout, timeUnit);
+					} finally {
+						leases.increment();
+						leaseNanos.add(System.nanoTime() - leaseStart);
+					}
+				}
+
+				@Override
+				public boolean cancel() {
+					return connectionRequest.cancel();
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package tourGuide.client;
+
+/**
+ * Connection pool, timeouts and bulkhead of one downstream service, see the tourguide.*-service.* properties
+ */
+public class DownstreamServiceProperties {
+
+	private String uri;
+	private int maxConnections = 200;
+	private int maxConnectionsPerRoute = 100;
+	private int connectTimeoutMillis = 2000;
+	private int readTimeoutMillis = 5000;
+	private int connectionRequestTimeoutMillis = 2000;
+	private long keepAliveSeconds = 30;
+	private int bulkheadMaxConcurrentCalls = 100;
+	private long bulkheadMaxWaitMillis = 1000;
+	private int bulkheadMaxQueuedCalls = 10000;
+
+	public DownstreamServiceProperties() {
+	}
+
+	public DownstreamServiceProperties(String uri) {
+		this.uri = uri;
+	}
+
+	public String getUri() {
+		return uri;
+	}
+
+	public void setUri(String uri) {
+		this.uri = uri;
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	public int getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+		this.connectTimeoutMillis = connectTimeoutMillis;
+	}
+
+	public int getReadTimeoutMillis() {
+		return readTimeoutMillis;
+	}
+
+	public void setReadTimeoutMillis(int readTimeoutMillis) {
+		this.readTimeoutMillis = readTimeoutMillis;
+	}
+
+	// Longest wait for a pooled connection
+	public int getConnectionRequestTimeoutMillis() {
+		return connectionRequestTimeoutMillis;
+	}
+
+	public void setConnectionRequestTimeoutMillis(int connectionRequestTimeoutMillis) {
+		this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+	}
+
+	// Idle pooled connections are closed after this time
+	public long getKeepAliveSeconds() {
+		return keepAliveSeconds;
+	}
+
+	public void setKeepAliveSeconds(long keepAliveSeconds) {
+		this.keepAliveSeconds = keepAliveSeconds;
+	}
+
+	public int getBulkheadMaxConcurrentCalls() {
+		return bulkheadMaxConcurrentCalls;
+	}
+
+	public void setBulkheadMaxConcurrentCalls(int bulkheadMaxConcurrentCalls) {
+		this.bulkheadMaxConcurrentCalls = bulkheadMaxConcurrentCalls;
+	}
+
+	public long getBulkheadMaxWaitMillis() {
+		return bulkheadMaxWaitMillis;
+	}
+
+	public void setBulkheadMaxWaitMillis(long bulkheadMaxWaitMillis) {
+		this.bulkheadMaxWaitMillis = bulkheadMaxWaitMillis;
+	}
+
+	public int getBulkheadMaxQueuedCalls() {
+		return bulkheadMaxQueuedCalls;
+	}
+
+	public void setBulkheadMaxQueuedCalls(int bulkheadMaxQueuedCalls) {
+		this.bulkheadMaxQueuedCalls = bulkheadMaxQueuedCalls;
+	}
+}
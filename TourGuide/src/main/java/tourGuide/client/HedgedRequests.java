@@ -0,0 +1,101 @@
+package tourGuide.client;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cuts tail latency by sending a second, identical request when the first one is still unanswered after the recent
+ * 95th percentile latency; the first successful response wins. Since only requests slower than the percentile are
+ * hedged, this adds about 5% of requests to the service. Once the result is complete, whether by a response or by the
+ * caller cancelling it, the hedge is no longer scheduled and the requests still in flight are cancelled.
+ */
+public class HedgedRequests {
+
+	private static final ScheduledExecutorService hedgeScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "hedged-requests");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final LatencyTracker latencyTracker = new LatencyTracker(1024, 0.95);
+	private final long minDelayNanos;
+	private final LongAdder hedgesSent = new LongAdder();
+
+	/**
+	 * @param minDelayMillis least delay before hedging, which also applies before any latency has been measured
+	 */
+	public HedgedRequests(long minDelayMillis) {
+		this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+	}
+
+	public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> request) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		AtomicInteger pendingRequests = new AtomicInteger(1);
+		List<CompletableFuture<T>> responses = new CopyOnWriteArrayList<>();
+
+		// Failures count too, and a first request cancelled because its hedge won counts with the time it had taken,
+		// which is at least the hedge delay
+		long start = System.nanoTime();
+		send(request, result, pendingRequests, responses)
+				.whenComplete((value, throwable) -> latencyTracker.record(System.nanoTime() - start));
+
+		ScheduledFuture<?> hedge = hedgeScheduler.schedule(() -> {
+			if (!result.isDone()) {
+				pendingRequests.incrementAndGet();
+				hedgesSent.increment();
+				send(request, result, pendingRequests, responses);
+			}
+		}, getHedgeDelayNanos(), TimeUnit.NANOSECONDS);
+
+		result.whenComplete((value, throwable) -> {
+			hedge.cancel(false);
+			responses.forEach(response -> response.cancel(true));
+		});
+		return result;
+	}
+
+	public long getHedgeDelayNanos() {
+		return Math.max(minDelayNanos, latencyTracker.getPercentileNanos());
+	}
+
+	public long getHedgesSent() {
+		return hedgesSent.sum();
+	}
+
+	public long getLatencySamples() {
+		return latencyTracker.getRecordedSamples();
+	}
+
+	// Completes the result with the first success, or with the last failure once no request is pending
+	private <T> CompletableFuture<T> send(Supplier<CompletableFuture<T>> request, CompletableFuture<T> result,
+										  AtomicInteger pendingRequests, List<CompletableFuture<T>> responses) {
+		CompletableFuture<T> response;
+		try {
+			response = request.get();
+		} catch (RuntimeException e) {
+			response = new CompletableFuture<>();
+			response.completeExceptionally(e);
+		}
+		responses.add(response);
+		// The result may have completed while the hedge was being sent, after its requests were cancelled
+		if (result.isDone()) {
+			response.cancel(true);
+		}
+		response.whenComplete((value, throwable) -> {
+			if (throwable == null) {
+				result.complete(value);
+			} else if (pendingRequests.decrementAndGet() == 0) {
+				result.completeExceptionally(throwable);
+			}
+		});
+		return response;
+	}
+}
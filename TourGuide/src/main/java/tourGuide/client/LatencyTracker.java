@@ -0,0 +1,52 @@
+package tourGuide.client;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Percentile of the latest response times of a service, over a ring of samples. The percentile is recomputed every
+ * refreshInterval samples rather than on each read.
+ */
+public class LatencyTracker {
+
+	private static final int refreshInterval = 64;
+
+	private final AtomicLongArray samples;
+	private final AtomicLong recordedSamples = new AtomicLong();
+	private final double percentile;
+	private volatile long percentileNanos;
+
+	public LatencyTracker(int sampleSize, double percentile) {
+		this.samples = new AtomicLongArray(sampleSize);
+		this.percentile = percentile;
+	}
+
+	public void record(long latencyNanos) {
+		long sample = recordedSamples.getAndIncrement();
+		samples.set((int) (sample % samples.length()), latencyNanos);
+		if ((sample + 1) % refreshInterval == 0 || sample + 1 == samples.length()) {
+			refresh(Math.min(sample + 1, samples.length()));
+		}
+	}
+
+	/**
+	 * @return latency under which the tracked percentile of the latest samples fall, or 0 before enough samples
+	 */
+	public long getPercentileNanos() {
+		return percentileNanos;
+	}
+
+	public long getRecordedSamples() {
+		return recordedSamples.get();
+	}
+
+	private void refresh(long sampleCount) {
+		long[] sortedSamples = new long[(int) sampleCount];
+		for (int i = 0; i < sortedSamples.length; i++) {
+			sortedSamples[i] = samples.get(i);
+		}
+		Arrays.sort(sortedSamples);
+		percentileNanos = sortedSamples[(int) Math.min(sortedSamples.length - 1, Math.ceil(percentile * sortedSamples.length) - 1)];
+	}
+}
@@ -0,0 +1,169 @@
+package tourGuide.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tourGuide.domain.location.VisitedLocation;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups individual user-location requests into batch requests to the location service.
+ * A batch is sent as soon as it holds batchSize users, or maxWaitMillis after its first user was submitted.
+ * The users of a batch are completed on a completion executor rather than on the event loop thread that received the
+ * response, as their callers go on to record the locations and scan them for rewards.
+ */
+public class LocationBatcher {
+
+	private Logger logger = LoggerFactory.getLogger(LocationBatcher.class);
+	private static final int defaultBatchSize = 500;
+	private static final long defaultMaxWaitMillis = 50;
+	private static final int defaultCompletionThreads = 4;
+
+	private final LocationClient locationClient;
+	private final int batchSize;
+	private final long maxWaitMillis;
+	private final Executor completionExecutor;
+	private final Object lock = new Object();
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "location-batcher");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private Map<UUID, CompletableFuture<VisitedLocation>> pending = new LinkedHashMap<>();
+	private ScheduledFuture<?> scheduledFlush;
+
+	public LocationBatcher(LocationClient locationClient) {
+		this(locationClient, defaultBatchSize, defaultMaxWaitMillis);
+	}
+
+	public LocationBatcher(LocationClient locationClient, int batchSize, long maxWaitMillis) {
+		this(locationClient, batchSize, maxWaitMillis, newCompletionExecutor(defaultCompletionThreads));
+	}
+
+	/**
+	 * @param locationClient
+	 * @param batchSize
+	 * @param maxWaitMillis
+	 * @param completionExecutor completes the users of a batch once its response is received
+	 */
+	public LocationBatcher(LocationClient locationClient, int batchSize, long maxWaitMillis, Executor completionExecutor) {
+		this.locationClient = locationClient;
+		this.batchSize = batchSize;
+		this.maxWaitMillis = maxWaitMillis;
+		this.completionExecutor = completionExecutor;
+	}
+
+	/**
+	 * @param threads
+	 * @return executor completing the users of batches, whose threads stop when idle
+	 */
+	public static ExecutorService newCompletionExecutor(int threads) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "location-batch-completion");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Queues a user for the next batch; a user already waiting shares the pending result
+	 * @param userId
+	 * @return future visited location
+	 */
+	public CompletableFuture<VisitedLocation> submit(UUID userId) {
+		CompletableFuture<VisitedLocation> future;
+		Map<UUID, CompletableFuture<VisitedLocation>> fullBatch = null;
+		synchronized (lock) {
+			future = pending.computeIfAbsent(userId, id -> new CompletableFuture<>());
+			if (pending.size() >= batchSize) {
+				fullBatch = takePending();
+			} else if (scheduledFlush == null) {
+				scheduledFlush = scheduler.schedule(this::flush, maxWaitMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+		if (fullBatch != null) {
+			send(fullBatch);
+		}
+		return future;
+	}
+
+	/**
+	 * Sends the pending users without waiting for the batch to fill up
+	 */
+	public void flush() {
+		Map<UUID, CompletableFuture<VisitedLocation>> batch;
+		synchronized (lock) {
+			batch = takePending();
+		}
+		if (!batch.isEmpty()) {
+			send(batch);
+		}
+	}
+
+	public void shutdown() {
+		flush();
+		scheduler.shutdownNow();
+	}
+
+	private Map<UUID, CompletableFuture<VisitedLocation>> takePending() {
+		Map<UUID, CompletableFuture<VisitedLocation>> batch = pending;
+		pending = new LinkedHashMap<>();
+		if (scheduledFlush != null) {
+			scheduledFlush.cancel(false);
+			scheduledFlush = null;
+		}
+		return batch;
+	}
+
+	private void send(Map<UUID, CompletableFuture<VisitedLocation>> batch) {
+		logger.debug("Requesting locations for a batch of " + batch.size() + " users");
+		CompletableFuture<List<VisitedLocation>> response;
+		try {
+			response = locationClient.getUserLocationsAsync(batch.keySet());
+		} catch (RuntimeException e) {
+			batch.values().forEach(future -> future.completeExceptionally(e));
+			return;
+		}
+		response.whenCompleteAsync((visitedLocations, error) -> {
+			if (error != null) {
+				batch.values().forEach(future -> future.completeExceptionally(error));
+				return;
+			}
+			// An empty response, or a malformed location in it, fails the users left rather than leaving them waiting
+			try {
+				if (visitedLocations != null) {
+					for (VisitedLocation visitedLocation : visitedLocations) {
+						CompletableFuture<VisitedLocation> future = batch.get(visitedLocation.userId);
+						if (future != null) {
+							future.complete(visitedLocation);
+						}
+					}
+				}
+			} catch (RuntimeException e) {
+				batch.values().forEach(future -> future.completeExceptionally(e));
+				return;
+			}
+			batch.forEach((userId, future) -> future.completeExceptionally(
+					new IllegalStateException("Location service returned no location for user " + userId)));
+		}, completionExecutor);
+	}
+}
@@ -0,0 +1,124 @@
+package tourGuide.client;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import tourGuide.domain.location.AttractionListWrapper;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.location.VisitedLocationListWrapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Calls to the location service (port 8082), either blocking or non-blocking
+ */
+public class LocationClient {
+
+	private static final String defaultLocationServiceURI = "http://localhost:8082";
+
+	private final RestTemplate restTemplate;
+	private final WebClient webClient;
+	private final String locationServiceURI;
+	private final Bulkhead bulkhead;
+
+	public LocationClient(RestTemplate restTemplate) {
+		this(restTemplate, WebClient.create());
+	}
+
+	public LocationClient(RestTemplate restTemplate, WebClient webClient) {
+		this(restTemplate, webClient, defaultLocationServiceURI);
+	}
+
+	public LocationClient(RestTemplate restTemplate, WebClient webClient, String locationServiceURI) {
+		this(restTemplate, webClient, locationServiceURI, Bulkhead.unlimited("location"));
+	}
+
+	public LocationClient(DownstreamService downstreamService) {
+		this(downstreamService.getRestTemplate(), downstreamService.getWebClient(), downstreamService.getURI(),
+				downstreamService.getBulkhead());
+	}
+
+	public LocationClient(RestTemplate restTemplate, WebClient webClient, String locationServiceURI, Bulkhead bulkhead) {
+		this.restTemplate = restTemplate;
+		this.webClient = webClient;
+		this.locationServiceURI = locationServiceURI;
+		this.bulkhead = bulkhead;
+	}
+
+	public VisitedLocation getUserLocation(UUID userId) {
+		return bulkhead.call(() -> restTemplate.getForObject(userLocationURI(userId), VisitedLocation.class));
+	}
+
+	public CompletableFuture<VisitedLocation> getUserLocationAsync(UUID userId) {
+		return bulkhead.callAsync(() -> webClient.get()
+				.uri(userLocationURI(userId))
+				.retrieve()
+				.bodyToMono(VisitedLocation.class)
+				.toFuture());
+	}
+
+	/**
+	 * Gets the current location of several users in a single request
+	 * @param userIds
+	 * @return one visited location per user known to the location service, in no particular order
+	 */
+	public List<VisitedLocation> getUserLocations(Collection<UUID> userIds) {
+		VisitedLocationListWrapper visitedLocationListWrapper = bulkhead.call(() -> restTemplate.postForObject(
+				locationServiceURI + "/user-locations", userIds, VisitedLocationListWrapper.class));
+		return visitedLocationListWrapper.getVisitedLocationList();
+	}
+
+	public CompletableFuture<List<VisitedLocation>> getUserLocationsAsync(Collection<UUID> userIds) {
+		return bulkhead.callAsync(() -> webClient.post()
+				.uri(locationServiceURI + "/user-locations")
+				.syncBody(userIds)
+				.retrieve()
+				.bodyToMono(VisitedLocationListWrapper.class)
+				.map(VisitedLocationListWrapper::getVisitedLocationList)
+				.toFuture());
+	}
+
+	/**
+	 * Gets the attraction list
+	 * @param eTag version already held by the caller, or null
+	 * @return attractions, or an empty 304 response if they have not changed since eTag
+	 */
+	public ResponseEntity<AttractionListWrapper> getAttractions(String eTag) {
+		return bulkhead.call(() -> restTemplate.exchange(locationServiceURI + "/attractions", HttpMethod.GET,
+				new HttpEntity<>(conditionalHeaders(eTag)), AttractionListWrapper.class));
+	}
+
+	public CompletableFuture<ResponseEntity<AttractionListWrapper>> getAttractionsAsync(String eTag) {
+		return bulkhead.callAsync(() -> webClient.get()
+				.uri(locationServiceURI + "/attractions")
+				.headers(headers -> headers.addAll(conditionalHeaders(eTag)))
+				.exchange()
+				.flatMap(response -> response.statusCode().isError() ?
+						response.bodyToMono(byte[].class).defaultIfEmpty(new byte[0]).flatMap(body -> Mono.error(
+								new WebClientResponseException(response.rawStatusCode(), response.statusCode().getReasonPhrase(),
+										response.headers().asHttpHeaders(), body, StandardCharsets.UTF_8))) :
+						response.toEntity(AttractionListWrapper.class))
+				.toFuture());
+	}
+
+	private String userLocationURI(UUID userId) {
+		return locationServiceURI + "/user-location?userId=" + userId;
+	}
+
+	private static HttpHeaders conditionalHeaders(String eTag) {
+		HttpHeaders headers = new HttpHeaders();
+		if (eTag != null) {
+			headers.setIfNoneMatch(eTag);
+		}
+		return headers;
+	}
+}
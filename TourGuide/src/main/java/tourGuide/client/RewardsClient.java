@@ -0,0 +1,101 @@
+package tourGuide.client;
+
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Calls to the rewards service (port 8083), either blocking or non-blocking
+ */
+public class RewardsClient {
+
+	private static final String defaultRewardsServiceURI = "http://localhost:8083";
+
+	private final RestTemplate restTemplate;
+	private final WebClient webClient;
+	private final String rewardsServiceURI;
+	private final Bulkhead bulkhead;
+	private final CircuitBreaker circuitBreaker;
+	private final HedgedRequests hedgedRequests;
+
+	public RewardsClient(RestTemplate restTemplate) {
+		this(restTemplate, WebClient.create());
+	}
+
+	public RewardsClient(RestTemplate restTemplate, WebClient webClient) {
+		this(restTemplate, webClient, defaultRewardsServiceURI);
+	}
+
+	public RewardsClient(RestTemplate restTemplate, WebClient webClient, String rewardsServiceURI) {
+		this(restTemplate, webClient, rewardsServiceURI, Bulkhead.unlimited("rewards"), defaultCircuitBreaker(), null);
+	}
+
+	public RewardsClient(DownstreamService downstreamService) {
+		this(downstreamService, defaultCircuitBreaker(), null);
+	}
+
+	/**
+	 * @param downstreamService
+	 * @param circuitBreaker
+	 * @param hedgedRequests hedging of non-blocking calls, or null to send a single request
+	 */
+	public RewardsClient(DownstreamService downstreamService, CircuitBreaker circuitBreaker, HedgedRequests hedgedRequests) {
+		this(downstreamService.getRestTemplate(), downstreamService.getWebClient(), downstreamService.getURI(),
+				downstreamService.getBulkhead(), circuitBreaker, hedgedRequests);
+	}
+
+	public RewardsClient(RestTemplate restTemplate, WebClient webClient, String rewardsServiceURI, Bulkhead bulkhead,
+						 CircuitBreaker circuitBreaker, HedgedRequests hedgedRequests) {
+		this.restTemplate = restTemplate;
+		this.webClient = webClient;
+		this.rewardsServiceURI = rewardsServiceURI;
+		this.bulkhead = bulkhead;
+		this.circuitBreaker = circuitBreaker;
+		this.hedgedRequests = hedgedRequests;
+	}
+
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	public Integer getRewardPoints(UUID attractionId, UUID userId) {
+		return circuitBreaker.call(() -> bulkhead.call(() -> requireRewardPoints(
+				restTemplate.getForObject(rewardPointsURI(attractionId, userId), Integer.class))));
+	}
+
+	public CompletableFuture<Integer> getRewardPointsAsync(UUID attractionId, UUID userId) {
+		if (hedgedRequests == null) {
+			return circuitBreaker.callAsync(() -> rewardPointsRequest(attractionId, userId));
+		}
+		return circuitBreaker.callAsync(() -> hedgedRequests.call(() -> rewardPointsRequest(attractionId, userId)));
+	}
+
+	private CompletableFuture<Integer> rewardPointsRequest(UUID attractionId, UUID userId) {
+		return bulkhead.callAsync(() -> webClient.get()
+				.uri(rewardPointsURI(attractionId, userId))
+				.retrieve()
+				.bodyToMono(Integer.class)
+				.switchIfEmpty(Mono.defer(() -> Mono.error(new RestClientException("No reward points returned"))))
+				.toFuture());
+	}
+
+	// An empty response is a failure of the rewards service, rather than a null to be unboxed by the caller
+	private static Integer requireRewardPoints(Integer rewardPoints) {
+		if (rewardPoints == null) {
+			throw new RestClientException("No reward points returned");
+		}
+		return rewardPoints;
+	}
+
+	private static CircuitBreaker defaultCircuitBreaker() {
+		return new CircuitBreaker("rewards", 20, 10, 0.5, 30000);
+	}
+
+	private String rewardPointsURI(UUID attractionId, UUID userId) {
+		return rewardsServiceURI + "/reward-points?attractionId=" + attractionId + "&userId=" + userId;
+	}
+}
@@ -0,0 +1,83 @@
+package tourGuide.client;
+
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import tourGuide.domain.rewards.Provider;
+import tourGuide.domain.rewards.ProviderListWrapper;
+import tourGuide.domain.user.UserPreferences;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Calls to the pricer service (port 8084), either blocking or non-blocking
+ */
+public class TripPricerClient {
+
+	private static final String defaultPricerServiceURI = "http://localhost:8084";
+
+	private final RestTemplate restTemplate;
+	private final WebClient webClient;
+	private final String pricerServiceURI;
+	private final Bulkhead bulkhead;
+
+	public TripPricerClient(RestTemplate restTemplate) {
+		this(restTemplate, WebClient.create());
+	}
+
+	public TripPricerClient(RestTemplate restTemplate, WebClient webClient) {
+		this(restTemplate, webClient, defaultPricerServiceURI);
+	}
+
+	public TripPricerClient(RestTemplate restTemplate, WebClient webClient, String pricerServiceURI) {
+		this(restTemplate, webClient, pricerServiceURI, Bulkhead.unlimited("pricer"));
+	}
+
+	public TripPricerClient(DownstreamService downstreamService) {
+		this(downstreamService.getRestTemplate(), downstreamService.getWebClient(), downstreamService.getURI(),
+				downstreamService.getBulkhead());
+	}
+
+	public TripPricerClient(RestTemplate restTemplate, WebClient webClient, String pricerServiceURI, Bulkhead bulkhead) {
+		this.restTemplate = restTemplate;
+		this.webClient = webClient;
+		this.pricerServiceURI = pricerServiceURI;
+		this.bulkhead = bulkhead;
+	}
+
+	public List<Provider> getTripDeals(String apiKey, UUID userId, UserPreferences userPreferences, int cumulativeRewardPoints) {
+		ProviderListWrapper providerListWrapper = bulkhead.call(() -> restTemplate.getForObject(
+				tripDealsURI(apiKey, userId, userPreferences, cumulativeRewardPoints), ProviderListWrapper.class));
+		return requireTripDeals(providerListWrapper);
+	}
+
+	public CompletableFuture<List<Provider>> getTripDealsAsync(String apiKey, UUID userId, UserPreferences userPreferences,
+															   int cumulativeRewardPoints) {
+		return bulkhead.callAsync(() -> webClient.get()
+				.uri(tripDealsURI(apiKey, userId, userPreferences, cumulativeRewardPoints))
+				.retrieve()
+				.bodyToMono(ProviderListWrapper.class)
+				.switchIfEmpty(Mono.defer(() -> Mono.error(new RestClientException("No trip deals returned"))))
+				.map(TripPricerClient::requireTripDeals)
+				.toFuture());
+	}
+
+	// An empty response is a failure of the pricer service, rather than null deals to be cached and served
+	private static List<Provider> requireTripDeals(ProviderListWrapper providerListWrapper) {
+		if (providerListWrapper == null || providerListWrapper.getProviderList() == null) {
+			throw new RestClientException("No trip deals returned");
+		}
+		return providerListWrapper.getProviderList();
+	}
+
+	private String tripDealsURI(String apiKey, UUID userId, UserPreferences userPreferences, int cumulativeRewardPoints) {
+		return pricerServiceURI + "/trip-deals?tripPricerApiKey=" + apiKey + "&userId=" + userId +
+				"&numberOfAdults=" + userPreferences.getNumberOfAdults() +
+				"&numberOfChildren=" + userPreferences.getNumberOfChildren() +
+				"&tripDuration=" + userPreferences.getTripDuration() +
+				"&cumulativeRewardPoints=" + cumulativeRewardPoints;
+	}
+}
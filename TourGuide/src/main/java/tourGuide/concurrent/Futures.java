@@ -0,0 +1,26 @@
+package tourGuide.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+public final class Futures {
+
+	private Futures() {
+	}
+
+	/**
+	 * Makes cancelling a future derived from another one, e.g. by thenApply or thenCompose, cancel that other one too,
+	 * which CompletableFuture never does on its own. Cancelling once the other future has completed has no effect on it.
+	 * @param dependent
+	 * @param upstream
+	 * @return the dependent future
+	 */
+	public static <T> CompletableFuture<T> cancelUpstream(CompletableFuture<T> dependent, Future<?> upstream) {
+		dependent.whenComplete((result, throwable) -> {
+			if (dependent.isCancelled()) {
+				upstream.cancel(true);
+			}
+		});
+		return dependent;
+	}
+}
@@ -0,0 +1,152 @@
+package tourGuide.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent calls: while a call for a key is in flight, other callers for the same key share its
+ * result instead of making their own call. The key is forgotten as soon as the call completes, so nothing is cached.
+ * A non-blocking call is cancelled once every caller sharing it has cancelled its future.
+ * @param <K> identity of a call, e.g. a user id
+ * @param <V> result of the call
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder sharedCalls = new LongAdder();
+
+	/**
+	 * Runs a blocking call on the caller's thread, unless the same call is already in flight
+	 * @param key
+	 * @param call
+	 * @return result of the call, possibly made by another caller
+	 */
+	public V call(K key, Supplier<V> call) {
+		Flight<V> flight = new Flight<>();
+		Flight<V> existing;
+		while ((existing = inFlight.putIfAbsent(key, flight)) != null) {
+			if (existing.join()) {
+				sharedCalls.increment();
+				return join(existing.result);
+			}
+			// Every caller of that flight cancelled it
+			inFlight.remove(key, existing);
+		}
+		try {
+			V result = call.get();
+			flight.result.complete(result);
+			return result;
+		} catch (Throwable e) {
+			// Callers that joined this flight would otherwise wait forever on an Error or a sneaky checked exception
+			flight.result.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, flight);
+		}
+	}
+
+	/**
+	 * Starts a non-blocking call, unless the same call is already in flight
+	 * @param key
+	 * @param call
+	 * @return future result of the call, possibly made by another caller
+	 */
+	public CompletableFuture<V> callAsync(K key, Supplier<CompletableFuture<V>> call) {
+		Flight<V> flight = new Flight<>();
+		Flight<V> existing;
+		while ((existing = inFlight.putIfAbsent(key, flight)) != null) {
+			if (existing.join()) {
+				sharedCalls.increment();
+				return existing.newCaller();
+			}
+			inFlight.remove(key, existing);
+		}
+		CompletableFuture<V> response;
+		try {
+			response = call.get();
+		} catch (Throwable e) {
+			response = new CompletableFuture<>();
+			response.completeExceptionally(e);
+		}
+		response.whenComplete((result, throwable) -> {
+			inFlight.remove(key, flight);
+			if (throwable != null) {
+				flight.result.completeExceptionally(throwable);
+			} else {
+				flight.result.complete(result);
+			}
+		});
+		flight.setResponse(response);
+		return flight.newCaller();
+	}
+
+	public int getInFlightCalls() {
+		return inFlight.size();
+	}
+
+	public long getSharedCalls() {
+		return sharedCalls.sum();
+	}
+
+	private static <V> V join(CompletableFuture<V> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	// A call and the number of its callers that have not cancelled; blocking callers never cancel
+	private static final class Flight<V> {
+
+		private final CompletableFuture<V> result = new CompletableFuture<>();
+		private final AtomicInteger callers = new AtomicInteger(1);
+		private volatile CompletableFuture<V> response;
+
+		// Fails once every caller has cancelled, as the call is then being cancelled
+		private boolean join() {
+			int current;
+			do {
+				current = callers.get();
+				if (current == 0) {
+					return false;
+				}
+			} while (!callers.compareAndSet(current, current + 1));
+			return true;
+		}
+
+		private void setResponse(CompletableFuture<V> response) {
+			this.response = response;
+			// Every caller may have cancelled before the call was started
+			if (callers.get() == 0) {
+				response.cancel(true);
+			}
+		}
+
+		// Callers get their own dependent future, so that cancelling it only cancels the call once no caller is left
+		private CompletableFuture<V> newCaller() {
+			CompletableFuture<V> caller = result.thenApply(Function.identity());
+			caller.whenComplete((value, throwable) -> {
+				if (caller.isCancelled() && callers.decrementAndGet() == 0) {
+					CompletableFuture<V> current = response;
+					if (current != null) {
+						current.cancel(true);
+					}
+				}
+			});
+			return caller;
+		}
+	}
+}
@@ -1,22 +1,182 @@
 package tourGuide.configuration;
 
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import tourGuide.cache.RewardPointsCache;
+import tourGuide.cache.TripDealsCache;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.client.CircuitBreaker;
+import tourGuide.client.DownstreamService;
+import tourGuide.client.DownstreamServiceProperties;
+import tourGuide.client.HedgedRequests;
+import tourGuide.client.LocationBatcher;
+import tourGuide.client.LocationClient;
+import tourGuide.client.RewardsClient;
+import tourGuide.client.TripPricerClient;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.journal.Journal;
+import tourGuide.journal.NoOpJournal;
+import tourGuide.journal.SegmentedJournal;
+import tourGuide.repository.InMemoryUserStore;
 import tourGuide.repository.TestUserRepository;
+import tourGuide.repository.UserStore;
+import tourGuide.repository.UserStoreSnapshot;
+import tourGuide.tracker.TrackerProperties;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 
 @Configuration
 public class TourGuideConfiguration {
 
 	@Bean
-	public TestUserRepository getTestUserRepository() {
-		return new TestUserRepository();
+	public UserStore getUserStore() {
+		return new InMemoryUserStore(InternalTestHelper.getInternalUserNumber());
+	}
+
+	// Without a snapshot, users are recovered from the journal or generated at each start
+	@Bean
+	@ConditionalOnProperty(name = "tourguide.snapshot.enabled", havingValue = "true")
+	public UserStoreSnapshot getUserStoreSnapshot(@Value("${tourguide.snapshot.path:snapshot/users.snapshot}") String path,
+			@Value("${tourguide.snapshot.interval-seconds:600}") long intervalSeconds) {
+		return new UserStoreSnapshot(Paths.get(path), intervalSeconds);
+	}
+
+	@Bean
+	public TestUserRepository getTestUserRepository(UserStore userStore,
+			@Value("${tourguide.internal-users.seed:8}") long seed,
+			@Value("${tourguide.internal-users.history-depth:3}") int historyDepth,
+			@Value("${tourguide.internal-users.base-time-millis:1577836800000}") long baseTimeMillis) {
+		return new TestUserRepository(userStore, seed, historyDepth, baseTimeMillis);
+	}
+
+	// Locations and rewards are only kept across restarts when the journal is enabled
+	@Bean(destroyMethod = "close")
+	public Journal getJournal(@Value("${tourguide.journal.enabled:false}") boolean enabled,
+			@Value("${tourguide.journal.directory:journal}") String directory,
+			@Value("${tourguide.journal.segment-bytes:67108864}") long segmentBytes,
+			@Value("${tourguide.journal.group-commit-delay-millis:2}") long groupCommitDelayMillis,
+			@Value("${tourguide.journal.fsync:true}") boolean fsync,
+			@Value("${tourguide.journal.compact-after-segments:8}") int compactAfterSegments,
+			@Value("${tourguide.journal.queue-capacity:100000}") int queueCapacity) throws IOException {
+		if (!enabled) {
+			return new NoOpJournal();
+		}
+		return new SegmentedJournal(Paths.get(directory), segmentBytes, groupCommitDelayMillis, fsync, compactAfterSegments,
+				queueCapacity);
+	}
+
+	@Bean
+	@ConfigurationProperties("tourguide.location-service")
+	public DownstreamServiceProperties getLocationServiceProperties() {
+		return new DownstreamServiceProperties("http://localhost:8082");
+	}
+
+	@Bean
+	@ConfigurationProperties("tourguide.rewards-service")
+	public DownstreamServiceProperties getRewardsServiceProperties() {
+		return new DownstreamServiceProperties("http://localhost:8083");
+	}
+
+	@Bean
+	@ConfigurationProperties("tourguide.pricer-service")
+	public DownstreamServiceProperties getPricerServiceProperties() {
+		return new DownstreamServiceProperties("http://localhost:8084");
+	}
+
+	// Each downstream service has its own connection pools and bulkhead, so that a slow one cannot stall the others
+	@Bean(name = "locationDownstream", destroyMethod = "close")
+	public DownstreamService getLocationService() {
+		return new DownstreamService("location", getLocationServiceProperties());
+	}
+
+	@Bean(name = "rewardsDownstream", destroyMethod = "close")
+	public DownstreamService getRewardsService() {
+		return new DownstreamService("rewards", getRewardsServiceProperties());
+	}
+
+	@Bean(name = "pricerDownstream", destroyMethod = "close")
+	public DownstreamService getPricerService() {
+		return new DownstreamService("pricer", getPricerServiceProperties());
+	}
+
+	@Bean
+	public LocationClient getLocationClient(@Qualifier("locationDownstream") DownstreamService locationService) {
+		return new LocationClient(locationService);
+	}
+
+	@Bean(destroyMethod = "shutdown")
+	public LocationBatcher getLocationBatcher(LocationClient locationClient,
+			@Value("${tourguide.location-batch.size:500}") int batchSize,
+			@Value("${tourguide.location-batch.max-wait-millis:50}") long maxWaitMillis,
+			@Value("${tourguide.location-batch.completion-threads:4}") int completionThreads) {
+		return new LocationBatcher(locationClient, batchSize, maxWaitMillis,
+				LocationBatcher.newCompletionExecutor(completionThreads));
+	}
+
+	// The rewards service fails fast while it is unhealthy, and its slowest non-blocking calls can be hedged
+	@Bean
+	public RewardsClient getRewardsClient(@Qualifier("rewardsDownstream") DownstreamService rewardsService,
+			@Value("${tourguide.rewards-circuit-breaker.window-size:20}") int windowSize,
+			@Value("${tourguide.rewards-circuit-breaker.minimum-calls:10}") int minimumCalls,
+			@Value("${tourguide.rewards-circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+			@Value("${tourguide.rewards-circuit-breaker.open-millis:30000}") long openMillis,
+			@Value("${tourguide.rewards-hedging.enabled:false}") boolean hedgingEnabled,
+			@Value("${tourguide.rewards-hedging.min-delay-millis:20}") long hedgingMinDelayMillis) {
+		CircuitBreaker circuitBreaker = new CircuitBreaker("rewards", windowSize, minimumCalls, failureRateThreshold, openMillis);
+		return new RewardsClient(rewardsService, circuitBreaker, hedgingEnabled ? new HedgedRequests(hedgingMinDelayMillis) : null);
+	}
+
+	@Bean
+	public TripPricerClient getTripPricerClient(@Qualifier("pricerDownstream") DownstreamService pricerService) {
+		return new TripPricerClient(pricerService);
+	}
+
+	@Bean(destroyMethod = "shutdown")
+	public AttractionCatalog getAttractionCatalog(LocationClient locationClient,
+			@Value("${tourguide.attractions.refresh-interval-seconds:600}") long refreshIntervalSeconds) {
+		return new AttractionCatalog(locationClient, refreshIntervalSeconds);
+	}
+
+	@Bean
+	public RewardPointsCache getRewardPointsCache(
+			@Value("${tourguide.reward-points.cache.maximum-size:1000000}") long maximumSize,
+			@Value("${tourguide.reward-points.cache.ttl-seconds:1800}") long timeToLiveSeconds) {
+		return new RewardPointsCache(maximumSize, timeToLiveSeconds);
+	}
+
+	// Stale trip deals are refreshed with blocking pricer calls, on their own threads rather than the common pool
+	@Bean
+	public TripDealsCache getTripDealsCache(
+			@Value("${tourguide.trip-deals.cache.maximum-size:100000}") long maximumSize,
+			@Value("${tourguide.trip-deals.cache.ttl-seconds:300}") long timeToLiveSeconds,
+			@Value("${tourguide.trip-deals.cache.max-stale-seconds:300}") long maxStaleSeconds,
+			@Value("${tourguide.trip-deals.cache.refresh-threads:4}") int refreshThreads) {
+		return new TripDealsCache(maximumSize, timeToLiveSeconds, maxStaleSeconds,
+				TripDealsCache.newRefreshExecutor(refreshThreads));
 	}
 
 	@Bean
-//	@LoadBalanced
-	RestTemplate getRestTemplate(RestTemplateBuilder restTemplateBuilder) {
-		return restTemplateBuilder.build();
+	public TrackerProperties getTrackerProperties(
+			@Value("${tourguide.tracker.polling-interval-seconds:300}") long pollingIntervalSeconds,
+			@Value("${tourguide.tracker.workers:32}") int workers,
+			@Value("${tourguide.tracker.queue-capacity:1000}") int queueCapacity,
+			@Value("${tourguide.tracker.batch-size:0}") int batchSize,
+			@Value("${tourguide.tracker.wheel-slots:300}") int wheelSlots,
+			@Value("${tourguide.tracker.virtual-threads:false}") boolean virtualThreads,
+			@Value("${tourguide.tracker.max-concurrency:1000}") int maxConcurrency) {
+		TrackerProperties trackerProperties = new TrackerProperties();
+		trackerProperties.setPollingIntervalSeconds(pollingIntervalSeconds);
+		trackerProperties.setWorkers(workers);
+		trackerProperties.setQueueCapacity(queueCapacity);
+		trackerProperties.setBatchSize(batchSize);
+		trackerProperties.setWheelSlots(wheelSlots);
+		trackerProperties.setVirtualThreads(virtualThreads);
+		trackerProperties.setMaxConcurrency(maxConcurrency);
+		return trackerProperties;
 	}
 }
@@ -3,24 +3,40 @@ package tourGuide.controller;
 import com.jsoniter.output.JsonStream;
 import io.swagger.annotations.Api;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import tourGuide.client.BulkheadFullException;
+import tourGuide.client.CircuitBreakerOpenException;
+import tourGuide.concurrent.Futures;
 import tourGuide.domain.location.VisitedLocation;
-import tourGuide.domain.rewards.Provider;
 import tourGuide.domain.user.User;
 import tourGuide.domain.user.UserPreferences;
 import tourGuide.service.TourGuideService;
 
 import javax.servlet.http.HttpServletResponse;
-import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 @RestController
 @Api(description="Main application methods for TourGuide")
 public class TourGuideController {
 
+    private static final String ndjsonMediaType = "application/x-ndjson";
+    // Bytes buffered before a streamed response is written out
+    private static final int streamBufferSize = 8192;
+
     @Autowired
     private TourGuideService tourGuideService;
 
+    @Value("${tourguide.async-request-timeout-millis:10000}")
+    private long asyncRequestTimeoutMillis;
+
     /**
      * Loads the home screen
      * @return Welcome message
@@ -31,23 +47,60 @@ public class TourGuideController {
     }
 
     /**
-     * Gets a user's last-visited location
+     * Gets a user's last-visited location, tracking it first if the user has none; the servlet thread is released
+     * while the location service answers
      * @param userName
      * @return location
      */
     @RequestMapping("/location")
-    public String getLocation(@RequestParam String userName) throws ExecutionException, InterruptedException {
-        VisitedLocation visitedLocation = tourGuideService.getUserLocation(getUser(userName));
-        return JsonStream.serialize(visitedLocation.location);
+    public DeferredResult<ResponseEntity<String>> getLocation(@RequestParam String userName) {
+        return deferredResult(tourGuideService.getUserLocationAsync(getUser(userName)),
+                visitedLocation -> JsonStream.serialize(visitedLocation.location));
     }
 
     /**
-     * Gets all users' last-visited locations
-     * @return a list of locations
+     * Gets all users' last-visited locations, keyed by user id. The JSON object is written to the response while the
+     * users are gone through, so it is never held in memory whole
+     * @param response
      */
-    @RequestMapping("/all-current-locations")
-    public String getAllCurrentLocations() {
-        return JsonStream.serialize(tourGuideService.getAllUsersLocations());
+    @RequestMapping(value = "/all-current-locations", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public void getAllCurrentLocations(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        JsonStream stream = new JsonStream(response.getOutputStream(), streamBufferSize);
+        stream.writeObjectStart();
+        boolean[] first = {true};
+        tourGuideService.visitAllUsersLocations((userId, located, latitude, longitude) -> {
+            if (!first[0]) {
+                stream.writeMore();
+            }
+            first[0] = false;
+            stream.writeObjectField(userId.toString());
+            writeLocation(stream, located, latitude, longitude);
+        });
+        stream.writeObjectEnd();
+        stream.flush();
+    }
+
+    /**
+     * Gets all users' last-visited locations as newline-delimited JSON, one {"userId":...,"location":...} object per
+     * line, written as the users are gone through
+     * @param response
+     */
+    @RequestMapping(value = "/all-current-locations", produces = ndjsonMediaType)
+    public void getAllCurrentLocationsNdjson(HttpServletResponse response) throws IOException {
+        response.setContentType(ndjsonMediaType);
+        JsonStream stream = new JsonStream(response.getOutputStream(), streamBufferSize);
+        tourGuideService.visitAllUsersLocations((userId, located, latitude, longitude) -> {
+            stream.writeObjectStart();
+            stream.writeObjectField("userId");
+            stream.writeVal(userId.toString());
+            stream.writeMore();
+            stream.writeObjectField("location");
+            writeLocation(stream, located, latitude, longitude);
+            stream.writeObjectEnd();
+            stream.write('\n');
+        });
+        stream.flush();
     }
 
     /**
@@ -66,9 +119,8 @@ public class TourGuideController {
      * @return list of trip deals
      */
     @RequestMapping("/trip-deals")
-    public String getTripDeals(@RequestParam String userName) {
-        List<Provider> providers = tourGuideService.getTripDeals(getUser(userName));
-        return JsonStream.serialize(providers);
+    public DeferredResult<ResponseEntity<String>> getTripDeals(@RequestParam String userName) {
+        return deferredResult(tourGuideService.getTripDealsAsync(getUser(userName)), JsonStream::serialize);
     }
 
     /**
@@ -77,9 +129,11 @@ public class TourGuideController {
      * @return list of nearest attractions
      */
     @RequestMapping("/nearby-attractions")
-    public String getNearbyAttractions(@RequestParam String userName) throws ExecutionException, InterruptedException {
-        VisitedLocation visitedLocation = tourGuideService.getUserLocation(getUser(userName));
-        return JsonStream.serialize(tourGuideService.getClosestAttractions(visitedLocation, getUser(userName)));
+    public DeferredResult<ResponseEntity<String>> getNearbyAttractions(@RequestParam String userName) {
+        User user = getUser(userName);
+        CompletableFuture<VisitedLocation> visitedLocation = tourGuideService.getUserLocationAsync(user);
+        return deferredResult(Futures.cancelUpstream(visitedLocation.thenCompose(location ->
+                tourGuideService.getClosestAttractionsAsync(location, user)), visitedLocation), JsonStream::serialize);
     }
 
     /**
@@ -105,6 +159,54 @@ public class TourGuideController {
         response.setStatus(201);
     }
 
+    // Same fields, in the same order, as Location serialized on its own
+    private static void writeLocation(JsonStream stream, boolean located, double latitude, double longitude)
+            throws IOException {
+        if (!located) {
+            stream.writeNull();
+            return;
+        }
+        stream.writeObjectStart();
+        stream.writeObjectField("longitude");
+        stream.writeVal(longitude);
+        stream.writeMore();
+        stream.writeObjectField("latitude");
+        stream.writeVal(latitude);
+        stream.writeObjectEnd();
+    }
+
+    /*
+     * Completes the request from another thread once the body is ready. A request that outlives its timeout gets a
+     * 504, and one refused by a bulkhead or an open circuit breaker a 503, instead of holding a connection.
+     * On timeout the response future is cancelled. A location or trip deals request still unanswered is cancelled with
+     * it, unless another request shares it, which releases its bulkhead permit and connection. Reward points lookups
+     * are left to complete, since their results are cached for later requests.
+     */
+    private <T> DeferredResult<ResponseEntity<String>> deferredResult(CompletableFuture<T> response,
+                                                                      Function<? super T, String> serializer) {
+        DeferredResult<ResponseEntity<String>> deferredResult = new DeferredResult<>(asyncRequestTimeoutMillis);
+        // The 504 is set first, so that the cancellation is not taken for the response
+        deferredResult.onTimeout(() -> {
+            deferredResult.setResult(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body("Timed out waiting for a downstream service"));
+            response.cancel(true);
+        });
+        response.thenApply(serializer).whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                deferredResult.setResult(ResponseEntity.ok(result));
+                return;
+            }
+            Throwable cause = (throwable instanceof CompletionException && throwable.getCause() != null) ?
+                    throwable.getCause() : throwable;
+            if (cause instanceof BulkheadFullException || cause instanceof CircuitBreakerOpenException) {
+                deferredResult.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(cause.getMessage()));
+            } else {
+                deferredResult.setErrorResult(cause);
+            }
+        });
+        return deferredResult;
+    }
+
     private User getUser(String userName) {
         return tourGuideService.getUser(userName);
     }
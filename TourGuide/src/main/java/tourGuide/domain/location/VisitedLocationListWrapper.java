@@ -0,0 +1,16 @@
+package tourGuide.domain.location;
+
+import java.util.List;
+
+public class VisitedLocationListWrapper {
+
+    private List<VisitedLocation> visitedLocationList;
+
+    public List<VisitedLocation> getVisitedLocationList() {
+        return visitedLocationList;
+    }
+
+    public void setVisitedLocationList(List<VisitedLocation> visitedLocationList) {
+        this.visitedLocationList = visitedLocationList;
+    }
+}
@@ -1,5 +1,8 @@
 package tourGuide.domain.rewards;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.UUID;
 
 public class Provider {
@@ -8,7 +11,9 @@ public class Provider {
     public final double price;
     public final UUID tripId;
 
-    public Provider(UUID tripId, String name, double price) {
+    @JsonCreator
+    public Provider(@JsonProperty("tripId") UUID tripId, @JsonProperty("name") String name,
+                    @JsonProperty("price") double price) {
         this.name = name;
         this.tripId = tripId;
         this.price = price;
@@ -0,0 +1,212 @@
+package tourGuide.domain.user;
+
+import tourGuide.domain.location.Location;
+import tourGuide.domain.location.VisitedLocation;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Append-only history of visited locations, stored column by column in primitive arrays.
+ * Each entry costs two doubles and a long instead of a VisitedLocation, a Location, a Date and a UUID reference.
+ * The arrays grow by chunk, so appending never copies more than the first chunk.
+ *
+ * Readers take no lock: entries are written before the size that covers them is published through a volatile
+ * field, and are never written again, so a view is just the current columns and their published size.
+ * Appends are meant to come from one writer at a time, the tracker of the user; they are still serialized, so
+ * that a rare concurrent append, e.g. from a request, cannot lose an entry.
+ */
+public class LocationHistory {
+
+	// stored in place of a missing visit time
+	public static final long NO_TIME = Long.MIN_VALUE;
+	static final int CHUNK_SIZE = 64;
+	private static final int INITIAL_CAPACITY = 4;
+
+	private volatile Columns columns = new Columns(new double[1][], new double[1][], new long[1][], 0);
+
+	/**
+	 * @param latitude
+	 * @param longitude
+	 * @param timeMillis
+	 * @return index of the new entry
+	 */
+	public synchronized int add(double latitude, double longitude, long timeMillis) {
+		Columns current = columns;
+		int size = current.size;
+		int chunk = size / CHUNK_SIZE;
+		int offset = size % CHUNK_SIZE;
+		current = reserve(current, chunk, offset + 1);
+		current.latitudes[chunk][offset] = latitude;
+		current.longitudes[chunk][offset] = longitude;
+		current.timesMillis[chunk][offset] = timeMillis;
+		current.size = size + 1;
+		return size;
+	}
+
+	public int add(VisitedLocation visitedLocation) {
+		return add(visitedLocation.location.latitude, visitedLocation.location.longitude,
+				visitedLocation.timeVisited != null ? visitedLocation.timeVisited.getTime() : NO_TIME);
+	}
+
+	/**
+	 * Appends whole columns of entries, copying them chunk by chunk
+	 * @param latitudeColumn
+	 * @param longitudeColumn
+	 * @param timeMillisColumn
+	 */
+	public synchronized void addAll(double[] latitudeColumn, double[] longitudeColumn, long[] timeMillisColumn) {
+		Columns current = columns;
+		int size = current.size;
+		int copied = 0;
+		while (copied < latitudeColumn.length) {
+			int chunk = size / CHUNK_SIZE;
+			int offset = size % CHUNK_SIZE;
+			int count = Math.min(CHUNK_SIZE - offset, latitudeColumn.length - copied);
+			current = reserve(current, chunk, offset + count);
+			System.arraycopy(latitudeColumn, copied, current.latitudes[chunk], offset, count);
+			System.arraycopy(longitudeColumn, copied, current.longitudes[chunk], offset, count);
+			System.arraycopy(timeMillisColumn, copied, current.timesMillis[chunk], offset, count);
+			size += count;
+			copied += count;
+		}
+		current.size = size;
+	}
+
+	/*
+	 * Makes room for a number of entries in a chunk; most users only have a few locations, so only the first chunk
+	 * starts small. A chunk that readers may already see is never replaced in place: growing it, or the chunk
+	 * directory, publishes new columns, while the old ones stay valid for the views taken on them.
+	 */
+	private Columns reserve(Columns current, int chunk, int entries) {
+		double[][] latitudes = current.latitudes;
+		if (chunk < latitudes.length && latitudes[chunk] != null && entries <= latitudes[chunk].length) {
+			return current;
+		}
+		if (chunk < latitudes.length && latitudes[chunk] == null && chunk > 0) {
+			// not visible to any reader until the size covers it
+			current.latitudes[chunk] = new double[CHUNK_SIZE];
+			current.longitudes[chunk] = new double[CHUNK_SIZE];
+			current.timesMillis[chunk] = new long[CHUNK_SIZE];
+			return current;
+		}
+		int directoryLength = Math.max(latitudes.length, chunk == latitudes.length ? chunk * 2 : 0);
+		Columns grown = new Columns(Arrays.copyOf(current.latitudes, directoryLength),
+				Arrays.copyOf(current.longitudes, directoryLength), Arrays.copyOf(current.timesMillis, directoryLength),
+				current.size);
+		if (grown.latitudes[chunk] == null) {
+			int capacity = chunk == 0 ? Math.max(INITIAL_CAPACITY, entries) : CHUNK_SIZE;
+			grown.latitudes[chunk] = new double[capacity];
+			grown.longitudes[chunk] = new double[capacity];
+			grown.timesMillis[chunk] = new long[capacity];
+		} else if (entries > grown.latitudes[chunk].length) {
+			int capacity = Math.min(CHUNK_SIZE, Math.max(entries, grown.latitudes[chunk].length * 2));
+			grown.latitudes[chunk] = Arrays.copyOf(grown.latitudes[chunk], capacity);
+			grown.longitudes[chunk] = Arrays.copyOf(grown.longitudes[chunk], capacity);
+			grown.timesMillis[chunk] = Arrays.copyOf(grown.timesMillis[chunk], capacity);
+		}
+		columns = grown;
+		return grown;
+	}
+
+	public int size() {
+		return columns.size;
+	}
+
+	public synchronized void clear() {
+		columns = new Columns(new double[1][], new double[1][], new long[1][], 0);
+	}
+
+	/**
+	 * Gets a read-only view of the locations visited so far, which later appends do not change
+	 * @return view that can be read without holding any lock
+	 */
+	public View view() {
+		Columns current = columns;
+		return new View(current, current.size);
+	}
+
+	/**
+	 * Gets the last location visited, reading only that entry
+	 * @param userId
+	 * @return new VisitedLocation, or null if no location was visited yet
+	 */
+	public VisitedLocation last(UUID userId) {
+		Columns current = columns;
+		int size = current.size;
+		return size > 0 ? new View(current, size).getVisitedLocation(userId, size - 1) : null;
+	}
+
+	// Chunks of the columns, and how many of their entries are published
+	private static final class Columns {
+
+		private final double[][] latitudes;
+		private final double[][] longitudes;
+		private final long[][] timesMillis;
+		private volatile int size;
+
+		private Columns(double[][] latitudes, double[][] longitudes, long[][] timesMillis, int size) {
+			this.latitudes = latitudes;
+			this.longitudes = longitudes;
+			this.timesMillis = timesMillis;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * Locations of a history up to a given size.
+	 * Entries below the size are never written again, so the view stays consistent while the history keeps growing,
+	 * without copying anything.
+	 */
+	public static final class View {
+
+		private final double[][] latitudes;
+		private final double[][] longitudes;
+		private final long[][] timesMillis;
+		private final int size;
+
+		private View(Columns columns, int size) {
+			this.latitudes = columns.latitudes;
+			this.longitudes = columns.longitudes;
+			this.timesMillis = columns.timesMillis;
+			this.size = size;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		public double getLatitude(int index) {
+			return latitudes[index / CHUNK_SIZE][index % CHUNK_SIZE];
+		}
+
+		public double getLongitude(int index) {
+			return longitudes[index / CHUNK_SIZE][index % CHUNK_SIZE];
+		}
+
+		/**
+		 * @param index
+		 * @return visit time in epoch milliseconds, or NO_TIME when the visit had no time
+		 */
+		public long getTimeMillis(int index) {
+			return timesMillis[index / CHUNK_SIZE][index % CHUNK_SIZE];
+		}
+
+		/**
+		 * Creates the VisitedLocation of an entry, for the callers that return it
+		 * @param userId
+		 * @param index
+		 * @return new VisitedLocation
+		 */
+		public VisitedLocation getVisitedLocation(UUID userId, int index) {
+			long timeMillis = getTimeMillis(index);
+			return new VisitedLocation(userId, new Location(getLatitude(index), getLongitude(index)),
+					timeMillis != NO_TIME ? new Date(timeMillis) : null);
+		}
+	}
+}
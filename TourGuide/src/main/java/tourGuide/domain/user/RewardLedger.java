@@ -0,0 +1,95 @@
+package tourGuide.domain.user;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rewards of a user, indexed by a compact attraction id so that checking whether an attraction was already rewarded
+ * costs a bit test instead of a pass over the rewards comparing names.
+ * It also keeps the sum of the rewards' points, so that it never has to be added up again.
+ * Reads take no lock; inserts and point updates are serialized, and only ever come from the user's tracker, a
+ * request or a replay.
+ */
+final class RewardLedger {
+
+	// Attraction names are few and long-lived, so each gets a small id for the lifetime of the application
+	private static final ConcurrentHashMap<String, Integer> attractionIds = new ConcurrentHashMap<>();
+	private static final AtomicInteger nextAttractionId = new AtomicInteger();
+
+	// Copied on write, so that rewards can be read, e.g. by a snapshot, while the tracker adds some
+	private final List<UserReward> userRewards = new CopyOnWriteArrayList<>();
+	// Rewards are only added through the ledger, which keeps the bits and the total in step with them
+	private final List<UserReward> readOnlyUserRewards = Collections.unmodifiableList(userRewards);
+	private volatile long[] rewardedAttractions = new long[1];
+	private volatile int cumulativeRewardPoints;
+
+	static int attractionId(String attractionName) {
+		Integer attractionId = attractionIds.get(attractionName);
+		if (attractionId == null) {
+			attractionId = attractionIds.computeIfAbsent(attractionName, name -> nextAttractionId.getAndIncrement());
+		}
+		return attractionId;
+	}
+
+	// Looks the id up without assigning one, so that names that were never rewarded are not kept
+	boolean contains(String attractionName) {
+		Integer attractionId = attractionIds.get(attractionName);
+		if (attractionId == null) {
+			return false;
+		}
+		long[] rewarded = rewardedAttractions;
+		int word = attractionId >>> 6;
+		return word < rewarded.length && (rewarded[word] & (1L << attractionId)) != 0;
+	}
+
+	/**
+	 * @param userReward
+	 * @return false if the user was already rewarded for the attraction
+	 */
+	synchronized boolean add(UserReward userReward) {
+		int attractionId = attractionId(userReward.attraction.attractionName);
+		int word = attractionId >>> 6;
+		long[] rewarded = rewardedAttractions;
+		if (word < rewarded.length && (rewarded[word] & (1L << attractionId)) != 0) {
+			return false;
+		}
+		rewarded = Arrays.copyOf(rewarded, Math.max(rewarded.length, word + 1));
+		rewarded[word] |= 1L << attractionId;
+		userRewards.add(userReward);
+		cumulativeRewardPoints += userReward.getRewardPoints();
+		rewardedAttractions = rewarded;
+		return true;
+	}
+
+	UserReward get(String attractionName) {
+		if (!contains(attractionName)) {
+			return null;
+		}
+		for (UserReward userReward : userRewards) {
+			if (userReward.attraction.attractionName.equals(attractionName)) {
+				return userReward;
+			}
+		}
+		return null;
+	}
+
+	// Keeps the total in step when the points of a reward are filled in after it was added
+	synchronized void setRewardPoints(UserReward userReward, int rewardPoints) {
+		if (get(userReward.attraction.attractionName) == userReward) {
+			cumulativeRewardPoints += rewardPoints - userReward.getRewardPoints();
+		}
+		userReward.setRewardPoints(rewardPoints);
+	}
+
+	List<UserReward> getUserRewards() {
+		return readOnlyUserRewards;
+	}
+
+	int getCumulativeRewardPoints() {
+		return cumulativeRewardPoints;
+	}
+}
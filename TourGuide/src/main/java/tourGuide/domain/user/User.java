@@ -15,8 +15,10 @@ public class User {
 	private String phoneNumber;
 	private String emailAddress;
 	private Date latestLocationTimestamp;
-	private List<VisitedLocation> visitedLocations = new ArrayList<>();
-	private List<UserReward> userRewards = new ArrayList<>();
+	private final LocationHistory locationHistory = new LocationHistory();
+	// Set once the location is in the history, so that reading it needs neither a lock nor a look at the history
+	private volatile VisitedLocation lastVisitedLocation;
+	private final RewardLedger rewardLedger = new RewardLedger();
 	private UserPreferences userPreferences = new UserPreferences();
 	private List<Provider> tripDeals = new ArrayList<>();
 
@@ -59,27 +61,101 @@ public class User {
 		return latestLocationTimestamp;
 	}
 
-	public void addToVisitedLocations(VisitedLocation visitedLocation) {
-		visitedLocations.add(visitedLocation);
+	/**
+	 * @param visitedLocation
+	 * @return index of the location in the user's history
+	 */
+	public int addToVisitedLocations(VisitedLocation visitedLocation) {
+		// under the history's lock, so that the last location cannot be overwritten by an older concurrent append
+		synchronized (locationHistory) {
+			int index = locationHistory.add(visitedLocation);
+			lastVisitedLocation = visitedLocation;
+			return index;
+		}
+	}
+
+	public int addToVisitedLocations(double latitude, double longitude, long timeMillis) {
+		synchronized (locationHistory) {
+			int index = locationHistory.add(latitude, longitude, timeMillis);
+			lastVisitedLocation = null;
+			return index;
+		}
 	}
 
-	// Returning shallow defensive copy to resolve concurrent modification exception
+	public void addToVisitedLocations(double[] latitudes, double[] longitudes, long[] timesMillis) {
+		synchronized (locationHistory) {
+			locationHistory.addAll(latitudes, longitudes, timesMillis);
+			lastVisitedLocation = null;
+		}
+	}
+
+	// Creates the VisitedLocation objects of the history, for the callers that return them
 	public List<VisitedLocation> getVisitedLocations() {
-		return new ArrayList<>(visitedLocations);
+		LocationHistory.View locations = locationHistory.view();
+		List<VisitedLocation> visitedLocations = new ArrayList<>(locations.size());
+		for (int i = 0; i < locations.size(); i++) {
+			visitedLocations.add(locations.getVisitedLocation(userId, i));
+		}
+		return visitedLocations;
 	}
 
-	public void clearVisitedLocations() {
-		visitedLocations.clear();
+	public int getVisitedLocationCount() {
+		return locationHistory.size();
+	}
+
+	/**
+	 * Gets the visited locations as primitive columns, to go through them without creating VisitedLocation objects
+	 * @return view of the locations visited so far
+	 */
+	public LocationHistory.View getLocationHistory() {
+		return locationHistory.view();
 	}
 
-	public void addUserReward(UserReward userReward) {
-		if(userRewards.stream().filter(r -> r.attraction.attractionName.equals(userReward.attraction.attractionName)).count() == 0) {
-			userRewards.add(userReward);
+	public void clearVisitedLocations() {
+		synchronized (locationHistory) {
+			locationHistory.clear();
+			lastVisitedLocation = null;
 		}
 	}
 
+	/**
+	 * @param userReward
+	 * @return false if the user was already rewarded for the attraction, in which case the reward is not added
+	 */
+	public boolean addUserReward(UserReward userReward) {
+		return rewardLedger.add(userReward);
+	}
+
+	/**
+	 * @return read-only view of the user's rewards, to which addUserReward adds
+	 */
 	public List<UserReward> getUserRewards() {
-		return userRewards;
+		return rewardLedger.getUserRewards();
+	}
+
+	public boolean hasUserReward(String attractionName) {
+		return rewardLedger.contains(attractionName);
+	}
+
+	/**
+	 * @param attractionName
+	 * @return reward of the attraction, or null if the user was not rewarded for it
+	 */
+	public UserReward getUserReward(String attractionName) {
+		return rewardLedger.get(attractionName);
+	}
+
+	/**
+	 * Sets the points of one of the user's rewards, keeping the cumulative reward points in step
+	 * @param userReward
+	 * @param rewardPoints
+	 */
+	public void setRewardPoints(UserReward userReward, int rewardPoints) {
+		rewardLedger.setRewardPoints(userReward, rewardPoints);
+	}
+
+	public int getCumulativeRewardPoints() {
+		return rewardLedger.getCumulativeRewardPoints();
 	}
 
 	public UserPreferences getUserPreferences() {
@@ -90,8 +166,14 @@ public class User {
 		this.userPreferences = userPreferences;
 	}
 
+	/**
+	 * Gets the last location visited; locations appended as primitives, e.g. generated or restored ones, are read
+	 * back from the history
+	 * @return last visited location, or null if the user has not visited any location yet
+	 */
 	public VisitedLocation getLastVisitedLocation() {
-		return visitedLocations.get(visitedLocations.size() - 1);
+		VisitedLocation visitedLocation = lastVisitedLocation;
+		return visitedLocation != null ? visitedLocation : locationHistory.last(userId);
 	}
 
 	public void setTripDeals(List<Provider> tripDeals) {
@@ -7,10 +7,14 @@ import javax.money.Monetary;
 
 public class UserPreferences {
 
+	// Money is immutable, so every user starts with the same default price points instead of creating their own
+	private static final CurrencyUnit defaultCurrency = Monetary.getCurrency("USD");
+	private static final Money defaultLowerPricePoint = Money.of(0, defaultCurrency);
+	private static final Money defaultHighPricePoint = Money.of(Integer.MAX_VALUE, defaultCurrency);
+
 	private int attractionProximity = Integer.MAX_VALUE;
-	private CurrencyUnit currency = Monetary.getCurrency("USD");
-	private Money lowerPricePoint = Money.of(0, currency);
-	private Money highPricePoint = Money.of(Integer.MAX_VALUE, currency);
+	private Money lowerPricePoint = defaultLowerPricePoint;
+	private Money highPricePoint = defaultHighPricePoint;
 	private int tripDuration = 1;
 	private int ticketQuantity = 1;
 	private int numberOfAdults = 1;
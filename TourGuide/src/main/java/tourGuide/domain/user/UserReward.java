@@ -20,6 +20,7 @@ public class UserReward {
 		this.attraction = attraction;
 	}
 
+	// Once the reward is added to a user, its points are set through User.setRewardPoints to keep the user's total right
 	public void setRewardPoints(int rewardPoints) {
 		this.rewardPoints = rewardPoints;
 	}
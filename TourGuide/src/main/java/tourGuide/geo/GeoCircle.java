@@ -0,0 +1,120 @@
+package tourGuide.geo;
+
+import tourGuide.domain.location.Location;
+
+/**
+ * Points within a distance of a center.
+ * The latitude band and the longitude half-width of the circle are worked out once, so that most points outside it
+ * are rejected with a few comparisons, before any distance is computed.
+ */
+public final class GeoCircle {
+
+	// Slack on the bounding box so that rounding never rejects a point the distance would accept
+	private static final double boxSlackDegrees = 1e-9;
+
+	private final GeoPoint center;
+	private final double miles;
+	private final GeoMath.DistanceMode distanceMode;
+	private final double minLatitude;
+	private final double maxLatitude;
+	// NaN when the circle spans every meridian, i.e. it contains a pole or is too wide for a longitude bound
+	private final double longitudeHalfWidth;
+
+	public GeoCircle(GeoPoint center, double miles) {
+		this(center, miles, GeoMath.DistanceMode.HAVERSINE);
+	}
+
+	public GeoCircle(GeoPoint center, double miles, GeoMath.DistanceMode distanceMode) {
+		this.center = center;
+		this.miles = miles;
+		this.distanceMode = distanceMode;
+		double radiusDegrees = miles / GeoMath.MILES_PER_DEGREE;
+		this.minLatitude = center.latitude - radiusDegrees;
+		this.maxLatitude = center.latitude + radiusDegrees;
+
+		// Longitude extent of a spherical cap, which is wider than the circle's own width along the center's parallel
+		double halfWidth = Double.NaN;
+		if (minLatitude > -90 && maxLatitude < 90 && radiusDegrees < 90) {
+			double sinRadius = Math.sin(Math.toRadians(radiusDegrees));
+			if (sinRadius < center.cosLatitude) {
+				halfWidth = Math.toDegrees(Math.asin(sinRadius / center.cosLatitude));
+			}
+		}
+		this.longitudeHalfWidth = halfWidth;
+	}
+
+	public GeoPoint getCenter() {
+		return center;
+	}
+
+	public double getMiles() {
+		return miles;
+	}
+
+	public GeoMath.DistanceMode getDistanceMode() {
+		return distanceMode;
+	}
+
+	public double getMinLatitude() {
+		return minLatitude;
+	}
+
+	public double getMaxLatitude() {
+		return maxLatitude;
+	}
+
+	/**
+	 * @return half-width in degrees of the longitudes the circle can reach, or NaN if it reaches every longitude
+	 */
+	public double getLongitudeHalfWidth() {
+		return longitudeHalfWidth;
+	}
+
+	/**
+	 * @param point
+	 * @return false if the point is outside the circle's bounding box, in which case it is not in the circle
+	 */
+	public boolean mayContain(GeoPoint point) {
+		return mayContain(point.latitude, point.longitude);
+	}
+
+	private boolean mayContain(double latitude, double longitude) {
+		if (latitude < minLatitude - boxSlackDegrees || latitude > maxLatitude + boxSlackDegrees) {
+			return false;
+		}
+		if (Double.isNaN(longitudeHalfWidth)) {
+			return true;
+		}
+		double longitudeDelta = Math.abs(longitude - center.longitude);
+		if (longitudeDelta > 180) {
+			longitudeDelta = 360 - longitudeDelta;
+		}
+		return longitudeDelta <= longitudeHalfWidth + boxSlackDegrees;
+	}
+
+	/**
+	 * @param point
+	 * @return distance in statute miles from the center to the point if it is in the circle, or a negative value
+	 */
+	public double distanceIfWithin(GeoPoint point) {
+		if (!mayContain(point)) {
+			return -1;
+		}
+		double distance = GeoMath.distanceMiles(center, point, distanceMode);
+		return distance <= miles ? distance : -1;
+	}
+
+	public boolean contains(GeoPoint point) {
+		return distanceIfWithin(point) >= 0;
+	}
+
+	/**
+	 * Same as contains of the location's point, whose trigonometry is only worked out once it is inside the bounding box
+	 * @param location
+	 * @return true if the location is in the circle
+	 */
+	public boolean contains(Location location) {
+		return mayContain(location.latitude, location.longitude)
+				&& GeoMath.distanceMiles(center, GeoPoint.of(location), distanceMode) <= miles;
+	}
+}
@@ -0,0 +1,245 @@
+package tourGuide.geo;
+
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.Location;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Immutable latitude/longitude grid over a list of attractions.
+ * Radius and nearest-neighbour queries only visit the cells that can contain a match, so their cost depends on the
+ * number of attractions around the location rather than on the size of the catalog.
+ */
+public class GeoIndex {
+
+	private static final double defaultCellDegrees = 1.0;
+	private static final int maxCircles = 4;
+
+	private final double cellDegrees;
+	private final int latitudeCells;
+	private final int longitudeCells;
+	private final Map<Long, List<Entry>> cells = new HashMap<>();
+	private final List<Attraction> attractions;
+	// the attractions' points, whose trigonometry is worked out once for every query
+	private final List<Entry> entries;
+	private final Map<UUID, Entry> entriesById = new HashMap<>();
+
+	public GeoIndex(List<Attraction> attractions) {
+		this(attractions, defaultCellDegrees);
+	}
+
+	public GeoIndex(List<Attraction> attractions, double cellDegrees) {
+		this.cellDegrees = cellDegrees;
+		this.latitudeCells = (int) Math.ceil(180 / cellDegrees);
+		this.longitudeCells = (int) Math.ceil(360 / cellDegrees);
+		this.attractions = Collections.unmodifiableList(new ArrayList<>(attractions));
+		this.entries = new ArrayList<>(attractions.size());
+
+		for (Attraction attraction : this.attractions) {
+			Entry entry = new Entry(attraction);
+			entries.add(entry);
+			entriesById.put(attraction.attractionId, entry);
+			cells.computeIfAbsent(cellKey(latitudeIndex(attraction.latitude), longitudeIndex(attraction.longitude)),
+					key -> new ArrayList<>(4)).add(entry);
+		}
+	}
+
+	public int size() {
+		return attractions.size();
+	}
+
+	/**
+	 * Gets the attractions within a distance of a location
+	 * @param location
+	 * @param miles
+	 * @return attractions whose great-circle distance to the location is at most the given miles, in no particular order
+	 */
+	public List<Attraction> withinMiles(Location location, double miles) {
+		return withinMiles(location, miles, attraction -> true);
+	}
+
+	/**
+	 * Gets the attractions within a distance of a location, skipping those rejected by a filter before any distance is computed
+	 * @param location
+	 * @param miles
+	 * @param filter
+	 * @return matching attractions, in no particular order
+	 */
+	public List<Attraction> withinMiles(Location location, double miles, Predicate<Attraction> filter) {
+		return withinMiles(location, miles, GeoMath.DistanceMode.HAVERSINE, filter);
+	}
+
+	/**
+	 * Gets the attractions within a distance of a location, measured with the given distance mode
+	 * @param location
+	 * @param miles
+	 * @param distanceMode
+	 * @param filter
+	 * @return matching attractions, in no particular order
+	 */
+	public List<Attraction> withinMiles(Location location, double miles, GeoMath.DistanceMode distanceMode,
+										Predicate<Attraction> filter) {
+		List<Attraction> result = new ArrayList<>();
+		forEachWithin(location, miles, distanceMode, filter, (attraction, distance) -> result.add(attraction));
+		return result;
+	}
+
+	/**
+	 * Checks whether an attraction is within a distance of a location. An attraction of the index is checked against
+	 * its own precomputed circle, so that most far locations are rejected on their coordinates, before any trigonometry
+	 * @param attraction
+	 * @param location
+	 * @param miles
+	 * @param distanceMode
+	 * @return true if the distance between the attraction and the location is at most the given miles
+	 */
+	public boolean isWithinMiles(Attraction attraction, Location location, double miles, GeoMath.DistanceMode distanceMode) {
+		Entry entry = entriesById.get(attraction.attractionId);
+		if (entry == null || entry.point.latitude != attraction.latitude || entry.point.longitude != attraction.longitude) {
+			return new GeoCircle(GeoPoint.of(attraction), miles, distanceMode).contains(location);
+		}
+		return entry.circle(miles, distanceMode).contains(location);
+	}
+
+	/**
+	 * Gets the attractions closest to a location
+	 * @param location
+	 * @param count
+	 * @return up to count attractions, closest first
+	 */
+	public List<Attraction> nearest(Location location, int count) {
+		return nearestNeighbors(location, count).toList();
+	}
+
+	/**
+	 * Gets the attractions closest to a location along with their distances
+	 * @param location
+	 * @param count
+	 * @return up to count attractions, closest first
+	 */
+	public TopK<Attraction> nearestNeighbors(Location location, int count) {
+		int capacity = Math.max(0, Math.min(count, attractions.size()));
+		TopK<Attraction> topK = new TopK<>(capacity);
+		if (capacity == 0) {
+			return topK;
+		}
+
+		// Grow the search radius until it holds enough candidates; anything outside it is necessarily further away
+		double miles = cellDegrees * GeoMath.MILES_PER_DEGREE;
+		while (true) {
+			forEachWithin(location, miles, GeoMath.DistanceMode.HAVERSINE, attraction -> true, topK::offer);
+			if (topK.isFull() || miles >= GeoMath.MAX_DISTANCE_MILES) {
+				return topK;
+			}
+			topK.clear();
+			miles *= 2;
+		}
+	}
+
+	private void forEachWithin(Location location, double miles, GeoMath.DistanceMode distanceMode,
+							   Predicate<Attraction> filter, AttractionVisitor visitor) {
+		if (miles < 0) {
+			return;
+		}
+		GeoPoint center = GeoPoint.of(location);
+		if (miles >= GeoMath.MAX_DISTANCE_MILES) {
+			for (Entry entry : entries) {
+				if (filter.test(entry.attraction)) {
+					visitor.visit(entry.attraction, GeoMath.distanceMiles(center, entry.point, distanceMode));
+				}
+			}
+			return;
+		}
+
+		GeoCircle circle = new GeoCircle(center, miles, distanceMode);
+		int minLatitudeIndex = latitudeIndex(Math.max(-90, circle.getMinLatitude()));
+		int maxLatitudeIndex = latitudeIndex(Math.min(90, circle.getMaxLatitude()));
+
+		// A circle without a longitude bound spans every meridian
+		int minLongitudeIndex = 0;
+		int maxLongitudeIndex = longitudeCells - 1;
+		double longitudeHalfWidth = circle.getLongitudeHalfWidth();
+		if (!Double.isNaN(longitudeHalfWidth)) {
+			minLongitudeIndex = (int) Math.floor((location.longitude - longitudeHalfWidth + 180) / cellDegrees);
+			maxLongitudeIndex = (int) Math.floor((location.longitude + longitudeHalfWidth + 180) / cellDegrees);
+			if (maxLongitudeIndex - minLongitudeIndex >= longitudeCells - 1) {
+				minLongitudeIndex = 0;
+				maxLongitudeIndex = longitudeCells - 1;
+			}
+		}
+
+		for (int latitudeIndex = minLatitudeIndex; latitudeIndex <= maxLatitudeIndex; latitudeIndex++) {
+			for (int longitudeIndex = minLongitudeIndex; longitudeIndex <= maxLongitudeIndex; longitudeIndex++) {
+				List<Entry> cell = cells.get(cellKey(latitudeIndex, Math.floorMod(longitudeIndex, longitudeCells)));
+				if (cell == null) {
+					continue;
+				}
+				for (int i = 0; i < cell.size(); i++) {
+					Entry entry = cell.get(i);
+					// The bounding box rejects most of a cell's far attractions before the filter or any trigonometry
+					if (!circle.mayContain(entry.point) || !filter.test(entry.attraction)) {
+						continue;
+					}
+					double distance = GeoMath.distanceMiles(center, entry.point, distanceMode);
+					if (distance <= miles) {
+						visitor.visit(entry.attraction, distance);
+					}
+				}
+			}
+		}
+	}
+
+	private int latitudeIndex(double latitude) {
+		return Math.min(latitudeCells - 1, (int) Math.floor((latitude + 90) / cellDegrees));
+	}
+
+	private int longitudeIndex(double longitude) {
+		return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), longitudeCells);
+	}
+
+	private static long cellKey(int latitudeIndex, int longitudeIndex) {
+		return ((long) latitudeIndex << 32) | (longitudeIndex & 0xffffffffL);
+	}
+
+	private static final class Entry {
+
+		private final Attraction attraction;
+		private final GeoPoint point;
+		// Circles of the radii the attraction is checked against, e.g. the proximity buffer and the attraction proximity
+		// range, the oldest being dropped beyond maxCircles
+		private volatile GeoCircle[] circles = new GeoCircle[0];
+
+		private Entry(Attraction attraction) {
+			this.attraction = attraction;
+			this.point = GeoPoint.of(attraction);
+		}
+
+		private GeoCircle circle(double miles, GeoMath.DistanceMode distanceMode) {
+			GeoCircle[] current = circles;
+			for (GeoCircle circle : current) {
+				if (circle.getMiles() == miles && circle.getDistanceMode() == distanceMode) {
+					return circle;
+				}
+			}
+			GeoCircle circle = new GeoCircle(point, miles, distanceMode);
+			// A concurrent miss may drop the other's circle, which is only computed again
+			int kept = Math.min(current.length, maxCircles - 1);
+			GeoCircle[] updated = new GeoCircle[kept + 1];
+			System.arraycopy(current, current.length - kept, updated, 0, kept);
+			updated[kept] = circle;
+			circles = updated;
+			return circle;
+		}
+	}
+
+	@FunctionalInterface
+	private interface AttractionVisitor {
+		void visit(Attraction attraction, double distance);
+	}
+}
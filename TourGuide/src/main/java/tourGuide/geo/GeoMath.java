@@ -0,0 +1,81 @@
+package tourGuide.geo;
+
+import tourGuide.domain.location.Location;
+
+public final class GeoMath {
+
+	public static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+	// one degree of arc is sixty nautical miles
+	public static final double MILES_PER_DEGREE = 60 * STATUTE_MILES_PER_NAUTICAL_MILE;
+	// no two points on the sphere are further apart than half a great circle
+	public static final double MAX_DISTANCE_MILES = 180 * MILES_PER_DEGREE;
+	// radius of the sphere on which a degree is MILES_PER_DEGREE, about 3958.76 statute miles
+	public static final double EARTH_RADIUS_MILES = Math.toDegrees(MILES_PER_DEGREE);
+
+	/**
+	 * How distances are computed.
+	 * HAVERSINE is the great-circle distance, accurate to rounding at any distance, including the short ones where
+	 * the spherical law of cosines loses most of its digits.
+	 * EQUIRECTANGULAR projects both points on a plane at their mean latitude and needs no trigonometric call once the
+	 * points are GeoPoints. For points up to 100 miles apart and between latitudes -80 and 80, it is within 0.1% of
+	 * the great-circle distance; it is meant for proximity checks, not for distances shown to users.
+	 */
+	public enum DistanceMode {
+		HAVERSINE,
+		EQUIRECTANGULAR
+	}
+
+	private GeoMath() {
+	}
+
+	/**
+	 * Great-circle distance between two locations
+	 * @param loc1
+	 * @param loc2
+	 * @return distance in statute miles
+	 */
+	public static double distanceMiles(Location loc1, Location loc2) {
+		double lat1 = Math.toRadians(loc1.latitude);
+		double lat2 = Math.toRadians(loc2.latitude);
+		return haversineMiles(lat1, lat2, Math.cos(lat1), Math.cos(lat2),
+				Math.toRadians(loc2.longitude) - Math.toRadians(loc1.longitude));
+	}
+
+	/**
+	 * Great-circle distance between two points, using their precomputed trigonometry; the result is the same as
+	 * distanceMiles of their locations
+	 * @param point1
+	 * @param point2
+	 * @return distance in statute miles
+	 */
+	public static double distanceMiles(GeoPoint point1, GeoPoint point2) {
+		return haversineMiles(point1.latitudeRadians, point2.latitudeRadians, point1.cosLatitude, point2.cosLatitude,
+				point2.longitudeRadians - point1.longitudeRadians);
+	}
+
+	public static double distanceMiles(GeoPoint point1, GeoPoint point2, DistanceMode distanceMode) {
+		return distanceMode == DistanceMode.EQUIRECTANGULAR ? equirectangularMiles(point1, point2) :
+				distanceMiles(point1, point2);
+	}
+
+	// hav(d) = hav(dLat) + cos(lat1) cos(lat2) hav(dLon), which keeps its precision when the points are close
+	private static double haversineMiles(double lat1, double lat2, double cosLat1, double cosLat2, double longitudeDelta) {
+		double sinHalfLatitudeDelta = Math.sin((lat2 - lat1) / 2);
+		double sinHalfLongitudeDelta = Math.sin(longitudeDelta / 2);
+		double haversine = sinHalfLatitudeDelta * sinHalfLatitudeDelta
+				+ cosLat1 * cosLat2 * sinHalfLongitudeDelta * sinHalfLongitudeDelta;
+		// Clamped so that rounding on antipodal points does not push asin out of its domain
+		return 2 * EARTH_RADIUS_MILES * Math.asin(Math.sqrt(Math.min(1, haversine)));
+	}
+
+	// The mean of the two cosines stands for the cosine of the mean latitude, which differs by far less than the bound
+	private static double equirectangularMiles(GeoPoint point1, GeoPoint point2) {
+		double longitudeDelta = Math.abs(point2.longitudeRadians - point1.longitudeRadians);
+		if (longitudeDelta > Math.PI) {
+			longitudeDelta = 2 * Math.PI - longitudeDelta;
+		}
+		double x = longitudeDelta * (point1.cosLatitude + point2.cosLatitude) / 2;
+		double y = point2.latitudeRadians - point1.latitudeRadians;
+		return EARTH_RADIUS_MILES * Math.sqrt(x * x + y * y);
+	}
+}
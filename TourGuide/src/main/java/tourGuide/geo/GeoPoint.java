@@ -0,0 +1,28 @@
+package tourGuide.geo;
+
+import tourGuide.domain.location.Location;
+
+/**
+ * Location with the trigonometry that distance computations need worked out once, for the points that are measured
+ * against many others, like attractions or the center of a search
+ */
+public final class GeoPoint {
+
+	public final double latitude;
+	public final double longitude;
+	final double latitudeRadians;
+	final double longitudeRadians;
+	final double cosLatitude;
+
+	public GeoPoint(double latitude, double longitude) {
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.latitudeRadians = Math.toRadians(latitude);
+		this.longitudeRadians = Math.toRadians(longitude);
+		this.cosLatitude = Math.cos(latitudeRadians);
+	}
+
+	public static GeoPoint of(Location location) {
+		return new GeoPoint(location.latitude, location.longitude);
+	}
+}
@@ -0,0 +1,153 @@
+package tourGuide.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the k items with the smallest distance seen so far in a bounded max-heap backed by arrays.
+ * Items at the same distance are all retained while there is room; once full, an item only replaces the current
+ * furthest one if it is strictly closer, so earlier items win ties.
+ */
+public class TopK<T> {
+
+	private final int capacity;
+	private final double[] distances;
+	private final long[] sequences;
+	private final Object[] items;
+	private int size;
+	private long sequence;
+	private boolean sorted;
+
+	public TopK(int capacity) {
+		this.capacity = capacity;
+		this.distances = new double[capacity];
+		this.sequences = new long[capacity];
+		this.items = new Object[capacity];
+	}
+
+	public void offer(T item, double distance) {
+		if (capacity == 0) {
+			return;
+		}
+		if (sorted) {
+			// An array sorted in descending order is a valid max-heap again
+			for (int i = 0, j = size - 1; i < j; i++, j--) {
+				swap(i, j);
+			}
+			sorted = false;
+		}
+		if (size < capacity) {
+			set(size, item, distance, sequence++);
+			siftUp(size++);
+		} else if (distance < distances[0]) {
+			set(0, item, distance, sequence++);
+			siftDown(0, size);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isFull() {
+		return size == capacity;
+	}
+
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			items[i] = null;
+		}
+		size = 0;
+		sequence = 0;
+		sorted = false;
+	}
+
+	/**
+	 * Gets the i-th closest item
+	 * @param i
+	 * @return item, closest first
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int i) {
+		sort();
+		return (T) items[i];
+	}
+
+	public double distance(int i) {
+		sort();
+		return distances[i];
+	}
+
+	public List<T> toList() {
+		sort();
+		List<T> list = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(get(i));
+		}
+		return list;
+	}
+
+	// In-place heap sort; the max-heap leaves the array in ascending order
+	private void sort() {
+		if (sorted) {
+			return;
+		}
+		for (int end = size - 1; end > 0; end--) {
+			swap(0, end);
+			siftDown(0, end);
+		}
+		sorted = true;
+	}
+
+	private boolean after(int i, int j) {
+		return distances[i] > distances[j] || (distances[i] == distances[j] && sequences[i] > sequences[j]);
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!after(i, parent)) {
+				break;
+			}
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int i, int end) {
+		while (true) {
+			int largest = i;
+			int left = 2 * i + 1;
+			int right = left + 1;
+			if (left < end && after(left, largest)) {
+				largest = left;
+			}
+			if (right < end && after(right, largest)) {
+				largest = right;
+			}
+			if (largest == i) {
+				break;
+			}
+			swap(i, largest);
+			i = largest;
+		}
+	}
+
+	private void set(int i, T item, double distance, long sequence) {
+		items[i] = item;
+		distances[i] = distance;
+		sequences[i] = sequence;
+	}
+
+	private void swap(int i, int j) {
+		Object item = items[i];
+		items[i] = items[j];
+		items[j] = item;
+		double distance = distances[i];
+		distances[i] = distances[j];
+		distances[j] = distance;
+		long sequence = sequences[i];
+		sequences[i] = sequences[j];
+		sequences[j] = sequence;
+	}
+}
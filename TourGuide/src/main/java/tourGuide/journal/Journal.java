@@ -0,0 +1,58 @@
+package tourGuide.journal;
+
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.user.LocationHistory;
+import tourGuide.domain.user.User;
+import tourGuide.domain.user.UserReward;
+import tourGuide.repository.UserStore;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Write-ahead log of the changes made to users, replayed at startup to recover the tracking history and rewards
+ */
+public interface Journal extends AutoCloseable {
+
+	/**
+	 * Logs a new user, without their history
+	 * @param user
+	 * @return future completed once the record is durable
+	 */
+	CompletableFuture<Void> appendUser(User user);
+
+	/**
+	 * Logs a location added to a user's history
+	 * @param userId
+	 * @param index index of the location in the user's history, which lets a replay skip the locations already restored
+	 * @param latitude
+	 * @param longitude
+	 * @param timeMillis
+	 * @return future completed once the record is durable
+	 */
+	CompletableFuture<Void> appendLocation(UUID userId, int index, double latitude, double longitude, long timeMillis);
+
+	default CompletableFuture<Void> appendLocation(UUID userId, int index, VisitedLocation visitedLocation) {
+		return appendLocation(userId, index, visitedLocation.location.latitude, visitedLocation.location.longitude,
+				visitedLocation.timeVisited != null ? visitedLocation.timeVisited.getTime() : LocationHistory.NO_TIME);
+	}
+
+	/**
+	 * Logs a reward, or the points of a reward already logged
+	 * @param userId
+	 * @param userReward
+	 * @return future completed once the record is durable
+	 */
+	CompletableFuture<Void> appendReward(UUID userId, UserReward userReward);
+
+	/**
+	 * Applies the logged records to a user store, skipping what the store already holds, e.g. from a snapshot; must be
+	 * called before anything is appended
+	 * @param userStore
+	 * @return number of records replayed
+	 */
+	int replay(UserStore userStore);
+
+	@Override
+	void close();
+}
@@ -0,0 +1,671 @@
+package tourGuide.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.Location;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.user.LocationHistory;
+import tourGuide.domain.user.User;
+import tourGuide.domain.user.UserReward;
+import tourGuide.repository.UserStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal kept as numbered segment files in a directory.
+ * <p>
+ * Appending threads only encode their record and queue it; a single writer thread writes everything queued in one
+ * channel write and one fsync, so the cost of a sync is shared by all the records of a group. A segment is sealed once
+ * it exceeds its size, and each start opens a new one. Appending never blocks: a record that finds the writer a whole
+ * queue behind is rejected, so that callers on an event loop thread can append.
+ * <p>
+ * Each record is framed by its length and CRC32, so a record torn by a crash ends the replay of its segment.
+ * Segments are memory-mapped and decoded in parallel, then applied by user partition so that each user's records stay
+ * in order. When enough segments have accumulated, the replayed state is written to a single compacted segment that
+ * replaces them, which keeps the next recovery from growing with the number of restarts.
+ */
+public class SegmentedJournal implements Journal {
+
+	private static final Logger logger = LoggerFactory.getLogger(SegmentedJournal.class);
+
+	private static final byte USER_RECORD = 1;
+	private static final byte LOCATION_RECORD = 2;
+	private static final byte REWARD_RECORD = 3;
+	// record length and CRC32
+	private static final int headerBytes = 8;
+	// record type and user id
+	private static final int prefixBytes = 1 + 16;
+	private static final int maxGroupRecords = 4096;
+	private static final String logSuffix = ".log";
+	private static final String compactSuffix = ".compact";
+
+	private final Path directory;
+	private final long segmentBytes;
+	private final long groupCommitDelayMillis;
+	private final boolean fsync;
+	private final int compactAfterSegments;
+	private final BlockingQueue<PendingRecord> pendingRecords;
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "journal-writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final AtomicLong appendedRecords = new AtomicLong();
+	private final AtomicLong rejectedRecords = new AtomicLong();
+	private final AtomicLong committedRecords = new AtomicLong();
+	private final AtomicLong committedGroups = new AtomicLong();
+	private final long firstSegmentSequence;
+	private long segmentSequence;
+	private FileChannel segment;
+	private volatile boolean closed;
+
+	public SegmentedJournal(Path directory) throws IOException {
+		this(directory, 64 * 1024 * 1024, 2, true, 8, 100000);
+	}
+
+	/**
+	 * @param directory directory of the segments, created if needed
+	 * @param segmentBytes size beyond which a segment is sealed and a new one started
+	 * @param groupCommitDelayMillis time the writer waits after a first record for others to join its group, 0 to not wait
+	 * @param fsync true to force each group to disk before completing its records
+	 * @param compactAfterSegments number of segments from which a replay compacts them
+	 * @param queueCapacity number of records waiting for the writer beyond which appended records are rejected
+	 */
+	public SegmentedJournal(Path directory, long segmentBytes, long groupCommitDelayMillis, boolean fsync,
+							int compactAfterSegments, int queueCapacity) throws IOException {
+		this.directory = directory;
+		this.segmentBytes = segmentBytes;
+		this.groupCommitDelayMillis = groupCommitDelayMillis;
+		this.fsync = fsync;
+		this.compactAfterSegments = compactAfterSegments;
+		this.pendingRecords = new ArrayBlockingQueue<>(queueCapacity);
+
+		Files.createDirectories(directory);
+		long lastSequence = 0;
+		for (Path path : segmentFiles()) {
+			lastSequence = Math.max(lastSequence, sequenceOf(path));
+		}
+		this.firstSegmentSequence = lastSequence + 1;
+		this.segmentSequence = firstSegmentSequence;
+		this.segment = openSegment(segmentSequence);
+		writer.submit(this::writeGroups);
+	}
+
+	@Override
+	public CompletableFuture<Void> appendUser(User user) {
+		return append(userRecord(user));
+	}
+
+	@Override
+	public CompletableFuture<Void> appendLocation(UUID userId, int index, double latitude, double longitude, long timeMillis) {
+		return append(locationRecord(userId, index, latitude, longitude, timeMillis));
+	}
+
+	@Override
+	public CompletableFuture<Void> appendReward(UUID userId, UserReward userReward) {
+		return append(rewardRecord(userId, userReward));
+	}
+
+	public long getCommittedRecords() {
+		return committedRecords.get();
+	}
+
+	public long getCommittedGroups() {
+		return committedGroups.get();
+	}
+
+	public long getRejectedRecords() {
+		return rejectedRecords.get();
+	}
+
+	/**
+	 * Replays the segments left by previous runs, then compacts them if there are enough of them
+	 * @param userStore
+	 * @return number of records replayed
+	 */
+	@Override
+	public int replay(UserStore userStore) {
+		if (appendedRecords.get() > 0) {
+			throw new IllegalStateException("The journal must be replayed before anything is appended to it");
+		}
+		List<Path> segments = replayedSegments();
+		if (segments.isEmpty()) {
+			return 0;
+		}
+
+		long replayStart = System.nanoTime();
+		int partitions = Runtime.getRuntime().availableProcessors();
+		ExecutorService replayers = Executors.newFixedThreadPool(partitions, runnable -> {
+			Thread thread = new Thread(runnable, "journal-replay");
+			thread.setDaemon(true);
+			return thread;
+		});
+		int replayedRecords = 0;
+		try {
+			List<Future<List<List<Record>>>> decodedSegments = new ArrayList<>(segments.size());
+			for (Path path : segments) {
+				decodedSegments.add(replayers.submit(() -> decode(path, partitions)));
+			}
+			List<List<List<Record>>> segmentRecords = new ArrayList<>(segments.size());
+			for (Future<List<List<Record>>> decodedSegment : decodedSegments) {
+				segmentRecords.add(decodedSegment.get());
+			}
+
+			// A user's records all fall in the same partition, which applies them in segment order
+			List<Future<Integer>> appliedPartitions = new ArrayList<>(partitions);
+			for (int partition = 0; partition < partitions; partition++) {
+				int replayedPartition = partition;
+				appliedPartitions.add(replayers.submit(() -> {
+					int appliedRecords = 0;
+					for (List<List<Record>> records : segmentRecords) {
+						for (Record record : records.get(replayedPartition)) {
+							if (record.applyTo(userStore)) {
+								appliedRecords++;
+							}
+						}
+					}
+					return appliedRecords;
+				}));
+			}
+			for (Future<Integer> appliedPartition : appliedPartitions) {
+				replayedRecords += appliedPartition.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while replaying the journal", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Unable to replay the journal", e.getCause());
+		} finally {
+			replayers.shutdown();
+		}
+		logger.info("Replayed " + replayedRecords + " journal records from " + segments.size() + " segments in "
+				+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - replayStart) + " ms");
+
+		if (segments.size() >= compactAfterSegments) {
+			compact(userStore);
+		}
+		return replayedRecords;
+	}
+
+	/**
+	 * Stops accepting records and returns once those already appended are written
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		writer.shutdown();
+		try {
+			if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+				logger.warn("Journal writer did not finish writing " + pendingRecords.size() + " records");
+			}
+			// Records queued while the writer was stopping are not written
+			PendingRecord pendingRecord;
+			while ((pendingRecord = pendingRecords.poll()) != null) {
+				pendingRecord.committed.completeExceptionally(new IllegalStateException("Journal closed"));
+			}
+			segment.close();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			logger.warn("Unable to close journal segment: " + e.getMessage());
+		}
+	}
+
+	private CompletableFuture<Void> append(ByteBuffer record) {
+		PendingRecord pendingRecord = new PendingRecord(seal(record));
+		if (closed) {
+			pendingRecord.committed.completeExceptionally(new IllegalStateException("Journal closed"));
+			return pendingRecord.committed;
+		}
+		if (!pendingRecords.offer(pendingRecord)) {
+			if (rejectedRecords.getAndIncrement() == 0) {
+				logger.warn("Journal writer is " + pendingRecords.size() + " records behind, rejecting records");
+			}
+			pendingRecord.committed.completeExceptionally(new IllegalStateException("Journal queue full"));
+			return pendingRecord.committed;
+		}
+		appendedRecords.incrementAndGet();
+		return pendingRecord.committed;
+	}
+
+	private void writeGroups() {
+		List<PendingRecord> group = new ArrayList<>();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+		while (!closed || !pendingRecords.isEmpty()) {
+			try {
+				PendingRecord first = pendingRecords.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				if (groupCommitDelayMillis > 0) {
+					TimeUnit.MILLISECONDS.sleep(groupCommitDelayMillis);
+				}
+				group.add(first);
+				pendingRecords.drainTo(group, maxGroupRecords - 1);
+			} catch (InterruptedException e) {
+				logger.warn("Journal writer interrupted with " + pendingRecords.size() + " records pending");
+				return;
+			}
+
+			try {
+				writeGroup(group, buffer);
+				committedRecords.addAndGet(group.size());
+				committedGroups.incrementAndGet();
+				group.forEach(pendingRecord -> pendingRecord.committed.complete(null));
+			} catch (IOException e) {
+				logger.error("Unable to write " + group.size() + " journal records: " + e.getMessage());
+				group.forEach(pendingRecord -> pendingRecord.committed.completeExceptionally(e));
+			}
+			group.clear();
+
+			try {
+				// A segment left closed by a failure to start the next one is retried here
+				if (!segment.isOpen() || segment.size() >= segmentBytes) {
+					startSegment();
+				}
+			} catch (IOException e) {
+				logger.error("Unable to start a new journal segment: " + e.getMessage());
+			}
+		}
+	}
+
+	// A group that fails is cut off the segment, as the replay would stop at its torn record and lose the groups after it
+	private void writeGroup(List<PendingRecord> group, ByteBuffer buffer) throws IOException {
+		long groupStart = segment.size();
+		try {
+			writeRecords(group, buffer);
+		} catch (IOException e) {
+			discardFrom(groupStart);
+			throw e;
+		}
+	}
+
+	private void writeRecords(List<PendingRecord> group, ByteBuffer buffer) throws IOException {
+		buffer.clear();
+		for (PendingRecord pendingRecord : group) {
+			if (pendingRecord.bytes.length > buffer.remaining()) {
+				writeFully(segment, buffer);
+				if (pendingRecord.bytes.length > buffer.capacity()) {
+					ByteBuffer record = ByteBuffer.wrap(pendingRecord.bytes);
+					while (record.hasRemaining()) {
+						segment.write(record);
+					}
+					continue;
+				}
+			}
+			buffer.put(pendingRecord.bytes);
+		}
+		writeFully(segment, buffer);
+		if (fsync) {
+			segment.force(false);
+		}
+	}
+
+	// Falls back to sealing the segment when it cannot be truncated, so that later groups go to a segment of their own
+	private void discardFrom(long groupStart) {
+		try {
+			segment.truncate(groupStart);
+			if (fsync) {
+				segment.force(false);
+			}
+			return;
+		} catch (IOException e) {
+			logger.warn("Unable to truncate a failed group off the journal segment, sealing it: " + e.getMessage());
+		}
+		try {
+			startSegment();
+		} catch (IOException e) {
+			logger.error("Unable to start a new journal segment: " + e.getMessage());
+		}
+	}
+
+	private void startSegment() throws IOException {
+		try {
+			segment.close();
+		} catch (IOException e) {
+			logger.warn("Unable to close journal segment: " + e.getMessage());
+		}
+		segment = openSegment(++segmentSequence);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the whole user store to one segment numbered just below this run's first, then removes the segments it
+	 * replaces. The compacted segment only becomes visible once complete, and a replay ignores the segments it
+	 * replaces, so a crash at any point leaves a consistent journal.
+	 */
+	private void compact(UserStore userStore) {
+		long compactStart = System.nanoTime();
+		long compactSequence = firstSegmentSequence - 1;
+		Path compacted = directory.resolve(fileName(compactSequence, compactSuffix));
+		Path temporary = directory.resolve(fileName(compactSequence, compactSuffix + ".tmp"));
+		try {
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+				for (User user : userStore.getUsers()) {
+					writeCompacted(channel, buffer, user);
+				}
+				writeFully(channel, buffer);
+				channel.force(true);
+			}
+			Files.move(temporary, compacted, StandardCopyOption.ATOMIC_MOVE);
+			for (Path path : segmentFiles()) {
+				if (sequenceOf(path) <= compactSequence && !path.equals(compacted)) {
+					Files.delete(path);
+				}
+			}
+		} catch (IOException e) {
+			logger.warn("Unable to compact the journal, keeping its segments: " + e.getMessage());
+			return;
+		}
+		logger.info("Compacted the journal into " + compacted.getFileName() + " in "
+				+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - compactStart) + " ms");
+	}
+
+	private void writeCompacted(FileChannel channel, ByteBuffer buffer, User user) throws IOException {
+		List<byte[]> records = new ArrayList<>();
+		records.add(seal(userRecord(user)));
+		LocationHistory.View locations = user.getLocationHistory();
+		for (int i = 0; i < locations.size(); i++) {
+			records.add(seal(locationRecord(user.getUserId(), i, locations.getLatitude(i), locations.getLongitude(i),
+					locations.getTimeMillis(i))));
+		}
+		for (UserReward userReward : user.getUserRewards()) {
+			records.add(seal(rewardRecord(user.getUserId(), userReward)));
+		}
+
+		for (byte[] bytes : records) {
+			if (bytes.length > buffer.remaining()) {
+				writeFully(channel, buffer);
+			}
+			buffer.put(bytes);
+		}
+	}
+
+	// The compacted segment if any, then the logs written after it, oldest first
+	private List<Path> replayedSegments() {
+		List<Path> segmentFiles = segmentFiles();
+		Path compacted = null;
+		for (Path path : segmentFiles) {
+			if (path.getFileName().toString().endsWith(compactSuffix)
+					&& (compacted == null || sequenceOf(path) > sequenceOf(compacted))) {
+				compacted = path;
+			}
+		}
+		long compactedSequence = compacted != null ? sequenceOf(compacted) : 0;
+
+		List<Path> segments = new ArrayList<>();
+		if (compacted != null) {
+			segments.add(compacted);
+		}
+		segmentFiles.stream()
+				.filter(path -> path.getFileName().toString().endsWith(logSuffix))
+				.filter(path -> sequenceOf(path) > compactedSequence && sequenceOf(path) < firstSegmentSequence)
+				.sorted((path1, path2) -> Long.compare(sequenceOf(path1), sequenceOf(path2)))
+				.forEach(segments::add);
+		return segments;
+	}
+
+	private List<Path> segmentFiles() {
+		try (Stream<Path> paths = Files.list(directory)) {
+			return paths.filter(path -> {
+				String fileName = path.getFileName().toString();
+				return fileName.matches("\\d{20}(" + logSuffix + "|" + compactSuffix + ")");
+			}).collect(Collectors.toList());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private FileChannel openSegment(long sequence) throws IOException {
+		return FileChannel.open(directory.resolve(fileName(sequence, logSuffix)), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	private static String fileName(long sequence, String suffix) {
+		return String.format("%020d", sequence) + suffix;
+	}
+
+	private static long sequenceOf(Path path) {
+		return Long.parseLong(path.getFileName().toString().substring(0, 20));
+	}
+
+	// Decodes the records of a segment into one list per user partition
+	private static List<List<Record>> decode(Path path, int partitions) throws IOException {
+		List<List<Record>> records = new ArrayList<>(partitions);
+		for (int i = 0; i < partitions; i++) {
+			records.add(new ArrayList<>());
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			CRC32 crc = new CRC32();
+			while (buffer.remaining() >= headerBytes) {
+				int length = buffer.getInt();
+				int checksum = buffer.getInt();
+				if (length < prefixBytes || length > buffer.remaining()) {
+					logger.warn("Torn record at " + (buffer.position() - headerBytes) + " in " + path.getFileName()
+							+ ", ignoring the rest of the segment");
+					break;
+				}
+				ByteBuffer payload = buffer.slice();
+				payload.limit(length);
+				crc.reset();
+				crc.update(payload.duplicate());
+				if ((int) crc.getValue() != checksum) {
+					logger.warn("Corrupt record at " + (buffer.position() - headerBytes) + " in " + path.getFileName()
+							+ ", ignoring the rest of the segment");
+					break;
+				}
+				buffer.position(buffer.position() + length);
+
+				Record record = Record.decode(payload);
+				records.get(Math.floorMod(record.userId.hashCode(), partitions)).add(record);
+			}
+		}
+		return records;
+	}
+
+	private static ByteBuffer userRecord(User user) {
+		byte[] userName = encode(user.getUserName());
+		byte[] phoneNumber = encode(user.getPhoneNumber());
+		byte[] emailAddress = encode(user.getEmailAddress());
+		ByteBuffer record = newRecord(USER_RECORD, user.getUserId(), stringBytes(userName) + stringBytes(phoneNumber)
+				+ stringBytes(emailAddress));
+		putString(record, userName);
+		putString(record, phoneNumber);
+		putString(record, emailAddress);
+		return record;
+	}
+
+	private static ByteBuffer locationRecord(UUID userId, int index, double latitude, double longitude, long timeMillis) {
+		ByteBuffer record = newRecord(LOCATION_RECORD, userId, 4 + 8 + 8 + 8);
+		record.putInt(index).putDouble(latitude).putDouble(longitude).putLong(timeMillis);
+		return record;
+	}
+
+	private static ByteBuffer rewardRecord(UUID userId, UserReward userReward) {
+		Attraction attraction = userReward.attraction;
+		byte[] attractionName = encode(attraction.attractionName);
+		byte[] city = encode(attraction.city);
+		byte[] state = encode(attraction.state);
+		ByteBuffer record = newRecord(REWARD_RECORD, userId, 8 + 8 + 8 + 16 + 8 + 8 + stringBytes(attractionName)
+				+ stringBytes(city) + stringBytes(state) + 4);
+		VisitedLocation visitedLocation = userReward.visitedLocation;
+		record.putDouble(visitedLocation.location.latitude).putDouble(visitedLocation.location.longitude)
+				.putLong(visitedLocation.timeVisited != null ? visitedLocation.timeVisited.getTime() : LocationHistory.NO_TIME);
+		UUID attractionId = attraction.attractionId != null ? attraction.attractionId : new UUID(0, 0);
+		record.putLong(attractionId.getMostSignificantBits()).putLong(attractionId.getLeastSignificantBits())
+				.putDouble(attraction.latitude).putDouble(attraction.longitude);
+		putString(record, attractionName);
+		putString(record, city);
+		putString(record, state);
+		record.putInt(userReward.getRewardPoints());
+		return record;
+	}
+
+	private static ByteBuffer newRecord(byte type, UUID userId, int bodyBytes) {
+		ByteBuffer record = ByteBuffer.allocate(headerBytes + prefixBytes + bodyBytes);
+		record.position(headerBytes);
+		record.put(type).putLong(userId.getMostSignificantBits()).putLong(userId.getLeastSignificantBits());
+		return record;
+	}
+
+	private static byte[] seal(ByteBuffer record) {
+		int length = record.position() - headerBytes;
+		CRC32 crc = new CRC32();
+		crc.update(record.array(), headerBytes, length);
+		record.putInt(0, length).putInt(4, (int) crc.getValue());
+		return record.array();
+	}
+
+	private static byte[] encode(String value) {
+		return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+	}
+
+	private static int stringBytes(byte[] value) {
+		return 4 + (value != null ? value.length : 0);
+	}
+
+	private static void putString(ByteBuffer record, byte[] value) {
+		if (value == null) {
+			record.putInt(-1);
+			return;
+		}
+		record.putInt(value.length).put(value);
+	}
+
+	private static String getString(ByteBuffer payload) {
+		int length = payload.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] value = new byte[length];
+		payload.get(value);
+		return new String(value, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Record queued for the writer, with the future completed once it is written
+	 */
+	private static final class PendingRecord {
+
+		private final byte[] bytes;
+		private final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+		private PendingRecord(byte[] bytes) {
+			this.bytes = bytes;
+		}
+	}
+
+	/**
+	 * Decoded record, applied to the user store once all segments are decoded
+	 */
+	private static final class Record {
+
+		private final byte type;
+		private final UUID userId;
+		private User user;
+		private int index;
+		private double latitude;
+		private double longitude;
+		private long timeMillis;
+		private UserReward userReward;
+
+		private Record(byte type, UUID userId) {
+			this.type = type;
+			this.userId = userId;
+		}
+
+		private static Record decode(ByteBuffer payload) {
+			Record record = new Record(payload.get(), new UUID(payload.getLong(), payload.getLong()));
+			switch (record.type) {
+				case USER_RECORD:
+					record.user = new User(record.userId, getString(payload), getString(payload), getString(payload));
+					break;
+				case LOCATION_RECORD:
+					record.index = payload.getInt();
+					record.latitude = payload.getDouble();
+					record.longitude = payload.getDouble();
+					record.timeMillis = payload.getLong();
+					break;
+				case REWARD_RECORD:
+					double latitude = payload.getDouble();
+					double longitude = payload.getDouble();
+					long timeMillis = payload.getLong();
+					VisitedLocation visitedLocation = new VisitedLocation(record.userId, new Location(latitude, longitude),
+							timeMillis != LocationHistory.NO_TIME ? new Date(timeMillis) : null);
+					UUID attractionId = new UUID(payload.getLong(), payload.getLong());
+					double attractionLatitude = payload.getDouble();
+					double attractionLongitude = payload.getDouble();
+					Attraction attraction = new Attraction(getString(payload), getString(payload), getString(payload),
+							attractionLatitude, attractionLongitude);
+					attraction.attractionId = attractionId;
+					record.userReward = new UserReward(visitedLocation, attraction, payload.getInt());
+					break;
+				default:
+					throw new IllegalStateException("Unknown journal record type " + record.type);
+			}
+			return record;
+		}
+
+		private boolean applyTo(UserStore userStore) {
+			if (type == USER_RECORD) {
+				return userStore.addUser(user);
+			}
+			User storedUser = userStore.getUserById(userId);
+			if (storedUser == null) {
+				return false;
+			}
+			if (type == LOCATION_RECORD) {
+				// Locations below the history's size were restored before the replay
+				if (index < storedUser.getVisitedLocationCount()) {
+					return false;
+				}
+				storedUser.addToVisitedLocations(latitude, longitude, timeMillis);
+				return true;
+			}
+			// A later record of the same reward carries points that were filled in after it was first logged
+			UserReward storedReward = storedUser.getUserReward(userReward.attraction.attractionName);
+			if (storedReward != null) {
+				storedUser.setRewardPoints(storedReward, userReward.getRewardPoints());
+				return true;
+			}
+			storedUser.addUserReward(userReward);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package tourGuide.repository;
+
+import tourGuide.domain.user.User;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * User store held in concurrent maps, by user name and by user id. Iterating over the users is weakly consistent: it
+ * never fails nor copies, and sees each user present for the whole iteration exactly once.
+ */
+public class InMemoryUserStore implements UserStore {
+
+    private final ConcurrentMap<String, User> usersByName;
+    private final ConcurrentMap<UUID, User> usersById;
+
+    public InMemoryUserStore() {
+        this(16);
+    }
+
+    /**
+     * @param expectedUsers sizes the maps up front, so that loading many users does not resize them repeatedly
+     */
+    public InMemoryUserStore(int expectedUsers) {
+        usersByName = new ConcurrentHashMap<>(expectedUsers);
+        usersById = new ConcurrentHashMap<>(expectedUsers);
+    }
+
+    @Override
+    public User getUser(String userName) {
+        return usersByName.get(userName);
+    }
+
+    @Override
+    public User getUserById(UUID userId) {
+        return usersById.get(userId);
+    }
+
+    @Override
+    public boolean addUser(User user) {
+        if (usersByName.putIfAbsent(user.getUserName(), user) != null) {
+            return false;
+        }
+        usersById.put(user.getUserId(), user);
+        return true;
+    }
+
+    @Override
+    public User removeUser(String userName) {
+        User user = usersByName.remove(userName);
+        if (user != null) {
+            usersById.remove(user.getUserId(), user);
+        }
+        return user;
+    }
+
+    @Override
+    public Collection<User> getUsers() {
+        return Collections.unmodifiableCollection(usersByName.values());
+    }
+
+    @Override
+    public int size() {
+        return usersByName.size();
+    }
+}
@@ -2,14 +2,14 @@ package tourGuide.repository;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import tourGuide.domain.location.Location;
-import tourGuide.domain.location.VisitedLocation;
 import tourGuide.domain.user.User;
 import tourGuide.helper.InternalTestHelper;
 
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.util.*;
+import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
 /**********************************************************************************
@@ -23,48 +23,119 @@ public class TestUserRepository {
     private Logger logger = LoggerFactory.getLogger(TestUserRepository.class);
 
     private static final String tripPricerApiKey = "test-server-api-key";
+    private static final long defaultSeed = 8;
+    private static final int defaultHistoryDepth = 3;
+    private static final int usersPerChunk = 4096;
+    private static final double maxLatitude = 85.05112878;
+    private static final int maxDaysAgo = 30;
+    // 2020-01-01T00:00:00Z, so that visit times, like everything else generated, only depend on the seed
+    private static final long defaultBaseTimeMillis = 1577836800000L;
 
     // Database connection will be used for external users, but for testing purposes internal users are provided and stored in memory
-    private final Map<String, User> internalUserMap = new HashMap<>();
+    private final UserStore userStore;
+    private final long seed;
+    private final int historyDepth;
+    private final long baseTimeMillis;
 
+    public TestUserRepository() {
+        this(new InMemoryUserStore());
+    }
+
+    public TestUserRepository(UserStore userStore) {
+        this(userStore, defaultSeed, defaultHistoryDepth);
+    }
+
+    /**
+     * @param userStore
+     * @param seed seed of the generated users, the same seed giving the same users
+     * @param historyDepth number of visited locations generated for each user
+     */
+    public TestUserRepository(UserStore userStore, long seed, int historyDepth) {
+        this(userStore, seed, historyDepth, defaultBaseTimeMillis);
+    }
+
+    /**
+     * @param userStore
+     * @param seed seed of the generated users, the same seed and base time giving the same users
+     * @param historyDepth number of visited locations generated for each user
+     * @param baseTimeMillis time from which the generated visits go back up to 30 days
+     */
+    public TestUserRepository(UserStore userStore, long seed, int historyDepth, long baseTimeMillis) {
+        this.userStore = userStore;
+        this.seed = seed;
+        this.historyDepth = historyDepth;
+        this.baseTimeMillis = baseTimeMillis;
+    }
+
+    /**
+     * Generates the internal users in parallel chunks. Each chunk draws from its own generator, split from the seed in
+     * chunk order, so the users only depend on the seed and not on which thread built them.
+     */
     public void initializeInternalUsers() {
-        IntStream.range(0, InternalTestHelper.getInternalUserNumber()).forEach(i -> {
-            String userName = "internalUser" + i;
-            String phone = "000";
-            String email = userName + "@tourGuide.com";
-            User user = new User(UUID.randomUUID(), userName, phone, email);
-            generateUserLocationHistory(user);
-
-            internalUserMap.put(userName, user);
+        int userCount = InternalTestHelper.getInternalUserNumber();
+        int chunks = (userCount + usersPerChunk - 1) / usersPerChunk;
+        SplittableRandom seedRandom = new SplittableRandom(seed);
+        SplittableRandom[] chunkRandoms = new SplittableRandom[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            chunkRandoms[chunk] = seedRandom.split();
+        }
+
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            SplittableRandom random = chunkRandoms[chunk];
+            int lastUser = Math.min(userCount, (chunk + 1) * usersPerChunk);
+            for (int i = chunk * usersPerChunk; i < lastUser; i++) {
+                String userName = "internalUser" + i;
+                String phone = "000";
+                String email = userName + "@tourGuide.com";
+                User user = new User(randomUUID(random), userName, phone, email);
+                generateUserLocationHistory(user, random);
+
+                userStore.addUser(user);
+            }
         });
-        logger.debug("Created " + InternalTestHelper.getInternalUserNumber() + " internal test users.");
+        logger.debug("Created " + userCount + " internal test users.");
     }
 
-    private void generateUserLocationHistory(User user) {
-        IntStream.range(0, 3).forEach(i-> {
-            user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(generateRandomLatitude(), generateRandomLongitude()), getRandomTime()));
-        });
+    // Locations go straight into the user's primitive history, without any Location, Date or VisitedLocation
+    private void generateUserLocationHistory(User user, SplittableRandom random) {
+        for (int i = 0; i < historyDepth; i++) {
+            user.addToVisitedLocations(randomLatitude(random), randomLongitude(random), randomTimeMillis(random, baseTimeMillis));
+        }
     }
 
     public double generateRandomLongitude() {
-        double leftLimit = -180;
-        double rightLimit = 180;
-        return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
+        return ThreadLocalRandom.current().nextDouble(-180, 180);
     }
 
     public double generateRandomLatitude() {
-        double leftLimit = -85.05112878;
-        double rightLimit = 85.05112878;
-        return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
+        return ThreadLocalRandom.current().nextDouble(-maxLatitude, maxLatitude);
     }
 
     public Date getRandomTime() {
-        LocalDateTime localDateTime = LocalDateTime.now().minusDays(new Random().nextInt(30));
-        return Date.from(localDateTime.toInstant(ZoneOffset.UTC));
+        return new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(ThreadLocalRandom.current().nextInt(maxDaysAgo)));
+    }
+
+    private static double randomLongitude(SplittableRandom random) {
+        return random.nextDouble(-180, 180);
+    }
+
+    private static double randomLatitude(SplittableRandom random) {
+        return random.nextDouble(-maxLatitude, maxLatitude);
+    }
+
+    private static long randomTimeMillis(SplittableRandom random, long baseTimeMillis) {
+        return baseTimeMillis - TimeUnit.DAYS.toMillis(random.nextInt(maxDaysAgo));
+    }
+
+    // Random version 4 UUID drawn from the chunk's generator, so that user ids are reproducible too
+    private static UUID randomUUID(SplittableRandom random) {
+        long mostSignificantBits = (random.nextLong() & ~0xf000L) | 0x4000L;
+        long leastSignificantBits = (random.nextLong() & ~(0xc000000000000000L)) | 0x8000000000000000L;
+        return new UUID(mostSignificantBits, leastSignificantBits);
     }
 
-    public Map<String, User> getInternalUserMap() {
-        return internalUserMap;
+    public UserStore getUserStore() {
+        return userStore;
     }
 
     public String getTripPricerApiKey() {
@@ -0,0 +1,36 @@
+package tourGuide.repository;
+
+import tourGuide.domain.user.User;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Storage of the users, safe to use from controller and tracker threads at the same time
+ */
+public interface UserStore {
+
+    User getUser(String userName);
+
+    User getUserById(UUID userId);
+
+    /**
+     * Adds a user unless one with the same name is already stored
+     * @param user
+     * @return true if the user was added
+     */
+    boolean addUser(User user);
+
+    /**
+     * @param userName
+     * @return the removed user, or null if there was none with this name
+     */
+    User removeUser(String userName);
+
+    /**
+     * @return live view of the users, iterable while users are added or removed, without copying them
+     */
+    Collection<User> getUsers();
+
+    int size();
+}
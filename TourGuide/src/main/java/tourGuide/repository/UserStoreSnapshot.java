@@ -0,0 +1,423 @@
+package tourGuide.repository;
+
+import org.javamoney.moneta.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.Location;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.user.LocationHistory;
+import tourGuide.domain.user.User;
+import tourGuide.domain.user.UserPreferences;
+import tourGuide.domain.user.UserReward;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Binary image of a user store in a single file, to start with the users of a previous run instead of generating them.
+ * <p>
+ * The file holds a header, one block per user, an index giving the offset and CRC32 of each block, and a trailer
+ * locating the index. Locations are stored as columns, so they are bulk copied into the users' histories. A load maps
+ * ranges of blocks into memory and decodes them on several threads, so it is bounded by reading the file rather than
+ * by building the users. Trip deals are not kept, they are fetched again on demand.
+ */
+public class UserStoreSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserStoreSnapshot.class);
+
+    private static final int MAGIC = 0x54475553;
+    private static final int VERSION = 1;
+    // magic, version, creation time and number of users
+    private static final int headerBytes = 4 + 4 + 8 + 4;
+    // block offset and CRC32
+    private static final int indexEntryBytes = 8 + 4;
+    // index offset and magic
+    private static final int trailerBytes = 8 + 4;
+    private static final int rangesPerThread = 4;
+
+    private final Path path;
+    private final long intervalSeconds;
+    // the periodic and shutdown snapshots must not write the temporary file at the same time
+    private final Object writeLock = new Object();
+    private ScheduledExecutorService scheduler;
+
+    public UserStoreSnapshot(Path path) {
+        this(path, 0);
+    }
+
+    /**
+     * @param path snapshot file
+     * @param intervalSeconds time between two snapshots once started, 0 to only write them on demand
+     */
+    public UserStoreSnapshot(Path path, long intervalSeconds) {
+        this.path = path;
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Writes a snapshot of the users every interval until stopped
+     * @param userStore
+     */
+    public synchronized void start(UserStore userStore) {
+        if (intervalSeconds <= 0 || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-store-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                write(userStore);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Unable to write the user store snapshot: " + e.getMessage());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Writes the users to a temporary file, then moves it over the previous snapshot, so that a crash while writing
+     * leaves the previous snapshot intact
+     * @param userStore
+     * @return number of users written
+     * @throws IOException
+     */
+    public int write(UserStore userStore) throws IOException {
+        synchronized (writeLock) {
+            long writeStart = System.nanoTime();
+            List<User> users = new ArrayList<>(userStore.getUsers());
+            Path absolutePath = path.toAbsolutePath();
+            Files.createDirectories(absolutePath.getParent());
+            Path temporary = Paths.get(absolutePath + ".tmp");
+
+            long[] offsets = new long[users.size()];
+            int[] checksums = new int[users.size()];
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(headerBytes);
+                header.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putInt(users.size());
+                header.flip();
+                writeFully(channel, header);
+
+                CRC32 crc = new CRC32();
+                for (int i = 0; i < users.size(); i++) {
+                    ByteBuffer block = encode(users.get(i));
+                    crc.reset();
+                    crc.update(block.array(), 0, block.limit());
+                    offsets[i] = channel.position();
+                    checksums[i] = (int) crc.getValue();
+                    writeFully(channel, block);
+                }
+
+                long indexOffset = channel.position();
+                ByteBuffer index = ByteBuffer.allocate(users.size() * indexEntryBytes + trailerBytes);
+                for (int i = 0; i < users.size(); i++) {
+                    index.putLong(offsets[i]).putInt(checksums[i]);
+                }
+                index.putLong(indexOffset).putInt(MAGIC);
+                index.flip();
+                writeFully(channel, index);
+                channel.force(true);
+            }
+            Files.move(temporary, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Wrote a snapshot of " + users.size() + " users in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - writeStart) + " ms");
+            return users.size();
+        }
+    }
+
+    /**
+     * Adds the users of the snapshot to a user store; nothing is added if any part of the snapshot is corrupt
+     * @param userStore
+     * @return number of users read, 0 if there is no snapshot
+     * @throws IOException if the snapshot cannot be read or is corrupt
+     */
+    public int load(UserStore userStore) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        long loadStart = System.nanoTime();
+        List<User> users = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < headerBytes + trailerBytes) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerBytes);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException(path + " is not a user store snapshot");
+            }
+            header.getLong();
+            int userCount = header.getInt();
+            MappedByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - trailerBytes, trailerBytes);
+            long indexOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC || indexOffset + (long) userCount * indexEntryBytes != size - trailerBytes) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+
+            long[] offsets = new long[userCount + 1];
+            int[] checksums = new int[userCount];
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) userCount * indexEntryBytes);
+            for (int i = 0; i < userCount; i++) {
+                offsets[i] = index.getLong();
+                checksums[i] = index.getInt();
+            }
+            offsets[userCount] = indexOffset;
+
+            users.addAll(decodeInParallel(channel, offsets, checksums));
+        }
+        users.forEach(userStore::addUser);
+        logger.info("Loaded " + users.size() + " users from snapshot " + path + " in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart) + " ms");
+        return users.size();
+    }
+
+    // Each range of blocks is mapped and decoded by its own task; a mapping cannot exceed 2 GB, so neither can a range
+    private static List<User> decodeInParallel(FileChannel channel, long[] offsets, int[] checksums) throws IOException {
+        int userCount = checksums.length;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int usersPerRange = Math.max(1, userCount / (threads * rangesPerThread));
+        List<int[]> ranges = new ArrayList<>();
+        int from = 0;
+        for (int to = 1; to <= userCount; to++) {
+            if (to == userCount || to - from == usersPerRange || offsets[to + 1] - offsets[from] > Integer.MAX_VALUE) {
+                ranges.add(new int[] {from, to});
+                from = to;
+            }
+        }
+
+        ExecutorService decoders = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-store-snapshot-load");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<List<User>>> decodedRanges = new ArrayList<>(ranges.size());
+            for (int[] range : ranges) {
+                decodedRanges.add(decoders.submit(() -> decodeRange(channel, offsets, checksums, range[0], range[1])));
+            }
+            List<User> users = new ArrayList<>(userCount);
+            for (Future<List<User>> decodedRange : decodedRanges) {
+                users.addAll(decodedRange.get());
+            }
+            return users;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading the snapshot", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to decode the snapshot", e.getCause());
+        } finally {
+            decoders.shutdown();
+        }
+    }
+
+    private static List<User> decodeRange(FileChannel channel, long[] offsets, int[] checksums, int from, int to)
+            throws IOException {
+        MappedByteBuffer range = channel.map(FileChannel.MapMode.READ_ONLY, offsets[from], offsets[to] - offsets[from]);
+        List<User> users = new ArrayList<>(to - from);
+        CRC32 crc = new CRC32();
+        for (int i = from; i < to; i++) {
+            ByteBuffer block = range.slice();
+            block.limit((int) (offsets[i + 1] - offsets[i]));
+            crc.reset();
+            crc.update(block.duplicate());
+            if ((int) crc.getValue() != checksums[i]) {
+                throw new IOException("Corrupt user block at offset " + offsets[i]);
+            }
+            users.add(decode(block));
+            range.position(range.position() + block.limit());
+        }
+        return users;
+    }
+
+    private static ByteBuffer encode(User user) {
+        byte[] userName = encode(user.getUserName());
+        byte[] phoneNumber = encode(user.getPhoneNumber());
+        byte[] emailAddress = encode(user.getEmailAddress());
+        UserPreferences userPreferences = user.getUserPreferences();
+        byte[] currency = encode(userPreferences.getLowerPricePoint().getCurrency().getCurrencyCode());
+        byte[] lowerPricePoint = encode(userPreferences.getLowerPricePoint().getNumberStripped().toPlainString());
+        byte[] highPricePoint = encode(userPreferences.getHighPricePoint().getNumberStripped().toPlainString());
+        LocationHistory.View locations = user.getLocationHistory();
+        // One copy for both passes, as the tracker may add rewards while the snapshot is written
+        List<UserReward> userRewards = new ArrayList<>(user.getUserRewards());
+        List<byte[][]> rewardStrings = new ArrayList<>(userRewards.size());
+        int rewardBytes = 0;
+        for (UserReward userReward : userRewards) {
+            byte[][] strings = {encode(userReward.attraction.attractionName), encode(userReward.attraction.city),
+                    encode(userReward.attraction.state)};
+            rewardStrings.add(strings);
+            rewardBytes += 8 + 8 + 8 + 16 + 8 + 8 + stringBytes(strings[0]) + stringBytes(strings[1])
+                    + stringBytes(strings[2]) + 4;
+        }
+
+        ByteBuffer block = ByteBuffer.allocate(16 + stringBytes(userName) + stringBytes(phoneNumber)
+                + stringBytes(emailAddress) + 8
+                + 4 + stringBytes(currency) + stringBytes(lowerPricePoint) + stringBytes(highPricePoint) + 4 * 4
+                + 4 + locations.size() * (8 + 8 + 8)
+                + 4 + rewardBytes);
+        block.putLong(user.getUserId().getMostSignificantBits()).putLong(user.getUserId().getLeastSignificantBits());
+        putString(block, userName);
+        putString(block, phoneNumber);
+        putString(block, emailAddress);
+        Date latestLocationTimestamp = user.getLatestLocationTimestamp();
+        block.putLong(latestLocationTimestamp != null ? latestLocationTimestamp.getTime() : LocationHistory.NO_TIME);
+
+        block.putInt(userPreferences.getAttractionProximity());
+        putString(block, currency);
+        putString(block, lowerPricePoint);
+        putString(block, highPricePoint);
+        block.putInt(userPreferences.getTripDuration()).putInt(userPreferences.getTicketQuantity())
+                .putInt(userPreferences.getNumberOfAdults()).putInt(userPreferences.getNumberOfChildren());
+
+        block.putInt(locations.size());
+        for (int i = 0; i < locations.size(); i++) {
+            block.putDouble(locations.getLatitude(i));
+        }
+        for (int i = 0; i < locations.size(); i++) {
+            block.putDouble(locations.getLongitude(i));
+        }
+        for (int i = 0; i < locations.size(); i++) {
+            block.putLong(locations.getTimeMillis(i));
+        }
+
+        block.putInt(userRewards.size());
+        for (int i = 0; i < userRewards.size(); i++) {
+            UserReward userReward = userRewards.get(i);
+            VisitedLocation visitedLocation = userReward.visitedLocation;
+            block.putDouble(visitedLocation.location.latitude).putDouble(visitedLocation.location.longitude)
+                    .putLong(visitedLocation.timeVisited != null ? visitedLocation.timeVisited.getTime() : LocationHistory.NO_TIME);
+            Attraction attraction = userReward.attraction;
+            UUID attractionId = attraction.attractionId != null ? attraction.attractionId : new UUID(0, 0);
+            block.putLong(attractionId.getMostSignificantBits()).putLong(attractionId.getLeastSignificantBits())
+                    .putDouble(attraction.latitude).putDouble(attraction.longitude);
+            byte[][] strings = rewardStrings.get(i);
+            putString(block, strings[0]);
+            putString(block, strings[1]);
+            putString(block, strings[2]);
+            block.putInt(userReward.getRewardPoints());
+        }
+        block.flip();
+        return block;
+    }
+
+    private static User decode(ByteBuffer block) {
+        UUID userId = new UUID(block.getLong(), block.getLong());
+        User user = new User(userId, getString(block), getString(block), getString(block));
+        long latestLocationTimestamp = block.getLong();
+        if (latestLocationTimestamp != LocationHistory.NO_TIME) {
+            user.setLatestLocationTimestamp(new Date(latestLocationTimestamp));
+        }
+
+        UserPreferences userPreferences = new UserPreferences();
+        userPreferences.setAttractionProximity(block.getInt());
+        CurrencyUnit currency = Monetary.getCurrency(getString(block));
+        userPreferences.setLowerPricePoint(Money.of(new BigDecimal(getString(block)), currency));
+        userPreferences.setHighPricePoint(Money.of(new BigDecimal(getString(block)), currency));
+        userPreferences.setTripDuration(block.getInt());
+        userPreferences.setTicketQuantity(block.getInt());
+        userPreferences.setNumberOfAdults(block.getInt());
+        userPreferences.setNumberOfChildren(block.getInt());
+        user.setUserPreferences(userPreferences);
+
+        // Columns are copied in bulk rather than one entry at a time
+        int locationCount = block.getInt();
+        double[] latitudes = new double[locationCount];
+        double[] longitudes = new double[locationCount];
+        long[] timesMillis = new long[locationCount];
+        block.asDoubleBuffer().get(latitudes);
+        block.position(block.position() + locationCount * 8);
+        block.asDoubleBuffer().get(longitudes);
+        block.position(block.position() + locationCount * 8);
+        block.asLongBuffer().get(timesMillis);
+        block.position(block.position() + locationCount * 8);
+        user.addToVisitedLocations(latitudes, longitudes, timesMillis);
+
+        int rewardCount = block.getInt();
+        for (int i = 0; i < rewardCount; i++) {
+            double latitude = block.getDouble();
+            double longitude = block.getDouble();
+            long timeMillis = block.getLong();
+            VisitedLocation visitedLocation = new VisitedLocation(userId, new Location(latitude, longitude),
+                    timeMillis != LocationHistory.NO_TIME ? new Date(timeMillis) : null);
+            UUID attractionId = new UUID(block.getLong(), block.getLong());
+            double attractionLatitude = block.getDouble();
+            double attractionLongitude = block.getDouble();
+            Attraction attraction = new Attraction(getString(block), getString(block), getString(block),
+                    attractionLatitude, attractionLongitude);
+            attraction.attractionId = attractionId;
+            user.addUserReward(new UserReward(visitedLocation, attraction, block.getInt()));
+        }
+        return user;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static byte[] encode(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int stringBytes(byte[] value) {
+        return 4 + (value != null ? value.length : 0);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(value.length).put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
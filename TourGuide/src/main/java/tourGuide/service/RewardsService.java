@@ -1,35 +1,87 @@
 package tourGuide.service;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import tourGuide.cache.RewardPointsCache;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.catalog.AttractionSnapshot;
+import tourGuide.client.LocationClient;
+import tourGuide.client.RewardsClient;
 import tourGuide.domain.location.Attraction;
-import tourGuide.domain.location.AttractionListWrapper;
 import tourGuide.domain.location.Location;
 import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.user.LocationHistory;
 import tourGuide.domain.user.User;
 import tourGuide.domain.user.UserReward;
+import tourGuide.geo.GeoCircle;
+import tourGuide.geo.GeoMath;
+import tourGuide.geo.GeoPoint;
+import tourGuide.journal.Journal;
+import tourGuide.journal.NoOpJournal;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class RewardsService {
 
 	private final Logger logger = LoggerFactory.getLogger(RewardsService.class);
-	private final RestTemplate restTemplate;
-
-	private static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+	private final RewardsClient rewardsClient;
+	private final AttractionCatalog attractionCatalog;
+	private final RewardPointsCache rewardPointsCache;
+	private final Journal journal;
+	// Weakly keyed by user, so that the watermark of a removed user goes away with the user
+	private final ConcurrentMap<User, Watermark> rewardsWatermarks = Caffeine.newBuilder().weakKeys()
+			.<User, Watermark>build().asMap();
+	private final Queue<PendingRewardPoints> pendingRewardPoints = new ConcurrentLinkedQueue<>();
+	// Asynchronous scans would otherwise run on the thread that delivered the location, usually an event loop thread
+	private final ExecutorService scanExecutor = newScanExecutor();
 
 	// proximity in miles
 	private int defaultProximityBuffer = 10;
 	private int proximityBuffer = defaultProximityBuffer;
 	private int attractionProximityRange = 200;
+	private GeoMath.DistanceMode distanceMode = GeoMath.DistanceMode.HAVERSINE;
 
-	@Autowired
 	public RewardsService(RestTemplate restTemplate) {
-		this.restTemplate = restTemplate;
+		this(new RewardsClient(restTemplate), new AttractionCatalog(new LocationClient(restTemplate)), new RewardPointsCache());
+	}
+
+	public RewardsService(RewardsClient rewardsClient, AttractionCatalog attractionCatalog, RewardPointsCache rewardPointsCache) {
+		this(rewardsClient, attractionCatalog, rewardPointsCache, new NoOpJournal());
+	}
+
+	@Autowired
+	public RewardsService(RewardsClient rewardsClient, AttractionCatalog attractionCatalog, RewardPointsCache rewardPointsCache,
+						  Journal journal) {
+		this.rewardsClient = rewardsClient;
+		this.attractionCatalog = attractionCatalog;
+		this.rewardPointsCache = rewardPointsCache;
+		this.journal = journal;
+	}
+
+	public AttractionCatalog getAttractionCatalog() {
+		return attractionCatalog;
+	}
+
+	public Journal getJournal() {
+		return journal;
 	}
 
 	public void setProximityBuffer(int proximityBuffer) {
@@ -40,52 +92,317 @@ public class RewardsService {
 		proximityBuffer = defaultProximityBuffer;
 	}
 
-	// Optimized with foreach
+	/**
+	 * Sets how the distance from visited locations to attractions is measured when scanning for rewards
+	 * @param distanceMode
+	 */
+	@Value("${tourguide.geo.distance-mode:HAVERSINE}")
+	public void setDistanceMode(GeoMath.DistanceMode distanceMode) {
+		this.distanceMode = distanceMode;
+	}
+
 	public void calculateRewards(User user) {
-		List<VisitedLocation> userLocations = user.getVisitedLocations();
-		List<Attraction> attractions;
+		calculateRewards(user, false);
+	}
 
-		AttractionListWrapper attractionListWrapper = restTemplate.getForObject("http://localhost:8082/attractions", AttractionListWrapper.class);
-		attractions = attractionListWrapper.getAttractionList();
+	/**
+	 * Rewards the user for the attractions near their visited locations
+	 * @param user
+	 * @param fullRescan true to evaluate the whole location history instead of only the locations visited since the last call
+	 */
+	public void calculateRewards(User user, boolean fullRescan) {
+		RewardScan rewardScan = scanNewRewards(user, fullRescan, attractionCatalog.getSnapshot());
+		for (UserReward userReward : rewardScan.newRewards) {
+			RestClientException rewardPointsFailure = null;
+			try {
+				userReward.setRewardPoints(getRewardPoints(userReward.attraction, user));
+			} catch (RestClientException e) {
+				rewardPointsFailure = e;
+			}
+			addUserReward(user, userReward, rewardPointsFailure);
+		}
+		advanceWatermark(user, rewardScan);
+	}
 
-		userLocations.forEach(visitedLocation -> {
-			attractions.forEach(attraction -> {
-				if (user.getUserRewards().stream().filter(reward -> reward.attraction.attractionName.equals(attraction.attractionName)).count() == 0) {
-					if (nearAttraction(visitedLocation, attraction)) {
-						user.addUserReward(new UserReward(visitedLocation, attraction, getRewardPoints(attraction, user)));
+	/**
+	 * Rewards the user for the attractions near the locations visited since the last call, fetching all reward points
+	 * concurrently without blocking the caller; the locations are scanned on an executor of this service
+	 * @param user
+	 * @return future completed once the new rewards have been added to the user
+	 */
+	public CompletableFuture<Void> calculateRewardsAsync(User user) {
+		return attractionCatalog.getSnapshotAsync().thenComposeAsync(attractionSnapshot -> {
+			RewardScan rewardScan = scanNewRewards(user, false, attractionSnapshot);
+			// Each future completes with the failure to fetch the reward's points, or null once they are set
+			List<CompletableFuture<Throwable>> rewardPointsFailures = new ArrayList<>(rewardScan.newRewards.size());
+			for (UserReward userReward : rewardScan.newRewards) {
+				rewardPointsFailures.add(getRewardPointsAsync(userReward.attraction, user).handle((rewardPoints, throwable) -> {
+					if (throwable == null) {
+						userReward.setRewardPoints(rewardPoints);
 					}
+					return throwable;
+				}));
+			}
+			return CompletableFuture.allOf(rewardPointsFailures.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+				for (int i = 0; i < rewardScan.newRewards.size(); i++) {
+					addUserReward(user, rewardScan.newRewards.get(i), rewardPointsFailures.get(i).join());
 				}
+				advanceWatermark(user, rewardScan);
 			});
+		}, scanExecutor);
+	}
+
+	// One thread per processor as scans are pure computation; the threads stop when idle
+	private static ExecutorService newScanExecutor() {
+		int threads = Runtime.getRuntime().availableProcessors();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "rewards-scan");
+			thread.setDaemon(true);
+			return thread;
 		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	// Finds the rewards earned by the unevaluated locations; this is pure computation, points are fetched by the caller
+	private RewardScan scanNewRewards(User user, boolean fullRescan, AttractionSnapshot attractionSnapshot) {
+		LocationHistory.View userLocations = user.getLocationHistory();
+		int firstLocation = fullRescan ? 0 : firstUnevaluatedLocation(user, userLocations, attractionSnapshot);
+		RewardScan rewardScan = new RewardScan(userLocations, attractionSnapshot.getVersion(), proximityBuffer);
+		if (firstLocation == userLocations.size()) {
+			return rewardScan;
+		}
+
+		// Attractions already rewarded are filtered out by the user's reward ledger before the index computes any distance
+		Set<String> rewardedAttractions = new HashSet<>();
+
+		// The history is read straight from its primitive columns; a VisitedLocation is only created for a new reward
+		Location location = new Location();
+		for (int i = firstLocation; i < userLocations.size(); i++) {
+			location.latitude = userLocations.getLatitude(i);
+			location.longitude = userLocations.getLongitude(i);
+			List<Attraction> nearbyAttractions = attractionSnapshot.getGeoIndex().withinMiles(location, proximityBuffer,
+					distanceMode, attraction -> !user.hasUserReward(attraction.attractionName)
+							&& !rewardedAttractions.contains(attraction.attractionName));
+			VisitedLocation visitedLocation = null;
+			for (Attraction attraction : nearbyAttractions) {
+				if (rewardedAttractions.add(attraction.attractionName)) {
+					if (visitedLocation == null) {
+						visitedLocation = userLocations.getVisitedLocation(user.getUserId(), i);
+					}
+					rewardScan.newRewards.add(new UserReward(visitedLocation, attraction));
+				}
+			}
+		}
+		return rewardScan;
+	}
+
+	private void advanceWatermark(User user, RewardScan rewardScan) {
+		if (rewardScan.evaluatedLocations == 0) {
+			return;
+		}
+		rewardsWatermarks.merge(user, new Watermark(rewardScan.evaluatedLocations, rewardScan.lastLatitude,
+						rewardScan.lastLongitude, rewardScan.lastTimeMillis, rewardScan.attractionsVersion,
+						rewardScan.proximityBuffer),
+				(current, candidate) -> candidate.attractionsVersion != current.attractionsVersion
+						|| candidate.proximityBuffer != current.proximityBuffer
+						|| candidate.evaluatedLocations >= current.evaluatedLocations ? candidate : current);
+	}
+
+	/*
+	 * Journals the reward, and queues its points if they could not be fetched, only if the user did not get it in the
+	 * meantime from a concurrent calculation, e.g. by the tracker and a request
+	 */
+	private void addUserReward(User user, UserReward userReward, Throwable rewardPointsFailure) {
+		if (!user.addUserReward(userReward)) {
+			return;
+		}
+		if (rewardPointsFailure != null) {
+			deferRewardPoints(user, userReward, rewardPointsFailure);
+		}
+		journal.appendReward(user.getUserId(), userReward);
+	}
+
+	// The reward is kept without its points, which are filled in by a later fillPendingRewardPoints
+	private void deferRewardPoints(User user, UserReward userReward, Throwable cause) {
+		logger.debug("Reward points of " + userReward.attraction.attractionName + " for " + user.getUserName()
+				+ " deferred: " + cause.getMessage());
+		pendingRewardPoints.add(new PendingRewardPoints(user, userReward));
+	}
+
+	/**
+	 * Retries fetching the points of the rewards added while the rewards service was failing; the rewards that fail
+	 * again stay queued for the next call
+	 * @return future number of rewards whose points were filled in
+	 */
+	public CompletableFuture<Integer> fillPendingRewardPoints() {
+		List<CompletableFuture<Boolean>> filledRewards = new ArrayList<>();
+		for (int i = pendingRewardPoints.size(); i > 0; i--) {
+			PendingRewardPoints pending = pendingRewardPoints.poll();
+			if (pending == null) {
+				break;
+			}
+			filledRewards.add(getRewardPointsAsync(pending.userReward.attraction, pending.user).handle((rewardPoints, throwable) -> {
+				if (throwable != null) {
+					pendingRewardPoints.add(pending);
+					return false;
+				}
+				pending.user.setRewardPoints(pending.userReward, rewardPoints);
+				journal.appendReward(pending.user.getUserId(), pending.userReward);
+				return true;
+			}));
+		}
+		return CompletableFuture.allOf(filledRewards.toArray(new CompletableFuture<?>[0]))
+				.thenApply(ignored -> (int) filledRewards.stream().filter(CompletableFuture::join).count());
+	}
+
+	public int getPendingRewardPointsCount() {
+		return pendingRewardPoints.size();
+	}
+
+	public void resetRewardsWatermark(User user) {
+		rewardsWatermarks.remove(user);
+	}
+
+	/*
+	 * Falls back to a full re-scan if the history no longer matches the watermark, e.g. after it was cleared, or if
+	 * the evaluated locations could now earn other rewards, after a change of the attractions or of the proximity buffer
+	 */
+	int firstUnevaluatedLocation(User user, LocationHistory.View userLocations, AttractionSnapshot attractionSnapshot) {
+		Watermark watermark = rewardsWatermarks.get(user);
+		if (watermark == null || watermark.attractionsVersion != attractionSnapshot.getVersion()
+				|| watermark.proximityBuffer != proximityBuffer
+				|| watermark.evaluatedLocations > userLocations.size()
+				|| !watermark.matches(userLocations, watermark.evaluatedLocations - 1)) {
+			return 0;
+		}
+		return watermark.evaluatedLocations;
 	}
 
 	public int getRewardPoints(Attraction attraction, User user) {
-		String uri = "http://localhost:8083/reward-points?attractionId=" + attraction.attractionId +  "&userId=" + user.getUserId();
-		Integer requestResult = restTemplate.getForObject(uri, Integer.class);
+		Integer requestResult = rewardPointsCache.get(attraction.attractionId, user.getUserId(),
+				() -> rewardsClient.getRewardPoints(attraction.attractionId, user.getUserId()));
 		int rewardsPoints = requestResult;
 		return rewardsPoints;
 	}
 
+	/**
+	 * Gets reward points without blocking the caller, so that several lookups can be in flight at once; concurrent
+	 * lookups of the same points share one request
+	 * @param attraction
+	 * @param user
+	 * @return future reward points, already completed on a cache hit
+	 */
+	public CompletableFuture<Integer> getRewardPointsAsync(Attraction attraction, User user) {
+		return rewardPointsCache.getAsync(attraction.attractionId, user.getUserId(),
+				() -> rewardsClient.getRewardPointsAsync(attraction.attractionId, user.getUserId()));
+	}
+
+	public RewardPointsCache getRewardPointsCache() {
+		return rewardPointsCache;
+	}
+
+	/**
+	 * Checks whether a location is within the attraction proximity range of an attraction. The range is wider than the
+	 * distances the equirectangular mode is accurate for, so the great-circle distance is used whatever the distance mode
+	 * @param attraction
+	 * @param location
+	 * @return true if the location is close enough to the attraction
+	 */
 	public boolean isWithinAttractionProximity(Attraction attraction, Location location) {
-		return getDistance(attraction, location) > attractionProximityRange ? false : true;
+		return isWithinMiles(attraction, location, attractionProximityRange, GeoMath.DistanceMode.HAVERSINE);
 	}
 
+	/**
+	 * Checks whether a visited location is within the proximity buffer of an attraction, measured with the distance
+	 * mode, like the reward scans
+	 * @param visitedLocation
+	 * @param attraction
+	 * @return true if visiting the location earns the attraction's reward
+	 */
 	public boolean nearAttraction(VisitedLocation visitedLocation, Attraction attraction) {
-		return getDistance(attraction, visitedLocation.location) > proximityBuffer ? false : true;
+		return isWithinMiles(attraction, visitedLocation.location, proximityBuffer, distanceMode);
+	}
+
+	// Uses the attraction's circle from the catalog's index once the catalog is loaded, without ever loading it
+	private boolean isWithinMiles(Attraction attraction, Location location, double miles, GeoMath.DistanceMode distanceMode) {
+		AttractionSnapshot attractionSnapshot = attractionCatalog.getLoadedSnapshot();
+		if (attractionSnapshot == null) {
+			return new GeoCircle(GeoPoint.of(attraction), miles, distanceMode).contains(location);
+		}
+		return attractionSnapshot.getGeoIndex().isWithinMiles(attraction, location, miles, distanceMode);
 	}
 
 	public double getDistance(Location loc1, Location loc2) {
-		double lat1 = Math.toRadians(loc1.latitude);
-		double lon1 = Math.toRadians(loc1.longitude);
-		double lat2 = Math.toRadians(loc2.latitude);
-		double lon2 = Math.toRadians(loc2.longitude);
+		return GeoMath.distanceMiles(loc1, loc2);
+	}
 
-		double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
-				+ Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
+	/**
+	 * Number of visited locations already evaluated for a user, the last of them, and the attractions and proximity
+	 * buffer they were evaluated against
+	 */
+	private static final class Watermark {
 
-		double nauticalMiles = 60 * Math.toDegrees(angle);
-		double statuteMiles = STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
-		return statuteMiles;
+		private final int evaluatedLocations;
+		private final double lastLatitude;
+		private final double lastLongitude;
+		private final long lastTimeMillis;
+		private final long attractionsVersion;
+		private final int proximityBuffer;
+
+		private Watermark(int evaluatedLocations, double lastLatitude, double lastLongitude, long lastTimeMillis,
+						  long attractionsVersion, int proximityBuffer) {
+			this.evaluatedLocations = evaluatedLocations;
+			this.lastLatitude = lastLatitude;
+			this.lastLongitude = lastLongitude;
+			this.lastTimeMillis = lastTimeMillis;
+			this.attractionsVersion = attractionsVersion;
+			this.proximityBuffer = proximityBuffer;
+		}
+
+		private boolean matches(LocationHistory.View userLocations, int index) {
+			return userLocations.getTimeMillis(index) == lastTimeMillis
+					&& userLocations.getLatitude(index) == lastLatitude
+					&& userLocations.getLongitude(index) == lastLongitude;
+		}
 	}
 
+	/**
+	 * Reward added without its points
+	 */
+	private static final class PendingRewardPoints {
+
+		private final User user;
+		private final UserReward userReward;
+
+		private PendingRewardPoints(User user, UserReward userReward) {
+			this.user = user;
+			this.userReward = userReward;
+		}
+	}
+
+	/**
+	 * Rewards found for a user's unevaluated locations, and how far into the history the scan went
+	 */
+	private static final class RewardScan {
+
+		private final List<UserReward> newRewards = new ArrayList<>();
+		private final int evaluatedLocations;
+		private final double lastLatitude;
+		private final double lastLongitude;
+		private final long lastTimeMillis;
+		private final long attractionsVersion;
+		private final int proximityBuffer;
+
+		private RewardScan(LocationHistory.View userLocations, long attractionsVersion, int proximityBuffer) {
+			this.evaluatedLocations = userLocations.size();
+			this.attractionsVersion = attractionsVersion;
+			this.proximityBuffer = proximityBuffer;
+			int last = userLocations.size() - 1;
+			this.lastLatitude = last >= 0 ? userLocations.getLatitude(last) : 0;
+			this.lastLongitude = last >= 0 ? userLocations.getLongitude(last) : 0;
+			this.lastTimeMillis = last >= 0 ? userLocations.getTimeMillis(last) : 0;
+		}
+	}
 }
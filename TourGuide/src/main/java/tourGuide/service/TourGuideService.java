@@ -3,20 +3,37 @@ package tourGuide.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import tourGuide.cache.TripDealsCache;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.catalog.AttractionSnapshot;
+import tourGuide.client.LocationBatcher;
+import tourGuide.client.LocationClient;
+import tourGuide.client.TripPricerClient;
+import tourGuide.concurrent.Futures;
+import tourGuide.concurrent.SingleFlight;
 import tourGuide.domain.location.*;
 import tourGuide.domain.rewards.Provider;
-import tourGuide.domain.rewards.ProviderListWrapper;
+import tourGuide.domain.user.LocationHistory;
 import tourGuide.domain.user.User;
 import tourGuide.domain.user.UserPreferences;
 import tourGuide.domain.user.UserReward;
+import tourGuide.geo.TopK;
+import tourGuide.journal.Journal;
 import tourGuide.repository.TestUserRepository;
+import tourGuide.repository.UserStore;
+import tourGuide.repository.UserStoreSnapshot;
 import tourGuide.tracker.Tracker;
+import tourGuide.tracker.TrackerProperties;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
 
 @Service
 public class TourGuideService {
@@ -26,115 +43,276 @@ public class TourGuideService {
 	boolean testMode = true;
 
 	private TestUserRepository testUserRepository;
-	private final RestTemplate restTemplate;
+	private final UserStore userStore;
+	private final LocationClient locationClient;
+	private final LocationBatcher locationBatcher;
+	private final TripPricerClient tripPricerClient;
+	private final AttractionCatalog attractionCatalog;
+	private final Journal journal;
+	private final UserStoreSnapshot userStoreSnapshot;
+	private final TripDealsCache tripDealsCache;
+	// Concurrent tracking of the same user, e.g. by the tracker and a /location request, shares one location request
+	private final SingleFlight<UUID, VisitedLocation> userLocationRequests = new SingleFlight<>();
 
 	private int numberOfClosestAttractions = 5;
 
+	/**
+	 * @param userStoreSnapshot snapshot to start from and to write periodically and on shutdown, or null to start from
+	 * the journal and generated users only
+	 */
 	@Autowired
-	public TourGuideService(RewardsService rewardsService, TestUserRepository testUserRepository, RestTemplate restTemplate) {
+	public TourGuideService(RewardsService rewardsService, TestUserRepository testUserRepository, UserStore userStore,
+							LocationClient locationClient, LocationBatcher locationBatcher, TripPricerClient tripPricerClient,
+							AttractionCatalog attractionCatalog, TrackerProperties trackerProperties, Journal journal,
+							@Nullable UserStoreSnapshot userStoreSnapshot, TripDealsCache tripDealsCache) {
 		this.rewardsService = rewardsService;
 		this.testUserRepository = testUserRepository;
-		this.restTemplate = restTemplate;
+		this.userStore = userStore;
+		this.locationClient = locationClient;
+		this.locationBatcher = locationBatcher;
+		this.tripPricerClient = tripPricerClient;
+		this.attractionCatalog = attractionCatalog;
+		this.journal = journal;
+		this.userStoreSnapshot = userStoreSnapshot;
+		this.tripDealsCache = tripDealsCache;
 
-		if (testMode) {
+		// Users come back from the last snapshot, then from the journal records written after it, and take the place
+		// of freshly generated ones
+		if (userStoreSnapshot != null) {
+			try {
+				userStoreSnapshot.load(userStore);
+			} catch (IOException e) {
+				logger.warn("Unable to load the user store snapshot, starting without it: " + e.getMessage());
+			}
+		}
+		journal.replay(userStore);
+		if (testMode && userStore.size() == 0) {
 			logger.info("TestMode enabled");
 			logger.debug("Initializing users");
 			testUserRepository.initializeInternalUsers();
+			userStore.getUsers().forEach(this::journalUser);
 			logger.debug("Finished initializing users");
 		}
-		tracker = new Tracker(this, rewardsService);
+		tracker = new Tracker(this, rewardsService, trackerProperties);
+		if (userStoreSnapshot != null) {
+			userStoreSnapshot.start(userStore);
+		}
 		addShutDownHook();
 	}
 
 	public User getUser(String userName) {
-		return testUserRepository.getInternalUserMap().get(userName);
+		return userStore.getUser(userName);
+	}
+
+	public User getUserById(UUID userId) {
+		return userStore.getUserById(userId);
 	}
 
 	public List<User> getAllUsers() {
-		return testUserRepository.getInternalUserMap().values().stream().collect(Collectors.toList());
+		return new ArrayList<>(userStore.getUsers());
+	}
+
+	/**
+	 * @return live view of the users, to iterate over them without copying
+	 */
+	public Collection<User> getUsers() {
+		return userStore.getUsers();
 	}
 
 	public void addUser(User user) {
-		if(!testUserRepository.getInternalUserMap().containsKey(user.getUserName())) {
-			testUserRepository.getInternalUserMap().put(user.getUserName(), user);
+		if(userStore.addUser(user)) {
+			journalUser(user);
+			tracker.trackUser(user);
+		}
+	}
+
+	private void journalUser(User user) {
+		journal.appendUser(user);
+		LocationHistory.View locations = user.getLocationHistory();
+		for (int i = 0; i < locations.size(); i++) {
+			journal.appendLocation(user.getUserId(), i, locations.getLatitude(i), locations.getLongitude(i),
+					locations.getTimeMillis(i));
 		}
 	}
 
 	public VisitedLocation getUserLocation(User user) throws ExecutionException, InterruptedException {
-		VisitedLocation visitedLocation = (user.getVisitedLocations().size() > 0) ?
-				user.getLastVisitedLocation() :
-				trackUserLocation(user);
-		return visitedLocation;
+		VisitedLocation visitedLocation = user.getLastVisitedLocation();
+		return (visitedLocation != null) ? visitedLocation : trackUserLocation(user);
+	}
+
+	public CompletableFuture<VisitedLocation> getUserLocationAsync(User user) {
+		VisitedLocation visitedLocation = user.getLastVisitedLocation();
+		return (visitedLocation != null) ? CompletableFuture.completedFuture(visitedLocation) : trackUserLocationAsync(user);
 	}
 
 	public Map<String, Location> getAllUsersLocations() {
-		Map<String, Location> allUsersLocations = new HashMap<String, Location>();
-		for (User user : getAllUsers()) {
-			allUsersLocations.put(user.getUserId().toString(), (user.getVisitedLocations().size() > 0) ?
-					user.getLastVisitedLocation().location : null);
+		Map<String, Location> allUsersLocations = new HashMap<String, Location>(userStore.size() * 4 / 3 + 1);
+		try {
+			visitAllUsersLocations((userId, located, latitude, longitude) -> allUsersLocations.put(userId.toString(),
+					located ? new Location(latitude, longitude) : null));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
 		return allUsersLocations;
 	}
 
+	/**
+	 * Goes through the users' last-visited locations as the user store is iterated, without collecting them, so that
+	 * they can be streamed in constant memory
+	 * @param visitor
+	 * @throws IOException thrown by the visitor, which stops the visit
+	 */
+	public void visitAllUsersLocations(UserLocationVisitor visitor) throws IOException {
+		for (User user : userStore.getUsers()) {
+			LocationHistory.View locations = user.getLocationHistory();
+			int last = locations.size() - 1;
+			if (last >= 0) {
+				visitor.visit(user.getUserId(), true, locations.getLatitude(last), locations.getLongitude(last));
+			} else {
+				visitor.visit(user.getUserId(), false, 0, 0);
+			}
+		}
+	}
+
+	public interface UserLocationVisitor {
+
+		/**
+		 * @param userId
+		 * @param located false if the user has not visited any location yet
+		 * @param latitude
+		 * @param longitude
+		 */
+		void visit(UUID userId, boolean located, double latitude, double longitude) throws IOException;
+	}
+
 	public VisitedLocation trackUserLocation(User user) throws InterruptedException {
-		VisitedLocation visitedLocation = new VisitedLocation();
-		String requestURI = "http://localhost:8082/user-location?userId=" + user.getUserId();
+		return userLocationRequests.call(user.getUserId(), () -> {
+			VisitedLocation visitedLocation = locationClient.getUserLocation(user.getUserId());
+			int index = user.addToVisitedLocations(visitedLocation);
+			journal.appendLocation(user.getUserId(), index, visitedLocation);
+			rewardsService.calculateRewards(user);
+			return visitedLocation;
+		});
+	}
+
+	/**
+	 * Tracks a user's location without holding a thread while the location and rewards services answer
+	 * @param user
+	 * @return future visited location, completed once the user's rewards have been updated; cancelling it cancels the
+	 * location request if it has not been answered yet, whereas a location received is always recorded and rewarded
+	 */
+	public CompletableFuture<VisitedLocation> trackUserLocationAsync(User user) {
+		return userLocationRequests.callAsync(user.getUserId(), () -> {
+			CompletableFuture<VisitedLocation> location = locationClient.getUserLocationAsync(user.getUserId());
+			return Futures.cancelUpstream(location.thenCompose(visitedLocation -> {
+				int index = user.addToVisitedLocations(visitedLocation);
+				journal.appendLocation(user.getUserId(), index, visitedLocation);
+				return rewardsService.calculateRewardsAsync(user).thenApply(ignored -> visitedLocation);
+			}), location);
+		});
+	}
+
+	/**
+	 * Tracks many users with batch requests to the location service, then evaluates their rewards
+	 * @param users
+	 * @return the new visited locations, in the order of users
+	 */
+	public List<VisitedLocation> trackUserLocations(Collection<User> users) {
+		return join(trackUserLocationsAsync(users));
+	}
+
+	public CompletableFuture<List<VisitedLocation>> trackUserLocationsAsync(Collection<User> users) {
+		List<CompletableFuture<VisitedLocation>> trackedLocations = new ArrayList<>(users.size());
+		for (User user : users) {
+			trackedLocations.add(locationBatcher.submit(user.getUserId()).thenCompose(visitedLocation -> {
+				int index = user.addToVisitedLocations(visitedLocation);
+				journal.appendLocation(user.getUserId(), index, visitedLocation);
+				return rewardsService.calculateRewardsAsync(user).thenApply(ignored -> visitedLocation);
+			}));
+		}
+		locationBatcher.flush();
 
-		visitedLocation = restTemplate.getForObject(requestURI, VisitedLocation.class);
-		user.addToVisitedLocations(visitedLocation);
-		rewardsService.calculateRewards(user);
-		return visitedLocation;
+		return CompletableFuture.allOf(trackedLocations.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+			List<VisitedLocation> visitedLocations = new ArrayList<>(trackedLocations.size());
+			trackedLocations.forEach(trackedLocation -> visitedLocations.add(trackedLocation.join()));
+			return visitedLocations;
+		});
 	}
 
 	public List<UserReward> getUserRewards(User user) {
 		return user.getUserRewards();
 	}
 
+	// The pricer service is only called when the user's deals are not cached for their current preferences and points
 	public List<Provider> getTripDeals(User user) {
-		int cumulativeRewardPoints = user.getUserRewards().stream().mapToInt(i -> i.getRewardPoints()).sum();
+		int cumulativeRewardPoints = user.getCumulativeRewardPoints();
+		UserPreferences userPreferences = user.getUserPreferences();
 
-		List<Provider> providers;
-		String uri = "http://localhost:8084/trip-deals?tripPricerApiKey=" + testUserRepository.getTripPricerApiKey() +
-				"&userId=" + user.getUserId() + "&numberOfAdults=" + user.getUserPreferences().getNumberOfAdults() + "&numberOfChildren=" +
-				user.getUserPreferences().getNumberOfChildren() + "&tripDuration=" + user.getUserPreferences().getTripDuration() +
-				"&cumulativeRewardPoints=" + cumulativeRewardPoints;
-
-		ProviderListWrapper providerListWrapper = restTemplate.getForObject(uri, ProviderListWrapper.class);
-
-		providers = providerListWrapper.getProviderList();
+		List<Provider> providers = tripDealsCache.get(user.getUserId(), userPreferences, cumulativeRewardPoints,
+				() -> tripPricerClient.getTripDeals(testUserRepository.getTripPricerApiKey(), user.getUserId(),
+						userPreferences, cumulativeRewardPoints));
 		user.setTripDeals(providers);
 		return providers;
 	}
 
+	public CompletableFuture<List<Provider>> getTripDealsAsync(User user) {
+		int cumulativeRewardPoints = user.getCumulativeRewardPoints();
+		UserPreferences userPreferences = user.getUserPreferences();
+
+		CompletableFuture<List<Provider>> tripDeals = tripDealsCache.getAsync(user.getUserId(), userPreferences,
+				cumulativeRewardPoints, () -> tripPricerClient.getTripDealsAsync(testUserRepository.getTripPricerApiKey(),
+						user.getUserId(), userPreferences, cumulativeRewardPoints));
+		return Futures.cancelUpstream(tripDeals.thenApply(providers -> {
+			user.setTripDeals(providers);
+			return providers;
+		}), tripDeals);
+	}
+
 	public List<NearbyAttraction> getClosestAttractions(VisitedLocation visitedLocation, User user) {
-		List<Attraction> attractions;
-		List<NearbyAttraction> nearbyAttractions = new ArrayList<>();
-		Map<Double, Attraction> attractionsMap = new TreeMap<>();
+		return join(getClosestAttractionsAsync(attractionCatalog.getSnapshot(), visitedLocation, user));
+	}
 
-		AttractionListWrapper attractionListWrapper = restTemplate.getForObject("http://localhost:8082/attractions", AttractionListWrapper.class);
-		attractions = attractionListWrapper.getAttractionList();
+	/**
+	 * Keeps only the closest attractions in a bounded heap and fetches their reward points concurrently
+	 * @param visitedLocation
+	 * @param user
+	 * @return future nearby attractions, completed once all their reward points are known
+	 */
+	public CompletableFuture<List<NearbyAttraction>> getClosestAttractionsAsync(VisitedLocation visitedLocation, User user) {
+		return attractionCatalog.getSnapshotAsync().thenCompose(attractionSnapshot ->
+				getClosestAttractionsAsync(attractionSnapshot, visitedLocation, user));
+	}
 
-		for (Attraction attraction : attractions) {
-			attractionsMap.put(rewardsService.getDistance(attraction, visitedLocation.location), attraction);
+	private CompletableFuture<List<NearbyAttraction>> getClosestAttractionsAsync(AttractionSnapshot attractionSnapshot,
+																				 VisitedLocation visitedLocation, User user) {
+		TopK<Attraction> closestAttractions = attractionSnapshot.getGeoIndex()
+				.nearestNeighbors(visitedLocation.location, numberOfClosestAttractions);
+
+		List<CompletableFuture<Integer>> rewardPoints = new ArrayList<>(closestAttractions.size());
+		for (int i = 0; i < closestAttractions.size(); i++) {
+			rewardPoints.add(rewardsService.getRewardPointsAsync(closestAttractions.get(i), user));
 		}
 
-		attractionsMap.forEach((distance, attraction) -> {
-			if(nearbyAttractions.size() < numberOfClosestAttractions) {
+		return CompletableFuture.allOf(rewardPoints.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+			List<NearbyAttraction> nearbyAttractions = new ArrayList<>(closestAttractions.size());
+			for (int i = 0; i < closestAttractions.size(); i++) {
+				Attraction attraction = closestAttractions.get(i);
 				NearbyAttraction nearbyAttraction = new NearbyAttraction();
 				nearbyAttraction.setAttractionName(attraction.attractionName);
 				nearbyAttraction.setAttractionLocation(new Location(attraction.longitude, attraction.latitude));
 				nearbyAttraction.setUserLocation(visitedLocation.location);
-				nearbyAttraction.setAttractionDistance(distance);
-				nearbyAttraction.setAttractionRewardPoints(rewardsService.getRewardPoints(attraction, user));
+				nearbyAttraction.setAttractionDistance(closestAttractions.distance(i));
+				nearbyAttraction.setAttractionRewardPoints(rewardPoints.get(i).join());
 				nearbyAttractions.add(nearbyAttraction);
 			}
+			return nearbyAttractions;
 		});
-		return nearbyAttractions;
 	}
 
     public UserPreferences getUserPreferences(User user) {
-        if(testUserRepository.getInternalUserMap().containsKey(user.getUserName())) {
-            return testUserRepository.getInternalUserMap().get(user.getUserName()).getUserPreferences();
+        User storedUser = userStore.getUser(user.getUserName());
+        if(storedUser != null) {
+            return storedUser.getUserPreferences();
         }
         return null;
     }
@@ -142,13 +320,124 @@ public class TourGuideService {
 	public void setUserPreferences(String userName, UserPreferences userPreferences) {
 		User user = getUser(userName);
 		user.setUserPreferences(userPreferences);
+		tripDealsCache.invalidate(user.getUserId());
+	}
+
+	// Rethrows the original downstream exception rather than the CompletionException wrapping it
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
 	}
 
 	private void addShutDownHook() {
 		Runtime.getRuntime().addShutdownHook(new Thread() {
 			public void run() {
 				tracker.stopTracking();
+				if (userStoreSnapshot != null) {
+					userStoreSnapshot.stop();
+					try {
+						userStoreSnapshot.write(userStore);
+					} catch (IOException e) {
+						logger.warn("Unable to write the user store snapshot on shutdown: " + e.getMessage());
+					}
+				}
 			}
 		});
 	}
+
+	/**
+	 * Builds a service outside of Spring, e.g. in a test
+	 * @param rewardsService
+	 * @param testUserRepository
+	 * @return builder whose unset collaborators are created on a plain RestTemplate, or taken from the rewards service
+	 * and the user repository
+	 */
+	public static Builder builder(RewardsService rewardsService, TestUserRepository testUserRepository) {
+		return new Builder(rewardsService, testUserRepository);
+	}
+
+	public static final class Builder {
+
+		private final RewardsService rewardsService;
+		private final TestUserRepository testUserRepository;
+		private RestTemplate restTemplate;
+		private UserStore userStore;
+		private LocationClient locationClient;
+		private LocationBatcher locationBatcher;
+		private TripPricerClient tripPricerClient;
+		private TrackerProperties trackerProperties;
+		private UserStoreSnapshot userStoreSnapshot;
+		private TripDealsCache tripDealsCache;
+
+		private Builder(RewardsService rewardsService, TestUserRepository testUserRepository) {
+			this.rewardsService = rewardsService;
+			this.testUserRepository = testUserRepository;
+		}
+
+		/**
+		 * @param restTemplate template of the location and pricer clients that are not set
+		 * @return this builder
+		 */
+		public Builder restTemplate(RestTemplate restTemplate) {
+			this.restTemplate = restTemplate;
+			return this;
+		}
+
+		public Builder userStore(UserStore userStore) {
+			this.userStore = userStore;
+			return this;
+		}
+
+		public Builder locationClient(LocationClient locationClient) {
+			this.locationClient = locationClient;
+			return this;
+		}
+
+		public Builder locationBatcher(LocationBatcher locationBatcher) {
+			this.locationBatcher = locationBatcher;
+			return this;
+		}
+
+		public Builder tripPricerClient(TripPricerClient tripPricerClient) {
+			this.tripPricerClient = tripPricerClient;
+			return this;
+		}
+
+		public Builder trackerProperties(TrackerProperties trackerProperties) {
+			this.trackerProperties = trackerProperties;
+			return this;
+		}
+
+		public Builder userStoreSnapshot(UserStoreSnapshot userStoreSnapshot) {
+			this.userStoreSnapshot = userStoreSnapshot;
+			return this;
+		}
+
+		public Builder tripDealsCache(TripDealsCache tripDealsCache) {
+			this.tripDealsCache = tripDealsCache;
+			return this;
+		}
+
+		/**
+		 * Creates the service, which loads its users and starts tracking them
+		 * @return the service
+		 */
+		public TourGuideService build() {
+			RestTemplate template = restTemplate != null ? restTemplate : new RestTemplate();
+			LocationClient client = locationClient != null ? locationClient : new LocationClient(template);
+			return new TourGuideService(rewardsService, testUserRepository,
+					userStore != null ? userStore : testUserRepository.getUserStore(), client,
+					locationBatcher != null ? locationBatcher : new LocationBatcher(client),
+					tripPricerClient != null ? tripPricerClient : new TripPricerClient(template),
+					rewardsService.getAttractionCatalog(),
+					trackerProperties != null ? trackerProperties : new TrackerProperties(), rewardsService.getJournal(),
+					userStoreSnapshot, tripDealsCache != null ? tripDealsCache : new TripDealsCache());
+		}
+	}
 }
@@ -0,0 +1,65 @@
+package tourGuide.tracker;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hashed timing wheel spreading entries over a fixed number of slots, so that each slot can be processed at its own
+ * tick of a period. An entry's slot only depends on its key: adding or removing an entry never moves the others.
+ * @param <K> key of an entry, e.g. a user id
+ * @param <V> entry
+ */
+public class TimingWheel<K, V> {
+
+	private final Map<K, V>[] slots;
+
+	@SuppressWarnings("unchecked")
+	public TimingWheel(int slotCount) {
+		if (slotCount < 1) {
+			throw new IllegalArgumentException("A timing wheel needs at least one slot");
+		}
+		slots = (Map<K, V>[]) new Map<?, ?>[slotCount];
+		for (int i = 0; i < slotCount; i++) {
+			slots[i] = new ConcurrentHashMap<>();
+		}
+	}
+
+	public int getSlotCount() {
+		return slots.length;
+	}
+
+	public int slotOf(K key) {
+		int hash = key.hashCode();
+		// Spreads the high bits, as HashMap does, before reducing to a slot
+		return Math.floorMod(hash ^ (hash >>> 16), slots.length);
+	}
+
+	public void add(K key, V value) {
+		slots[slotOf(key)].put(key, value);
+	}
+
+	public V remove(K key) {
+		return slots[slotOf(key)].remove(key);
+	}
+
+	public boolean contains(K key) {
+		return slots[slotOf(key)].containsKey(key);
+	}
+
+	/**
+	 * @param slot
+	 * @return live view of the entries in a slot, weakly consistent with concurrent adds and removes
+	 */
+	public Collection<V> getSlot(int slot) {
+		return slots[slot].values();
+	}
+
+	public int size() {
+		int size = 0;
+		for (Map<K, V> slot : slots) {
+			size += slot.size();
+		}
+		return size;
+	}
+}
@@ -1,29 +1,71 @@
 package tourGuide.tracker;
 
-import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import tourGuide.concurrent.VirtualThreads;
 import tourGuide.domain.user.User;
 import tourGuide.service.RewardsService;
 import tourGuide.service.TourGuideService;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class Tracker extends Thread {
+public class Tracker {
 
 	private Logger logger = LoggerFactory.getLogger(Tracker.class);
-	private static final long trackingPollingInterval = TimeUnit.MINUTES.toSeconds(5);
-	private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+	private final long trackingPollingInterval;
+	private final ExecutorService executorService = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "tracker");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final ExecutorService workers;
+	private final Semaphore concurrencyLimit;
+	private final TimingWheel<UUID, User> timingWheel;
 	private final TourGuideService tourGuideService;
 	private final RewardsService rewardsService;
-	private boolean stop = false;
+	private final int batchSize;
+	private volatile boolean stop = false;
+
+	private final AtomicLong completedCycles = new AtomicLong();
+	private final AtomicLong mergedCycles = new AtomicLong();
+	private final AtomicLong failedUsers = new AtomicLong();
+	private volatile long lastCycleMillis;
 
 	public Tracker(TourGuideService tourGuideService, RewardsService rewardsService) {
+		this(tourGuideService, rewardsService, new TrackerProperties());
+	}
+
+	public Tracker(TourGuideService tourGuideService, RewardsService rewardsService, TrackerProperties trackerProperties) {
 		this.tourGuideService = tourGuideService;
 		this.rewardsService = rewardsService;
+		this.trackingPollingInterval = TimeUnit.SECONDS.toNanos(trackerProperties.getPollingIntervalSeconds());
+		this.batchSize = trackerProperties.getBatchSize();
+		this.timingWheel = new TimingWheel<>(trackerProperties.getWheelSlots());
+		tourGuideService.getUsers().forEach(this::trackUser);
+
+		if (trackerProperties.isVirtualThreads()) {
+			// A task per user on its own thread, the number of users tracked at once being bounded by the semaphore
+			if (!VirtualThreads.isAvailable()) {
+				logger.info("Virtual threads are not available on this runtime, tracking on platform threads");
+			}
+			this.workers = VirtualThreads.newThreadPerTaskExecutor("tracker-worker");
+			this.concurrencyLimit = new Semaphore(trackerProperties.getMaxConcurrency());
+		} else {
+			// Work waiting for a worker is bounded: the dispatcher blocks until the queue has room instead of the queue growing
+			this.workers = new ThreadPoolExecutor(trackerProperties.getWorkers(), trackerProperties.getWorkers(),
+					0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(trackerProperties.getQueueCapacity()), runnable -> {
+						Thread thread = new Thread(runnable, "tracker-worker");
+						thread.setDaemon(true);
+						return thread;
+					}, Tracker::awaitQueueSlot);
+			this.concurrencyLimit = null;
+		}
 
-		executorService.submit(this);
+		executorService.submit(this::run);
 	}
 
 	/**
@@ -32,41 +74,173 @@ public class Tracker extends Thread {
 	public void stopTracking() {
 		stop = true;
 		executorService.shutdownNow();
+		workers.shutdownNow();
+	}
+
+	/**
+	 * Schedules a user in its slot of the polling interval, without moving any other user
+	 * @param user
+	 */
+	public void trackUser(User user) {
+		timingWheel.add(user.getUserId(), user);
+	}
+
+	public void untrackUser(User user) {
+		timingWheel.remove(user.getUserId());
+	}
+
+	public int getTrackedUserCount() {
+		return timingWheel.size();
+	}
+
+	public long getCompletedCycles() {
+		return completedCycles.get();
+	}
+
+	public long getMergedCycles() {
+		return mergedCycles.get();
+	}
+
+	public long getFailedUsers() {
+		return failedUsers.get();
+	}
+
+	public long getLastCycleMillis() {
+		return lastCycleMillis;
 	}
 
-	@Override
-	public void run() {
-		StopWatch stopWatch = new StopWatch();
+	private void run() {
 		while(true) {
 			if(Thread.currentThread().isInterrupted() || stop) {
 				logger.debug("Tracker stopping");
 				break;
 			}
 
-			List<User> users = tourGuideService.getAllUsers();
-			logger.debug("Begin Tracker. Tracking " + users.size() + " users.");
-			stopWatch.start();
+			long cycleStart = System.nanoTime();
+			try {
+				trackAllUsers(cycleStart);
+			} catch (InterruptedException e) {
+				break;
+			}
+			lastCycleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - cycleStart);
+			completedCycles.incrementAndGet();
+			logger.debug("Tracker Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(lastCycleMillis) + " seconds.");
 
-			// Execute trackUserLocation for each user in users on a concurrent thread
-			for (User user : users) {
-				Runnable runnable = () -> {
+			// A cycle that overran the polling interval is followed immediately by a single cycle for all the missed ones
+			long sleepNanos = cycleStart + trackingPollingInterval - System.nanoTime();
+			if (sleepNanos <= 0) {
+				long missed = (System.nanoTime() - cycleStart) / Math.max(1, trackingPollingInterval);
+				mergedCycles.addAndGet(missed);
+				logger.warn("Tracker cycle took " + lastCycleMillis + " ms, longer than the polling interval; merging "
+						+ missed + " missed cycle(s) into the next one");
+				continue;
+			}
+			try {
+				logger.debug("Tracker sleeping");
+				TimeUnit.NANOSECONDS.sleep(sleepNanos);
+			} catch (InterruptedException e) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Turns the timing wheel once over the polling interval, dispatching each slot's users to the worker pool at the
+	 * slot's tick, so that downstream services see a steady rate of requests instead of a burst every cycle.
+	 * Returns once every user dispatched during the turn has been tracked.
+	 */
+	private void trackAllUsers(long cycleStart) throws InterruptedException {
+		logger.debug("Begin Tracker. Tracking " + timingWheel.size() + " users.");
+
+		int slotCount = timingWheel.getSlotCount();
+		Semaphore trackedChunks = new Semaphore(0);
+		int dispatchedChunks = 0;
+		for (int slot = 0; slot < slotCount; slot++) {
+			long tickNanos = cycleStart + trackingPollingInterval * slot / slotCount - System.nanoTime();
+			if (tickNanos > 0) {
+				TimeUnit.NANOSECONDS.sleep(tickNanos);
+			}
+			dispatchedChunks += dispatch(new ArrayList<>(timingWheel.getSlot(slot)), trackedChunks);
+		}
+		trackedChunks.acquire(dispatchedChunks);
+		fillPendingRewardPoints();
+	}
+
+	// Rewards whose points could not be fetched during the cycle get another chance once it is over
+	private void fillPendingRewardPoints() {
+		if (rewardsService.getPendingRewardPointsCount() == 0) {
+			return;
+		}
+		try {
+			int filledRewards = rewardsService.fillPendingRewardPoints().join();
+			logger.debug("Filled in the points of " + filledRewards + " rewards, "
+					+ rewardsService.getPendingRewardPointsCount() + " still pending");
+		} catch (RuntimeException e) {
+			logger.warn("Unable to fill in pending reward points: " + e.getMessage());
+		}
+	}
+
+	private int dispatch(List<User> users, Semaphore trackedChunks) throws InterruptedException {
+		int chunkSize = Math.max(1, batchSize);
+		int chunks = 0;
+		for (int from = 0; from < users.size(); from += chunkSize) {
+			List<User> chunk = users.subList(from, Math.min(users.size(), from + chunkSize));
+			if (concurrencyLimit != null) {
+				concurrencyLimit.acquire();
+			}
+			try {
+				workers.execute(() -> {
 					try {
-						tourGuideService.trackUserLocation(user);
-					} catch (InterruptedException e) {
-						e.printStackTrace();
+						track(chunk);
+					} finally {
+						if (concurrencyLimit != null) {
+							concurrencyLimit.release();
+						}
+						trackedChunks.release();
 					}
-				};
-				executorService.execute(runnable);
+				});
+			} catch (RejectedExecutionException e) {
+				if (concurrencyLimit != null) {
+					concurrencyLimit.release();
+				}
+				throw new InterruptedException("Tracker workers shut down");
 			}
+			chunks++;
+		}
+		return chunks;
+	}
+
+	private static void awaitQueueSlot(Runnable runnable, ThreadPoolExecutor executor) {
+		if (executor.isShutdown()) {
+			throw new RejectedExecutionException("Tracker workers shut down");
+		}
+		try {
+			executor.getQueue().put(runnable);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for a tracker worker", e);
+		}
+	}
 
-			stopWatch.stop();
-			logger.debug("Tracker Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()) + " seconds.");
-			stopWatch.reset();
+	private void track(List<User> chunk) {
+		if (batchSize > 0) {
 			try {
-				logger.debug("Tracker sleeping");
-				TimeUnit.SECONDS.sleep(trackingPollingInterval);
+				tourGuideService.trackUserLocations(chunk);
+			} catch (RuntimeException e) {
+				failedUsers.addAndGet(chunk.size());
+				logger.warn("Unable to track a batch of " + chunk.size() + " users: " + e.getMessage());
+			}
+			return;
+		}
+		for (User user : chunk) {
+			try {
+				tourGuideService.trackUserLocation(user);
 			} catch (InterruptedException e) {
-				break;
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				failedUsers.incrementAndGet();
+				logger.warn("Unable to track user " + user.getUserName() + ": " + e.getMessage());
 			}
 		}
 	}
@@ -0,0 +1,77 @@
+package tourGuide.tracker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tuning of the tracker, see the tourguide.tracker.* properties
+ */
+public class TrackerProperties {
+
+	private long pollingIntervalSeconds = TimeUnit.MINUTES.toSeconds(5);
+	private int workers = 32;
+	private int queueCapacity = 1000;
+	private int batchSize = 0;
+	private int wheelSlots = 300;
+	private boolean virtualThreads = false;
+	private int maxConcurrency = 1000;
+
+	public long getPollingIntervalSeconds() {
+		return pollingIntervalSeconds;
+	}
+
+	public void setPollingIntervalSeconds(long pollingIntervalSeconds) {
+		this.pollingIntervalSeconds = pollingIntervalSeconds;
+	}
+
+	public int getWorkers() {
+		return workers;
+	}
+
+	public void setWorkers(int workers) {
+		this.workers = workers;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	// Number of users per batch location request, or 0 to track users one at a time
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	// Number of ticks the polling interval is divided into, each tracking the users hashed to it
+	public int getWheelSlots() {
+		return wheelSlots;
+	}
+
+	public void setWheelSlots(int wheelSlots) {
+		this.wheelSlots = wheelSlots;
+	}
+
+	// Tracks each user on its own virtual thread instead of the fixed pool of workers
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	// Number of users tracked at once on virtual threads
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	public void setMaxConcurrency(int maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+	}
+}
@@ -4,10 +4,12 @@ import org.apache.commons.lang3.time.StopWatch;
 import org.junit.Test;
 import org.junit.Ignore;
 import org.springframework.web.client.RestTemplate;
+import tourGuide.concurrent.VirtualThreads;
 import tourGuide.domain.location.Attraction;
 import tourGuide.domain.location.VisitedLocation;
 import tourGuide.domain.user.User;
 import tourGuide.helper.InternalTestHelper;
+import tourGuide.repository.InMemoryUserStore;
 import tourGuide.repository.TestUserRepository;
 import tourGuide.service.RewardsService;
 import tourGuide.service.TourGuideService;
@@ -41,6 +43,23 @@ public class TestPerformance {
 	 *          assertTrue(TimeUnit.MINUTES.toSeconds(20) >= TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
 	 */
 
+	@Ignore
+	@Test
+	public void highVolumeGenerateUsers() {
+		int internalUserNumber = InternalTestHelper.getInternalUserNumber();
+		InternalTestHelper.setInternalUserNumber(1000000);
+		TestUserRepository testUserRepository = new TestUserRepository(new InMemoryUserStore(1000000));
+
+		StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+		testUserRepository.initializeInternalUsers();
+		stopWatch.stop();
+		InternalTestHelper.setInternalUserNumber(internalUserNumber);
+
+		System.out.println("highVolumeGenerateUsers: Time Elapsed: " + stopWatch.getTime() + " ms.");
+		assertTrue(TimeUnit.SECONDS.toMillis(10) >= stopWatch.getTime());
+	}
+
 	@Ignore
 	@Test
 	public void highVolumeTrackLocation() throws ExecutionException, InterruptedException {
@@ -50,7 +69,8 @@ public class TestPerformance {
 
 		// Users should be incremented up to 100,000, and test finishes within 15 minutes
 		InternalTestHelper.setInternalUserNumber(100000);
-		TourGuideService tourGuideService = new TourGuideService(rewardsService, testUserRepository, restTemplate);
+		TourGuideService tourGuideService = TourGuideService.builder(rewardsService, testUserRepository)
+				.restTemplate(restTemplate).build();
 
 		List<User> allUsers = tourGuideService.getAllUsers();
 		ExecutorService executorService = Executors.newFixedThreadPool(32);
@@ -87,7 +107,8 @@ public class TestPerformance {
 
 		// Users should be incremented up to 100,000, and test finishes within 20 minutes
 		InternalTestHelper.setInternalUserNumber(100000);
-		TourGuideService tourGuideService = new TourGuideService(rewardsService, testUserRepository, restTemplate);
+		TourGuideService tourGuideService = TourGuideService.builder(rewardsService, testUserRepository)
+				.restTemplate(restTemplate).build();
 		tourGuideService.tracker.stopTracking();
 
 		// Subbing in the first Attraction in the list of attractions
@@ -121,4 +142,100 @@ public class TestPerformance {
 		assertTrue(TimeUnit.MINUTES.toSeconds(20) >= TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
 	}
 
-}
\ No newline at end of file
+	/*
+	 * Each mode runs twice, against its own service and users built for that run, and in alternating order, so that
+	 * neither mode gets the warmed-up JIT, the longer histories or the already computed rewards of the other
+	 */
+	@Ignore
+	@Test
+	public void highVolumeTrackLocation_platformVersusVirtualThreads() throws InterruptedException {
+		UserTask trackUserLocation = (tourGuideService, rewardsService, user) -> tourGuideService.trackUserLocation(user);
+		long[] millis = comparePlatformAndVirtualThreads(trackUserLocation);
+
+		printComparison("highVolumeTrackLocation", millis);
+		assertTrue(TimeUnit.MINUTES.toMillis(15) >= millis[0]);
+		assertTrue(TimeUnit.MINUTES.toMillis(15) >= millis[1]);
+	}
+
+	@Ignore
+	@Test
+	public void highVolumeGetRewards_platformVersusVirtualThreads() throws InterruptedException {
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595D, -117.922008D);
+		UserTask calculateRewards = (tourGuideService, rewardsService, user) -> {
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+			rewardsService.calculateRewards(user);
+		};
+		long[] millis = comparePlatformAndVirtualThreads(calculateRewards);
+
+		printComparison("highVolumeGetRewards", millis);
+		assertTrue(TimeUnit.MINUTES.toMillis(20) >= millis[0]);
+		assertTrue(TimeUnit.MINUTES.toMillis(20) >= millis[1]);
+	}
+
+	/**
+	 * Work done for each user of a run
+	 */
+	private interface UserTask {
+		void run(TourGuideService tourGuideService, RewardsService rewardsService, User user) throws InterruptedException;
+	}
+
+	/*
+	 * Fixed pool of 32 platform threads, as above, against one thread per user limited to 1000 concurrent users
+	 * @return mean time of the platform threads runs, then of the virtual threads runs
+	 */
+	private long[] comparePlatformAndVirtualThreads(UserTask userTask) throws InterruptedException {
+		long[] millis = new long[2];
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < 2; i++) {
+				boolean virtualThreads = (round + i) % 2 == 1;
+				millis[virtualThreads ? 1 : 0] += runForAllUsers(userTask, virtualThreads) / 2;
+			}
+		}
+		return millis;
+	}
+
+	private long runForAllUsers(UserTask userTask, boolean virtualThreads) throws InterruptedException {
+		RestTemplate restTemplate = new RestTemplate();
+		InternalTestHelper.setInternalUserNumber(100000);
+		RewardsService rewardsService = new RewardsService(restTemplate);
+		TourGuideService tourGuideService = TourGuideService.builder(rewardsService, new TestUserRepository())
+				.restTemplate(restTemplate).build();
+		tourGuideService.tracker.stopTracking();
+		List<User> allUsers = tourGuideService.getAllUsers();
+		ExecutorService executorService = virtualThreads ? VirtualThreads.newThreadPerTaskExecutor("tracker-worker") :
+				Executors.newFixedThreadPool(32);
+		Semaphore concurrencyLimit = virtualThreads ? new Semaphore(1000) : null;
+
+		StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+
+		for (User user : allUsers) {
+			if (concurrencyLimit != null) {
+				concurrencyLimit.acquire();
+			}
+			executorService.execute(() -> {
+				try {
+					userTask.run(tourGuideService, rewardsService, user);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					if (concurrencyLimit != null) {
+						concurrencyLimit.release();
+					}
+				}
+			});
+		}
+		executorService.shutdown();
+		executorService.awaitTermination(20, TimeUnit.MINUTES);
+
+		stopWatch.stop();
+		return stopWatch.getTime();
+	}
+
+	private static void printComparison(String testName, long[] millis) {
+		System.out.println(testName + ": platform threads: " + TimeUnit.MILLISECONDS.toSeconds(millis[0])
+				+ " seconds, " + (VirtualThreads.isAvailable() ? "virtual" : "unbounded platform") + " threads: "
+				+ TimeUnit.MILLISECONDS.toSeconds(millis[1]) + " seconds.");
+	}
+
+}
@@ -0,0 +1,75 @@
+package tourGuide.cache;
+
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestRewardPointsCache {
+
+	@Test
+	public void get_samePairTwice_loaderCalledOnce() {
+		// arrange
+		RewardPointsCache rewardPointsCache = new RewardPointsCache(100, 60);
+		UUID attractionId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+		AtomicInteger loads = new AtomicInteger();
+
+		// act
+		int first = rewardPointsCache.get(attractionId, userId, () -> 100 + loads.incrementAndGet());
+		int second = rewardPointsCache.get(attractionId, userId, () -> 100 + loads.incrementAndGet());
+
+		// assert
+		assertEquals(1, loads.get());
+		assertEquals(first, second);
+		assertEquals(1, rewardPointsCache.missCount());
+		assertEquals(1, rewardPointsCache.hitCount());
+	}
+
+	@Test
+	public void get_differentUsers_pointsCachedSeparately() {
+		// arrange
+		RewardPointsCache rewardPointsCache = new RewardPointsCache(100, 60);
+		UUID attractionId = UUID.randomUUID();
+
+		// act
+		int first = rewardPointsCache.get(attractionId, UUID.randomUUID(), () -> 1);
+		int second = rewardPointsCache.get(attractionId, UUID.randomUUID(), () -> 2);
+
+		// assert
+		assertEquals(1, first);
+		assertEquals(2, second);
+		assertEquals(2, rewardPointsCache.missCount());
+	}
+
+	@Test
+	public void getAsync_concurrentMissesForSamePair_oneLoad() throws Exception {
+		// arrange
+		RewardPointsCache rewardPointsCache = new RewardPointsCache(100, 60);
+		UUID attractionId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+		AtomicInteger loads = new AtomicInteger();
+		CompletableFuture<Integer> response = new CompletableFuture<>();
+
+		// act
+		CompletableFuture<Integer> first = rewardPointsCache.getAsync(attractionId, userId, () -> {
+			loads.incrementAndGet();
+			return response;
+		});
+		CompletableFuture<Integer> second = rewardPointsCache.getAsync(attractionId, userId, () -> {
+			loads.incrementAndGet();
+			return CompletableFuture.completedFuture(0);
+		});
+		response.complete(300);
+
+		// assert
+		assertEquals(300, (int) first.get(1, TimeUnit.SECONDS));
+		assertEquals(300, (int) second.get(1, TimeUnit.SECONDS));
+		assertEquals(1, loads.get());
+		assertEquals(300, (int) rewardPointsCache.getIfPresent(attractionId, userId));
+	}
+}
@@ -0,0 +1,111 @@
+package tourGuide.cache;
+
+import org.junit.Test;
+import tourGuide.domain.rewards.Provider;
+import tourGuide.domain.user.UserPreferences;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestTripDealsCache {
+
+	private final UUID userId = UUID.randomUUID();
+	private final UserPreferences userPreferences = new UserPreferences();
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private List<Provider> loadTripDeals() {
+		return Collections.singletonList(new Provider(UUID.randomUUID(), "Provider " + loads.incrementAndGet(), 100));
+	}
+
+	@Test
+	public void get_sameInputsTwice_loaderCalledOnce() {
+		// arrange
+		TripDealsCache tripDealsCache = new TripDealsCache(100, 60, 60);
+
+		// act
+		List<Provider> first = tripDealsCache.get(userId, userPreferences, 10, this::loadTripDeals);
+		List<Provider> second = tripDealsCache.get(userId, userPreferences, 10, this::loadTripDeals);
+
+		// assert
+		assertEquals(1, loads.get());
+		assertSame(first, second);
+	}
+
+	@Test
+	public void get_rewardPointsOrPreferencesChanged_dealsLoadedAgain() {
+		// arrange
+		TripDealsCache tripDealsCache = new TripDealsCache(100, 60, 60);
+		tripDealsCache.get(userId, userPreferences, 10, this::loadTripDeals);
+
+		// act
+		tripDealsCache.get(userId, userPreferences, 20, this::loadTripDeals);
+		userPreferences.setNumberOfChildren(2);
+		List<Provider> tripDeals = tripDealsCache.get(userId, userPreferences, 20, this::loadTripDeals);
+
+		// assert
+		assertEquals(3, loads.get());
+		assertEquals("Provider 3", tripDeals.get(0).name);
+	}
+
+	@Test
+	public void invalidate_cachedDeals_dealsLoadedAgain() {
+		// arrange
+		TripDealsCache tripDealsCache = new TripDealsCache(100, 60, 60);
+		tripDealsCache.get(userId, userPreferences, 10, this::loadTripDeals);
+
+		// act
+		tripDealsCache.invalidate(userId);
+		tripDealsCache.get(userId, userPreferences, 10, this::loadTripDeals);
+
+		// assert
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void getAsync_staleDeals_servedWhileRefreshed() throws Exception {
+		// arrange
+		TripDealsCache tripDealsCache = new TripDealsCache(100, 0, 60);
+		tripDealsCache.getAsync(userId, userPreferences, 10, () -> CompletableFuture.completedFuture(loadTripDeals())).get();
+		CompletableFuture<List<Provider>> refresh = new CompletableFuture<>();
+
+		// act
+		List<Provider> stale = tripDealsCache.getAsync(userId, userPreferences, 10, () -> refresh).get(1, TimeUnit.SECONDS);
+		refresh.complete(loadTripDeals());
+		List<Provider> refreshed = tripDealsCache.getAsync(userId, userPreferences, 10,
+				() -> CompletableFuture.completedFuture(loadTripDeals())).get();
+
+		// assert
+		assertEquals("Provider 1", stale.get(0).name);
+		assertEquals("Provider 2", refreshed.get(0).name);
+		assertEquals(2, tripDealsCache.staleHitCount());
+	}
+
+	@Test
+	public void get_staleDealsRefreshFails_refreshedOnExecutorAndStaleDealsServed() {
+		// arrange
+		AtomicInteger refreshes = new AtomicInteger();
+		TripDealsCache tripDealsCache = new TripDealsCache(100, 0, 60, runnable -> {
+			refreshes.incrementAndGet();
+			runnable.run();
+		});
+		tripDealsCache.get(userId, userPreferences, 10, this::loadTripDeals);
+
+		// act
+		List<Provider> first = tripDealsCache.get(userId, userPreferences, 10, () -> {
+			throw new IllegalStateException("pricer service down");
+		});
+		List<Provider> second = tripDealsCache.get(userId, userPreferences, 10, this::loadTripDeals);
+
+		// assert
+		assertEquals("Provider 1", first.get(0).name);
+		assertEquals("Provider 1", second.get(0).name);
+		assertEquals(2, refreshes.get());
+		assertEquals("Provider 2", tripDealsCache.get(userId, userPreferences, 10, this::loadTripDeals).get(0).name);
+	}
+}
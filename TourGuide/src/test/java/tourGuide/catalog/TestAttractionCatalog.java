@@ -0,0 +1,166 @@
+package tourGuide.catalog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import tourGuide.client.LocationClient;
+import tourGuide.client.LocationServiceStub;
+import tourGuide.domain.location.Attraction;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class TestAttractionCatalog {
+
+	private static final String attractionsURI = "http://localhost:8082/attractions";
+	private static final String attractionsJson = "{\"attractionList\":[" +
+			"{\"attractionName\":\"Disneyland\",\"city\":\"Anaheim\",\"state\":\"CA\",\"latitude\":33.817595,\"longitude\":-117.922008," +
+			"\"attractionId\":\"8dcabd60-a9f5-40b0-8413-49b892449470\"}]}";
+
+	private MockRestServiceServer server;
+	private AttractionCatalog attractionCatalog;
+
+	@Before
+	public void setup() {
+		RestTemplate restTemplate = new RestTemplate();
+		server = MockRestServiceServer.bindTo(restTemplate).build();
+		attractionCatalog = new AttractionCatalog(new LocationClient(restTemplate), 0);
+	}
+
+	@After
+	public void tearDown() {
+		attractionCatalog.shutdown();
+	}
+
+	@Test
+	public void getAttractions_calledTwice_attractionsFetchedOnce() {
+		// arrange
+		server.expect(requestTo(attractionsURI)).andRespond(withSuccess(attractionsJson, MediaType.APPLICATION_JSON));
+
+		// act
+		List<Attraction> first = attractionCatalog.getAttractions();
+		List<Attraction> second = attractionCatalog.getAttractions();
+
+		// assert
+		server.verify();
+		assertEquals(1, first.size());
+		assertSame(first, second);
+		assertEquals(1, attractionCatalog.getVersion());
+	}
+
+	@Test
+	public void refresh_locationServiceDown_lastSnapshotServed() {
+		// arrange
+		server.expect(requestTo(attractionsURI)).andRespond(withSuccess(attractionsJson, MediaType.APPLICATION_JSON));
+		server.expect(requestTo(attractionsURI)).andRespond(withServerError());
+		List<Attraction> loaded = attractionCatalog.getAttractions();
+
+		// act
+		boolean refreshed = attractionCatalog.refresh();
+
+		// assert
+		server.verify();
+		assertFalse(refreshed);
+		assertSame(loaded, attractionCatalog.getAttractions());
+	}
+
+	@Test
+	public void refresh_versionNotModified_snapshotKept() {
+		// arrange
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag("\"v1\"");
+		server.expect(requestTo(attractionsURI))
+				.andRespond(withSuccess(attractionsJson, MediaType.APPLICATION_JSON).headers(headers));
+		server.expect(requestTo(attractionsURI)).andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+				.andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+		AttractionSnapshot loaded = attractionCatalog.getSnapshot();
+
+		// act
+		boolean refreshed = attractionCatalog.refresh();
+
+		// assert
+		server.verify();
+		assertTrue(refreshed);
+		assertSame(loaded, attractionCatalog.getSnapshot());
+	}
+
+	@Test
+	public void refresh_attractionsChanged_newVersionSwappedIn() {
+		// arrange
+		String changedJson = attractionsJson.replace("Disneyland", "Disneyland Park");
+		server.expect(requestTo(attractionsURI)).andRespond(withSuccess(attractionsJson, MediaType.APPLICATION_JSON));
+		server.expect(requestTo(attractionsURI)).andRespond(withSuccess(changedJson, MediaType.APPLICATION_JSON));
+		attractionCatalog.getSnapshot();
+
+		// act
+		attractionCatalog.refresh();
+
+		// assert
+		assertEquals(2, attractionCatalog.getVersion());
+		assertEquals("Disneyland Park", attractionCatalog.getAttractions().get(0).attractionName);
+	}
+
+	@Test
+	public void getSnapshotAsync_calledTwice_attractionsFetchedOnce() throws Exception {
+		// arrange
+		LocationServiceStub locationServiceStub = new LocationServiceStub();
+		locationServiceStub.setAttractions(Collections.singletonList(
+				new Attraction("Disneyland", "Anaheim", "CA", 33.817595D, -117.922008D)));
+		AttractionCatalog stubAttractionCatalog = new AttractionCatalog(new LocationClient(new RestTemplate(),
+				WebClient.create(), locationServiceStub.getURI()), 0);
+
+		// act
+		AttractionSnapshot first = stubAttractionCatalog.getSnapshotAsync().get(5, TimeUnit.SECONDS);
+		CompletableFuture<AttractionSnapshot> second = stubAttractionCatalog.getSnapshotAsync();
+
+		// assert
+		locationServiceStub.stop();
+		stubAttractionCatalog.shutdown();
+		assertEquals("Disneyland", first.getAttractions().get(0).attractionName);
+		assertEquals(1, first.getVersion());
+		assertTrue(second.isDone());
+		assertSame(first, second.get());
+	}
+
+	@Test
+	public void getSnapshotAsync_locationServiceDown_futureFails() throws IOException, InterruptedException {
+		// arrange
+		LocationServiceStub locationServiceStub = new LocationServiceStub();
+		AttractionCatalog stubAttractionCatalog = new AttractionCatalog(new LocationClient(new RestTemplate(),
+				WebClient.create(), locationServiceStub.getURI()), 0);
+		locationServiceStub.stop();
+
+		// act
+		Throwable failure = null;
+		try {
+			stubAttractionCatalog.getSnapshotAsync().get(5, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			failure = e.getCause();
+		} catch (TimeoutException e) {
+			fail("Future neither completed nor failed");
+		}
+
+		// assert
+		stubAttractionCatalog.shutdown();
+		assertNotNull(failure);
+		assertEquals(0, stubAttractionCatalog.getVersion());
+	}
+}
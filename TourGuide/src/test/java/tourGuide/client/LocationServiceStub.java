@@ -0,0 +1,94 @@
+package tourGuide.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.AttractionListWrapper;
+import tourGuide.domain.location.Location;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.location.VisitedLocationListWrapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the location service, serving random locations and a settable attraction list, empty by default
+ */
+public class LocationServiceStub extends ServiceStub {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final AtomicInteger userLocationRequests = new AtomicInteger();
+	private final AtomicInteger batchRequests = new AtomicInteger();
+	private final List<Integer> batchSizes = new ArrayList<>();
+	private volatile List<Attraction> attractions = new ArrayList<>();
+	private volatile boolean emptyBatchResponses;
+
+	public LocationServiceStub() throws IOException {
+		handle("/user-location", exchange -> {
+			userLocationRequests.incrementAndGet();
+			String query = exchange.getRequestURI().getQuery();
+			UUID userId = UUID.fromString(query.substring(query.indexOf('=') + 1));
+			respond(exchange, randomLocation(userId));
+		});
+		handle("/user-locations", exchange -> {
+			batchRequests.incrementAndGet();
+			UUID[] userIds = objectMapper.readValue(exchange.getRequestBody(), UUID[].class);
+			synchronized (batchSizes) {
+				batchSizes.add(userIds.length);
+			}
+			if (emptyBatchResponses) {
+				respond(exchange, 200, "");
+				return;
+			}
+			List<VisitedLocation> visitedLocations = new ArrayList<>();
+			Arrays.stream(userIds).forEach(userId -> visitedLocations.add(randomLocation(userId)));
+			VisitedLocationListWrapper wrapper = new VisitedLocationListWrapper();
+			wrapper.setVisitedLocationList(visitedLocations);
+			respond(exchange, wrapper);
+		});
+		handle("/attractions", exchange -> {
+			AttractionListWrapper wrapper = new AttractionListWrapper();
+			wrapper.setAttractionList(attractions);
+			respond(exchange, wrapper);
+		});
+		start();
+	}
+
+	public void setAttractions(List<Attraction> attractions) {
+		this.attractions = new ArrayList<>(attractions);
+	}
+
+	// Batch requests are then answered with an empty body
+	public void setEmptyBatchResponses(boolean emptyBatchResponses) {
+		this.emptyBatchResponses = emptyBatchResponses;
+	}
+
+	public int getUserLocationRequests() {
+		return userLocationRequests.get();
+	}
+
+	public int getBatchRequests() {
+		return batchRequests.get();
+	}
+
+	public List<Integer> getBatchSizes() {
+		synchronized (batchSizes) {
+			return new ArrayList<>(batchSizes);
+		}
+	}
+
+	private VisitedLocation randomLocation(UUID userId) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return new VisitedLocation(userId, new Location(random.nextDouble(-85, 85), random.nextDouble(-180, 180)), new Date());
+	}
+
+	private void respond(HttpExchange exchange, Object body) throws IOException {
+		respond(exchange, 200, objectMapper.writeValueAsString(body));
+	}
+}
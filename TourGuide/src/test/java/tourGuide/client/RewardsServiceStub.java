@@ -0,0 +1,38 @@
+package tourGuide.client;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the rewards service, serving the same reward points for every attraction, or failing
+ */
+public class RewardsServiceStub extends ServiceStub {
+
+	private final AtomicInteger rewardPointsRequests = new AtomicInteger();
+	private volatile int rewardPoints = 100;
+	private volatile boolean failing;
+
+	public RewardsServiceStub() throws IOException {
+		handle("/reward-points", exchange -> {
+			rewardPointsRequests.incrementAndGet();
+			if (failing) {
+				respond(exchange, 500, "");
+			} else {
+				respond(exchange, 200, String.valueOf(rewardPoints));
+			}
+		});
+		start();
+	}
+
+	public void setRewardPoints(int rewardPoints) {
+		this.rewardPoints = rewardPoints;
+	}
+
+	public void setFailing(boolean failing) {
+		this.failing = failing;
+	}
+
+	public int getRewardPointsRequests() {
+		return rewardPointsRequests.get();
+	}
+}
@@ -0,0 +1,70 @@
+package tourGuide.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process stand-in for a downstream service, listening on a free local port. Subclasses add their handlers, then
+ * start the stub; responses can be delayed to play a slow service.
+ */
+public abstract class ServiceStub {
+
+	private final HttpServer server;
+	// Several handlers, so that a delayed response does not hold up the next requests
+	private final ExecutorService handlers = Executors.newCachedThreadPool();
+	private volatile long delayMillis;
+	// Cuts short the delays of the responses in progress once the stub is stopped
+	private final CountDownLatch stopped = new CountDownLatch(1);
+
+	protected ServiceStub() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(handlers);
+	}
+
+	public String getURI() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	public void setDelayMillis(long delayMillis) {
+		this.delayMillis = delayMillis;
+	}
+
+	public void stop() {
+		stopped.countDown();
+		server.stop(0);
+		handlers.shutdown();
+	}
+
+	protected void handle(String path, HttpHandler handler) {
+		server.createContext(path, handler);
+	}
+
+	protected void start() {
+		server.start();
+	}
+
+	// An empty body is sent without any content
+	protected void respond(HttpExchange exchange, int status, String body) throws IOException {
+		try {
+			stopped.await(delayMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		try (OutputStream outputStream = exchange.getResponseBody()) {
+			outputStream.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package tourGuide.client;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class TestBulkhead {
+
+	@Test
+	public void call_bulkheadFull_callRejectedAfterMaxWait() throws Exception {
+		// arrange
+		Bulkhead bulkhead = new Bulkhead("test", 1, 10, 0);
+		CountDownLatch callStarted = new CountDownLatch(1);
+		CountDownLatch releaseCall = new CountDownLatch(1);
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		executorService.submit(() -> bulkhead.call(() -> {
+			callStarted.countDown();
+			try {
+				releaseCall.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 1;
+		}));
+		callStarted.await();
+
+		// act
+		try {
+			bulkhead.call(() -> 2);
+			fail("the bulkhead should be full");
+		} catch (BulkheadFullException e) {
+			// expected
+		}
+
+		// assert
+		releaseCall.countDown();
+		executorService.shutdown();
+		executorService.awaitTermination(1, TimeUnit.SECONDS);
+		assertEquals(1, bulkhead.getRejectedCalls());
+		assertEquals(0, bulkhead.getActiveCalls());
+		assertEquals(3, (int) bulkhead.call(() -> 3));
+	}
+
+	@Test
+	public void callAsync_bulkheadFull_callQueuedUntilPermitReleased() throws Exception {
+		// arrange
+		Bulkhead bulkhead = new Bulkhead("test", 1, 0, 1);
+		CompletableFuture<Integer> firstResponse = new CompletableFuture<>();
+		CompletableFuture<Integer> first = bulkhead.callAsync(() -> firstResponse);
+
+		// act
+		CompletableFuture<Integer> second = bulkhead.callAsync(() -> CompletableFuture.completedFuture(2));
+		boolean secondStartedWhileFull = second.isDone();
+		firstResponse.complete(1);
+
+		// assert
+		assertFalse(secondStartedWhileFull);
+		assertEquals(1, (int) first.get(1, TimeUnit.SECONDS));
+		assertEquals(2, (int) second.get(1, TimeUnit.SECONDS));
+		assertEquals(0, bulkhead.getActiveCalls());
+		assertEquals(0, bulkhead.getQueuedCalls());
+	}
+
+	@Test
+	public void callAsync_queueFull_callRejected() throws Exception {
+		// arrange
+		Bulkhead bulkhead = new Bulkhead("test", 1, 0, 1);
+		bulkhead.callAsync(() -> new CompletableFuture<Integer>());
+		bulkhead.callAsync(() -> new CompletableFuture<Integer>());
+
+		// act
+		CompletableFuture<Integer> rejected = bulkhead.callAsync(() -> CompletableFuture.completedFuture(3));
+
+		// assert
+		try {
+			rejected.get(1, TimeUnit.SECONDS);
+			fail("the bulkhead queue should be full");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof BulkheadFullException);
+		}
+		assertEquals(1, bulkhead.getRejectedCalls());
+		assertEquals(1, bulkhead.getQueuedCalls());
+	}
+
+	@Test
+	public void callAsync_cancelled_callCancelledAndPermitReleased() throws Exception {
+		// arrange
+		Bulkhead bulkhead = new Bulkhead("test", 1, 0, 1);
+		CompletableFuture<Integer> response = new CompletableFuture<>();
+		CompletableFuture<Integer> call = bulkhead.callAsync(() -> response);
+
+		// act
+		call.cancel(true);
+
+		// assert
+		assertTrue(response.isCancelled());
+		assertEquals(0, bulkhead.getActiveCalls());
+	}
+
+	@Test
+	public void callAsync_queuedCallCancelled_neverStarted() throws Exception {
+		// arrange
+		Bulkhead bulkhead = new Bulkhead("test", 1, 0, 1);
+		CompletableFuture<Integer> firstResponse = new CompletableFuture<>();
+		bulkhead.callAsync(() -> firstResponse);
+		AtomicBoolean queuedCallStarted = new AtomicBoolean();
+		CompletableFuture<Integer> queued = bulkhead.callAsync(() -> {
+			queuedCallStarted.set(true);
+			return CompletableFuture.completedFuture(2);
+		});
+
+		// act
+		queued.cancel(true);
+		CompletableFuture<Integer> third = bulkhead.callAsync(() -> CompletableFuture.completedFuture(3));
+		firstResponse.complete(1);
+
+		// assert
+		assertEquals(3, (int) third.get(1, TimeUnit.SECONDS));
+		assertFalse(queuedCallStarted.get());
+		assertEquals(0, bulkhead.getActiveCalls());
+		assertEquals(0, bulkhead.getQueuedCalls());
+	}
+}
@@ -0,0 +1,103 @@
+package tourGuide.client;
+
+import org.junit.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestCircuitBreaker {
+
+	private static Integer failingCall() {
+		throw new ResourceAccessException("rewards service down");
+	}
+
+	@Test
+	public void call_failureRateReached_breakerOpensAndFailsFast() {
+		// arrange
+		CircuitBreaker circuitBreaker = new CircuitBreaker("test", 10, 4, 0.5, TimeUnit.MINUTES.toMillis(1));
+		AtomicInteger calls = new AtomicInteger();
+		circuitBreaker.call(() -> calls.incrementAndGet());
+		circuitBreaker.call(() -> calls.incrementAndGet());
+		for (int i = 0; i < 2; i++) {
+			try {
+				circuitBreaker.call(TestCircuitBreaker::failingCall);
+			} catch (ResourceAccessException e) {
+				// expected
+			}
+		}
+
+		// act
+		try {
+			circuitBreaker.call(() -> calls.incrementAndGet());
+			fail("the circuit breaker should be open");
+		} catch (CircuitBreakerOpenException e) {
+			// expected
+		}
+
+		// assert
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void call_openDurationElapsed_successfulTrialClosesBreaker() throws Exception {
+		// arrange
+		CircuitBreaker circuitBreaker = new CircuitBreaker("test", 10, 1, 0.5, 10);
+		try {
+			circuitBreaker.call(TestCircuitBreaker::failingCall);
+		} catch (ResourceAccessException e) {
+			// expected
+		}
+		TimeUnit.MILLISECONDS.sleep(20);
+
+		// act
+		int result = circuitBreaker.call(() -> 1);
+
+		// assert
+		assertEquals(1, result);
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+	}
+
+	@Test
+	public void callAsync_breakerOpen_failedFutureReturned() throws Exception {
+		// arrange
+		CircuitBreaker circuitBreaker = new CircuitBreaker("test", 10, 1, 0.5, TimeUnit.MINUTES.toMillis(1));
+		CompletableFuture<Integer> failure = new CompletableFuture<>();
+		failure.completeExceptionally(new ResourceAccessException("rewards service down"));
+		circuitBreaker.callAsync(() -> failure).exceptionally(throwable -> null).get();
+
+		// act
+		CompletableFuture<Integer> result = circuitBreaker.callAsync(() -> CompletableFuture.completedFuture(1));
+
+		// assert
+		try {
+			result.get();
+			fail("the circuit breaker should be open");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof CircuitBreakerOpenException);
+		}
+	}
+
+	@Test
+	public void call_bulkheadFull_notCountedAsFailure() {
+		// arrange
+		CircuitBreaker circuitBreaker = new CircuitBreaker("test", 10, 1, 0.5, TimeUnit.MINUTES.toMillis(1));
+
+		// act
+		try {
+			circuitBreaker.call(() -> {
+				throw new BulkheadFullException("bulkhead full");
+			});
+		} catch (BulkheadFullException e) {
+			// expected
+		}
+
+		// assert
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+	}
+}
@@ -0,0 +1,135 @@
+package tourGuide.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.user.UserPreferences;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestDownstreamService {
+
+	private LocationServiceStub locationServiceStub;
+	private DownstreamService downstreamService;
+
+	@Before
+	public void setup() throws Exception {
+		locationServiceStub = new LocationServiceStub();
+		DownstreamServiceProperties properties = new DownstreamServiceProperties(locationServiceStub.getURI());
+		properties.setMaxConnectionsPerRoute(2);
+		downstreamService = new DownstreamService("location", properties);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		downstreamService.close();
+		locationServiceStub.stop();
+	}
+
+	@Test
+	public void getUserLocation_severalCalls_connectionKeptAliveInPool() {
+		// arrange
+		LocationClient locationClient = new LocationClient(downstreamService);
+		UUID userId = UUID.randomUUID();
+
+		// act
+		for (int i = 0; i < 5; i++) {
+			locationClient.getUserLocation(userId);
+		}
+
+		// assert
+		assertEquals(5, locationServiceStub.getUserLocationRequests());
+		assertEquals(0, downstreamService.getLeasedConnections());
+		assertEquals(1, downstreamService.getAvailableConnections());
+	}
+
+	@Test
+	public void getUserLocationAsync_pooledWebClient_locationReturned() throws Exception {
+		// arrange
+		LocationClient locationClient = new LocationClient(downstreamService);
+		UUID userId = UUID.randomUUID();
+
+		// act
+		VisitedLocation visitedLocation = locationClient.getUserLocationAsync(userId).get(5, TimeUnit.SECONDS);
+
+		// assert
+		assertEquals(userId, visitedLocation.userId);
+		assertEquals(0, downstreamService.getBulkhead().getActiveCalls());
+	}
+
+	@Test
+	public void getUserLocationAsync_idleLongerThanReadTimeout_reactiveConnectionKeptAliveInPool() throws Exception {
+		// arrange
+		DownstreamServiceProperties properties = new DownstreamServiceProperties(locationServiceStub.getURI());
+		properties.setReadTimeoutMillis(500);
+		DownstreamService shortReadTimeoutService = new DownstreamService("location", properties);
+		LocationClient locationClient = new LocationClient(shortReadTimeoutService);
+		UUID userId = UUID.randomUUID();
+
+		// act
+		try {
+			for (int i = 0; i < 5; i++) {
+				locationClient.getUserLocationAsync(userId).get(5, TimeUnit.SECONDS);
+			}
+			TimeUnit.MILLISECONDS.sleep(1000);
+
+			// assert
+			assertEquals(0, shortReadTimeoutService.getLeasedReactiveConnections());
+			assertEquals(1, shortReadTimeoutService.getAvailableReactiveConnections());
+		} finally {
+			shortReadTimeoutService.close();
+		}
+	}
+
+	@Test
+	public void getTripDealsAsync_responseSlowerThanReadTimeout_readTimeoutException() throws Exception {
+		// arrange
+		TripPricerServiceStub tripPricerServiceStub = new TripPricerServiceStub();
+		tripPricerServiceStub.setDelayMillis(1000);
+		DownstreamServiceProperties properties = new DownstreamServiceProperties(tripPricerServiceStub.getURI());
+		properties.setReadTimeoutMillis(100);
+		DownstreamService pricerService = new DownstreamService("pricer", properties);
+		TripPricerClient tripPricerClient = new TripPricerClient(pricerService);
+
+		// act
+		try {
+			tripPricerClient.getTripDealsAsync("apiKey", UUID.randomUUID(), new UserPreferences(), 0).get(5, TimeUnit.SECONDS);
+			fail("the request should have timed out");
+		} catch (ExecutionException e) {
+			// assert
+			assertTrue(e.getCause() instanceof ReadTimeoutException);
+			// The timed out connection is closed just after the request fails
+			TimeUnit.MILLISECONDS.sleep(200);
+			assertEquals(0, pricerService.getLeasedReactiveConnections());
+		} finally {
+			pricerService.close();
+			tripPricerServiceStub.stop();
+		}
+	}
+
+	@Test
+	public void bindTo_registry_poolAndBulkheadMetricsTaggedWithService() throws Exception {
+		// arrange
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		new LocationClient(downstreamService).getUserLocation(UUID.randomUUID());
+		new LocationClient(downstreamService).getUserLocationAsync(UUID.randomUUID()).get(5, TimeUnit.SECONDS);
+
+		// act
+		downstreamService.bindTo(registry);
+
+		// assert
+		assertEquals(1, registry.get("tourguide.downstream.connections.available").tag("service", "location").gauge().value(), 0);
+		assertEquals(1, registry.get("tourguide.downstream.connections.wait").tag("service", "location").functionTimer().count(), 0);
+		assertEquals(1, registry.get("tourguide.downstream.reactive.connections.available").tag("service", "location").gauge().value(), 0);
+		assertEquals(0, registry.get("tourguide.downstream.reactive.connections.leased").tag("service", "location").gauge().value(), 0);
+		assertEquals(1, registry.get("tourguide.downstream.bulkhead.wait").tag("service", "location").functionTimer().count(), 0);
+		assertEquals(0, registry.get("tourguide.downstream.bulkhead.rejected").tag("service", "location").functionCounter().count(), 0);
+	}
+}
@@ -0,0 +1,113 @@
+package tourGuide.client;
+
+import org.junit.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestHedgedRequests {
+
+	@Test
+	public void call_fastResponse_noHedgeSent() throws Exception {
+		// arrange
+		HedgedRequests hedgedRequests = new HedgedRequests(50);
+
+		// act
+		int result = hedgedRequests.call(() -> CompletableFuture.completedFuture(1)).get(1, TimeUnit.SECONDS);
+		TimeUnit.MILLISECONDS.sleep(100);
+
+		// assert
+		assertEquals(1, result);
+		assertEquals(0, hedgedRequests.getHedgesSent());
+	}
+
+	@Test
+	public void call_slowResponse_hedgeSentAndFirstResponseWins() throws Exception {
+		// arrange
+		HedgedRequests hedgedRequests = new HedgedRequests(10);
+		List<CompletableFuture<Integer>> requests = new ArrayList<>();
+		CompletableFuture<Integer> slowResponse = new CompletableFuture<>();
+
+		// act
+		CompletableFuture<Integer> result = hedgedRequests.call(() -> {
+			if (requests.isEmpty()) {
+				requests.add(slowResponse);
+				return slowResponse;
+			}
+			CompletableFuture<Integer> hedgeResponse = CompletableFuture.completedFuture(2);
+			requests.add(hedgeResponse);
+			return hedgeResponse;
+		});
+
+		// assert
+		assertEquals(2, (int) result.get(1, TimeUnit.SECONDS));
+		assertEquals(2, requests.size());
+		assertEquals(1, hedgedRequests.getHedgesSent());
+		// The losing request is cancelled just after the result completes
+		try {
+			slowResponse.get(1, TimeUnit.SECONDS);
+			fail("the losing request should have been cancelled");
+		} catch (CancellationException e) {
+			assertTrue(slowResponse.isCancelled());
+		}
+	}
+
+	@Test
+	public void call_resultCancelled_requestCancelledAndNoHedgeSent() throws Exception {
+		// arrange
+		HedgedRequests hedgedRequests = new HedgedRequests(20);
+		CompletableFuture<Integer> response = new CompletableFuture<>();
+		CompletableFuture<Integer> result = hedgedRequests.call(() -> response);
+
+		// act
+		result.cancel(true);
+		TimeUnit.MILLISECONDS.sleep(100);
+
+		// assert
+		assertTrue(response.isCancelled());
+		assertEquals(0, hedgedRequests.getHedgesSent());
+	}
+
+	@Test
+	public void call_allRequestsFail_failureReturned() throws Exception {
+		// arrange
+		HedgedRequests hedgedRequests = new HedgedRequests(10);
+
+		// act
+		CompletableFuture<Integer> result = hedgedRequests.call(() -> {
+			CompletableFuture<Integer> response = new CompletableFuture<>();
+			response.completeExceptionally(new ResourceAccessException("rewards service down"));
+			return response;
+		});
+
+		// assert
+		try {
+			result.get(1, TimeUnit.SECONDS);
+			fail("the request should have failed");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ResourceAccessException);
+		}
+		assertEquals(1, hedgedRequests.getLatencySamples());
+	}
+
+	@Test
+	public void record_manyLatencies_percentileComputed() {
+		// arrange
+		LatencyTracker latencyTracker = new LatencyTracker(100, 0.95);
+
+		// act
+		for (int i = 1; i <= 100; i++) {
+			latencyTracker.record(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+
+		// assert
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(95), latencyTracker.getPercentileNanos());
+	}
+}
@@ -0,0 +1,136 @@
+package tourGuide.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import tourGuide.domain.location.VisitedLocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class TestLocationBatcher {
+
+	private LocationServiceStub locationServiceStub;
+	private LocationClient locationClient;
+
+	@Before
+	public void setup() throws Exception {
+		locationServiceStub = new LocationServiceStub();
+		locationClient = new LocationClient(new RestTemplate(), WebClient.create(), locationServiceStub.getURI());
+	}
+
+	@After
+	public void tearDown() {
+		locationServiceStub.stop();
+	}
+
+	@Test
+	public void submit_moreUsersThanBatchSize_fullBatchesSent() throws Exception {
+		// arrange
+		LocationBatcher locationBatcher = new LocationBatcher(locationClient, 10, TimeUnit.MINUTES.toMillis(1));
+		List<UUID> userIds = new ArrayList<>();
+		List<CompletableFuture<VisitedLocation>> futures = new ArrayList<>();
+
+		// act
+		for (int i = 0; i < 30; i++) {
+			UUID userId = UUID.randomUUID();
+			userIds.add(userId);
+			futures.add(locationBatcher.submit(userId));
+		}
+
+		// assert
+		for (int i = 0; i < futures.size(); i++) {
+			assertEquals(userIds.get(i), futures.get(i).get(10, TimeUnit.SECONDS).userId);
+		}
+		assertEquals(3, locationServiceStub.getBatchRequests());
+		assertEquals(0, locationServiceStub.getUserLocationRequests());
+		locationBatcher.shutdown();
+	}
+
+	@Test
+	public void submit_partialBatch_sentAfterMaxWait() throws Exception {
+		// arrange
+		LocationBatcher locationBatcher = new LocationBatcher(locationClient, 100, 20);
+		UUID userId = UUID.randomUUID();
+
+		// act
+		VisitedLocation visitedLocation = locationBatcher.submit(userId).get(10, TimeUnit.SECONDS);
+
+		// assert
+		assertEquals(userId, visitedLocation.userId);
+		assertEquals(1, locationServiceStub.getBatchRequests());
+		locationBatcher.shutdown();
+	}
+
+	@Test
+	public void submit_batchAnswered_usersCompletedOnCompletionExecutor() throws Exception {
+		// arrange
+		ExecutorService completionExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "completion"));
+		LocationBatcher locationBatcher = new LocationBatcher(locationClient, 100, TimeUnit.MINUTES.toMillis(1),
+				completionExecutor);
+		AtomicReference<String> completingThread = new AtomicReference<>();
+		CompletableFuture<VisitedLocation> future = locationBatcher.submit(UUID.randomUUID()).whenComplete(
+				(visitedLocation, throwable) -> completingThread.set(Thread.currentThread().getName()));
+
+		// act
+		locationBatcher.flush();
+		future.get(10, TimeUnit.SECONDS);
+
+		// assert
+		assertEquals("completion", completingThread.get());
+		locationBatcher.shutdown();
+		completionExecutor.shutdown();
+	}
+
+	@Test
+	public void getUserLocationsAsync_severalUsers_oneRequestSent() throws Exception {
+		// arrange
+		List<UUID> userIds = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			userIds.add(UUID.randomUUID());
+		}
+
+		// act
+		List<VisitedLocation> visitedLocations = locationClient.getUserLocationsAsync(userIds).get(10, TimeUnit.SECONDS);
+
+		// assert
+		assertEquals(5, visitedLocations.size());
+		assertEquals(1, locationServiceStub.getBatchRequests());
+	}
+
+	@Test
+	public void submit_emptyResponse_everyUserOfTheBatchFails() throws Exception {
+		// arrange
+		locationServiceStub.setEmptyBatchResponses(true);
+		LocationBatcher locationBatcher = new LocationBatcher(locationClient, 100, TimeUnit.MINUTES.toMillis(1));
+		List<CompletableFuture<VisitedLocation>> futures = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			futures.add(locationBatcher.submit(UUID.randomUUID()));
+		}
+
+		// act
+		locationBatcher.flush();
+
+		// assert
+		for (CompletableFuture<VisitedLocation> future : futures) {
+			try {
+				future.get(10, TimeUnit.SECONDS);
+				fail("Future completed normally");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+		}
+		locationBatcher.shutdown();
+	}
+}
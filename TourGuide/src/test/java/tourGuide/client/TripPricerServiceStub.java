@@ -0,0 +1,39 @@
+package tourGuide.client;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the pricer service, serving a single trip deal, an empty response, or failing, possibly after
+ * a delay
+ */
+public class TripPricerServiceStub extends ServiceStub {
+
+	public static final String providerName = "Holiday Travels";
+
+	private final AtomicInteger tripDealsRequests = new AtomicInteger();
+	private volatile int status = 200;
+	private volatile boolean empty;
+
+	public TripPricerServiceStub() throws IOException {
+		handle("/trip-deals", exchange -> {
+			tripDealsRequests.incrementAndGet();
+			respond(exchange, status, status != 200 || empty ? "" :
+					"{\"providerList\":[{\"name\":\"" + providerName + "\",\"price\":499.0," +
+							"\"tripId\":\"8dcabd60-a9f5-40b0-8413-49b892449470\"}]}");
+		});
+		start();
+	}
+
+	public void setStatus(int status) {
+		this.status = status;
+	}
+
+	public void setEmpty(boolean empty) {
+		this.empty = empty;
+	}
+
+	public int getTripDealsRequests() {
+		return tripDealsRequests.get();
+	}
+}
@@ -0,0 +1,201 @@
+package tourGuide.concurrent;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestSingleFlight {
+
+	@Test
+	public void call_concurrentCallersForSameKey_oneCallMade() throws Exception {
+		// arrange
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch callStarted = new CountDownLatch(1);
+		CountDownLatch releaseCall = new CountDownLatch(1);
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+		// act
+		List<Future<Integer>> results = new ArrayList<>();
+		results.add(executorService.submit(() -> singleFlight.call("attractions", () -> {
+			calls.incrementAndGet();
+			callStarted.countDown();
+			try {
+				releaseCall.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 42;
+		})));
+		callStarted.await();
+		for (int i = 0; i < 3; i++) {
+			results.add(executorService.submit(() -> singleFlight.call("attractions", calls::incrementAndGet)));
+		}
+		while (singleFlight.getSharedCalls() < 3) {
+			TimeUnit.MILLISECONDS.sleep(1);
+		}
+		releaseCall.countDown();
+
+		// assert
+		for (Future<Integer> result : results) {
+			assertEquals(42, (int) result.get(1, TimeUnit.SECONDS));
+		}
+		executorService.shutdown();
+		assertEquals(1, calls.get());
+		assertEquals(0, singleFlight.getInFlightCalls());
+	}
+
+	@Test
+	public void callAsync_sameKeyWhileInFlight_responseShared() throws Exception {
+		// arrange
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+		CompletableFuture<Integer> response = new CompletableFuture<>();
+		AtomicInteger calls = new AtomicInteger();
+
+		// act
+		CompletableFuture<Integer> first = singleFlight.callAsync("user", () -> {
+			calls.incrementAndGet();
+			return response;
+		});
+		CompletableFuture<Integer> second = singleFlight.callAsync("user", () -> {
+			calls.incrementAndGet();
+			return CompletableFuture.completedFuture(0);
+		});
+		response.complete(7);
+
+		// assert
+		assertEquals(7, (int) first.get(1, TimeUnit.SECONDS));
+		assertEquals(7, (int) second.get(1, TimeUnit.SECONDS));
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void callAsync_afterCompletion_newCallMade() throws Exception {
+		// arrange
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+		singleFlight.callAsync("user", () -> CompletableFuture.completedFuture(1)).get();
+
+		// act
+		int result = singleFlight.callAsync("user", () -> CompletableFuture.completedFuture(2)).get();
+
+		// assert
+		assertEquals(2, result);
+		assertEquals(0, singleFlight.getSharedCalls());
+	}
+
+	@Test
+	public void callAsync_sharedCallFails_failureSharedAndCancelIsolated() throws Exception {
+		// arrange
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+		CompletableFuture<Integer> response = new CompletableFuture<>();
+		CompletableFuture<Integer> first = singleFlight.callAsync("user", () -> response);
+		CompletableFuture<Integer> second = singleFlight.callAsync("user", () -> response);
+
+		// act
+		first.cancel(true);
+		response.completeExceptionally(new IllegalStateException("location service down"));
+
+		// assert
+		try {
+			second.get(1, TimeUnit.SECONDS);
+			fail("the shared call should have failed");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void callAsync_everyCallerCancelled_callCancelled() throws Exception {
+		// arrange
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+		CompletableFuture<Integer> response = new CompletableFuture<>();
+		CompletableFuture<Integer> first = singleFlight.callAsync("user", () -> response);
+		CompletableFuture<Integer> second = singleFlight.callAsync("user", () -> response);
+
+		// act
+		first.cancel(true);
+		boolean cancelledWhileShared = response.isCancelled();
+		second.cancel(true);
+		CompletableFuture<Integer> third = singleFlight.callAsync("user", () -> CompletableFuture.completedFuture(3));
+
+		// assert
+		assertFalse(cancelledWhileShared);
+		assertTrue(response.isCancelled());
+		assertEquals(3, (int) third.get(1, TimeUnit.SECONDS));
+		assertEquals(0, singleFlight.getInFlightCalls());
+	}
+
+	@Test
+	public void call_callThrowsError_waitersFailInsteadOfHanging() throws Exception {
+		// arrange
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+		CountDownLatch callStarted = new CountDownLatch(1);
+		CountDownLatch releaseCall = new CountDownLatch(1);
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+		// act
+		Future<Integer> first = executorService.submit(() -> singleFlight.call("attractions", () -> {
+			callStarted.countDown();
+			try {
+				releaseCall.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			throw new AssertionError("catalog corrupted");
+		}));
+		callStarted.await();
+		Future<Integer> second = executorService.submit(() -> singleFlight.call("attractions", () -> 0));
+		while (singleFlight.getSharedCalls() < 1) {
+			TimeUnit.MILLISECONDS.sleep(1);
+		}
+		releaseCall.countDown();
+
+		// assert
+		for (Future<Integer> result : Arrays.asList(first, second)) {
+			try {
+				result.get(1, TimeUnit.SECONDS);
+				fail("the shared call should have failed");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof AssertionError);
+			}
+		}
+		executorService.shutdown();
+		assertEquals(0, singleFlight.getInFlightCalls());
+	}
+
+	@Test
+	public void callAsync_callThrowsCheckedException_failureShared() throws Exception {
+		// arrange
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+		// act
+		CompletableFuture<Integer> result = singleFlight.callAsync("user", () -> sneakyThrow(new IOException("connection reset")));
+
+		// assert
+		try {
+			result.get(1, TimeUnit.SECONDS);
+			fail("the call should have failed");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+		assertEquals(0, singleFlight.getInFlightCalls());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T, E extends Throwable> T sneakyThrow(Throwable throwable) throws E {
+		throw (E) throwable;
+	}
+}
@@ -9,10 +9,27 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
+import tourGuide.domain.location.Location;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.user.User;
 import tourGuide.helper.InternalTestHelper;
-
+import tourGuide.service.TourGuideService;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -21,12 +38,19 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @AutoConfigureMockMvc
 public class TestTourGuideController {
 
+    private static final String number = "-?[0-9.]+(E-?[0-9]+)?";
+    private static final Pattern ndjsonLine = Pattern.compile("\\{\"userId\":\"([0-9a-f-]{36})\",\"location\":"
+            + "(null|\\{\"longitude\":" + number + ",\"latitude\":" + number + "\\})\\}");
+
     @Autowired
     private MockMvc mockMvc;
 
     @Autowired
     WebApplicationContext webContext;
 
+    @Autowired
+    private TourGuideService tourGuideService;
+
     @Before
     public void setupMockMvc() {
         mockMvc = MockMvcBuilders.webAppContextSetup(webContext).build();
@@ -47,8 +71,11 @@ public class TestTourGuideController {
     @Test
     public void getLocation_statusIsSuccessful() throws Exception {
         String userName = "internalUser0";
-        mockMvc.perform(get("/location")
+        MvcResult result = mockMvc.perform(get("/location")
                 .param("userName", userName))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().is2xxSuccessful());
     }
 
@@ -58,6 +85,53 @@ public class TestTourGuideController {
                 .andExpect(status().is2xxSuccessful());
     }
 
+    @Test
+    public void getAllCurrentLocations_acceptJson_jsonObjectStreamed() throws Exception {
+        mockMvc.perform(get("/all-current-locations")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(allOf(startsWith("{"), endsWith("}"))));
+    }
+
+    @Test
+    public void getAllCurrentLocations_acceptNdjson_oneLinePerUser() throws Exception {
+        // arrange
+        Map<String, String> expectedLines = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            User user = new User(UUID.randomUUID(), "ndjsonUser" + i, "000", "ndjsonUser" + i + "@tourGuide.com");
+            if (i > 0) {
+                user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(i + 0.5, -i - 0.25), new Date()));
+            }
+            tourGuideService.addUser(user);
+            expectedLines.put(user.getUserId().toString(), "{\"userId\":\"" + user.getUserId() + "\",\"location\":"
+                    + (i > 0 ? "{\"longitude\":" + (-i - 0.25) + ",\"latitude\":" + (i + 0.5) + "}" : "null") + "}");
+        }
+        int userCount = tourGuideService.getAllUsers().size();
+
+        // act
+        String body = mockMvc.perform(get("/all-current-locations")
+                .accept("application/x-ndjson"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        // assert
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n");
+        assertEquals(userCount, lines.length);
+        Set<String> userIds = new HashSet<>();
+        for (String line : lines) {
+            Matcher matcher = ndjsonLine.matcher(line);
+            assertTrue(line, matcher.matches());
+            assertTrue(line, userIds.add(matcher.group(1)));
+            if (expectedLines.containsKey(matcher.group(1))) {
+                assertEquals(expectedLines.get(matcher.group(1)), line);
+            }
+        }
+        assertTrue(userIds.containsAll(expectedLines.keySet()));
+    }
+
     @Test
     public void getRewards_statusIsSuccessful() throws Exception {
         String userName = "internalUser0";
@@ -69,16 +143,22 @@ public class TestTourGuideController {
     @Test
     public void getTripDeals_statusIsSuccessful() throws Exception {
         String userName = "internalUser0";
-        mockMvc.perform(get("/trip-deals")
+        MvcResult result = mockMvc.perform(get("/trip-deals")
                 .param("userName", userName))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().is2xxSuccessful());
     }
 
     @Test
     public void getNearbyAttractions_statusIsSuccessful() throws Exception {
         String userName = "internalUser0";
-        mockMvc.perform(get("/nearby-attractions")
+        MvcResult result = mockMvc.perform(get("/nearby-attractions")
                 .param("userName", userName))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().is2xxSuccessful());
     }
 
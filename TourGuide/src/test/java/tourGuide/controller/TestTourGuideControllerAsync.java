@@ -0,0 +1,93 @@
+package tourGuide.controller;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tourGuide.client.BulkheadFullException;
+import tourGuide.client.CircuitBreakerOpenException;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.rewards.Provider;
+import tourGuide.service.TourGuideService;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TourGuideController.class)
+@RunWith(SpringRunner.class)
+public class TestTourGuideControllerAsync {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TourGuideService tourGuideService;
+
+    private MvcResult startRequest(String uri) throws Exception {
+        return mockMvc.perform(get(uri).param("userName", "internalUser0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    @Test
+    public void getLocation_bulkheadFull_statusIsServiceUnavailable() throws Exception {
+        // arrange
+        CompletableFuture<VisitedLocation> visitedLocation = new CompletableFuture<>();
+        when(tourGuideService.getUserLocationAsync(any())).thenReturn(visitedLocation);
+        MvcResult result = startRequest("/location");
+
+        // act
+        visitedLocation.completeExceptionally(new BulkheadFullException("Bulkhead location is full"));
+
+        // assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void getTripDeals_circuitBreakerOpen_statusIsServiceUnavailable() throws Exception {
+        // arrange
+        CompletableFuture<List<Provider>> tripDeals = new CompletableFuture<>();
+        when(tourGuideService.getTripDealsAsync(any())).thenReturn(tripDeals);
+        MvcResult result = startRequest("/trip-deals");
+
+        // act
+        tripDeals.completeExceptionally(new CircuitBreakerOpenException("Circuit breaker pricer is open"));
+
+        // assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void getTripDeals_downstreamServiceTooSlow_statusIsGatewayTimeout() throws Exception {
+        // arrange
+        CompletableFuture<List<Provider>> tripDeals = new CompletableFuture<>();
+        when(tourGuideService.getTripDealsAsync(any())).thenReturn(tripDeals);
+        MvcResult result = startRequest("/trip-deals");
+
+        // act
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        // assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isGatewayTimeout());
+    }
+}
@@ -0,0 +1,147 @@
+package tourGuide.domain.user;
+
+import org.junit.Test;
+import tourGuide.domain.location.Location;
+import tourGuide.domain.location.VisitedLocation;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class TestLocationHistory {
+
+	@Test
+	public void add_severalChunks_locationsReadBackInOrder() {
+		// arrange
+		LocationHistory locationHistory = new LocationHistory();
+		int count = LocationHistory.CHUNK_SIZE * 3 + 5;
+
+		// act
+		for (int i = 0; i < count; i++) {
+			locationHistory.add(i, -i, 1000L * i);
+		}
+		LocationHistory.View locations = locationHistory.view();
+
+		// assert
+		assertEquals(count, locations.size());
+		for (int i = 0; i < count; i++) {
+			assertEquals(i, locations.getLatitude(i), 0);
+			assertEquals(-i, locations.getLongitude(i), 0);
+			assertEquals(1000L * i, locations.getTimeMillis(i));
+		}
+	}
+
+	@Test
+	public void view_locationsAddedAfterwards_viewUnchanged() {
+		// arrange
+		LocationHistory locationHistory = new LocationHistory();
+		locationHistory.add(1, 2, 3);
+		LocationHistory.View locations = locationHistory.view();
+
+		// act
+		for (int i = 0; i < LocationHistory.CHUNK_SIZE * 2; i++) {
+			locationHistory.add(10, 20, 30);
+		}
+		locationHistory.clear();
+
+		// assert
+		assertEquals(1, locations.size());
+		assertEquals(1, locations.getLatitude(0), 0);
+		assertEquals(0, locationHistory.size());
+	}
+
+	@Test
+	public void getVisitedLocation_storedLocation_visitedLocationCreated() {
+		// arrange
+		UUID userId = UUID.randomUUID();
+		Date timeVisited = new Date();
+		LocationHistory locationHistory = new LocationHistory();
+		locationHistory.add(new VisitedLocation(userId, new Location(33.817595D, -117.922008D), timeVisited));
+		locationHistory.add(new VisitedLocation(userId, new Location(1, 2), null));
+
+		// act
+		VisitedLocation visitedLocation = locationHistory.view().getVisitedLocation(userId, 0);
+		VisitedLocation untimedLocation = locationHistory.view().getVisitedLocation(userId, 1);
+
+		// assert
+		assertEquals(userId, visitedLocation.userId);
+		assertEquals(33.817595D, visitedLocation.location.latitude, 0);
+		assertEquals(-117.922008D, visitedLocation.location.longitude, 0);
+		assertEquals(timeVisited, visitedLocation.timeVisited);
+		assertNull(untimedLocation.timeVisited);
+	}
+
+	@Test
+	public void addAll_columnsAcrossChunks_entriesAppended() {
+		// arrange
+		LocationHistory locationHistory = new LocationHistory();
+		locationHistory.add(-1, -1, -1);
+		int count = LocationHistory.CHUNK_SIZE * 2;
+		double[] latitudes = new double[count];
+		double[] longitudes = new double[count];
+		long[] timesMillis = new long[count];
+		for (int i = 0; i < count; i++) {
+			latitudes[i] = i;
+			longitudes[i] = -i;
+			timesMillis[i] = i;
+		}
+
+		// act
+		locationHistory.addAll(latitudes, longitudes, timesMillis);
+		int index = locationHistory.add(1000, 1000, 1000);
+
+		// assert
+		LocationHistory.View locations = locationHistory.view();
+		assertEquals(count + 2, locations.size());
+		assertEquals(count + 1, index);
+		for (int i = 0; i < count; i++) {
+			assertEquals(i, locations.getLatitude(i + 1), 0);
+			assertEquals(-i, locations.getLongitude(i + 1), 0);
+			assertEquals(i, locations.getTimeMillis(i + 1));
+		}
+		assertEquals(1000, locations.getLatitude(count + 1), 0);
+	}
+
+	@Test
+	public void view_appendsFromAnotherThread_everyViewConsistent() throws InterruptedException {
+		// arrange
+		LocationHistory locationHistory = new LocationHistory();
+		int count = LocationHistory.CHUNK_SIZE * 50;
+		Thread writer = new Thread(() -> {
+			for (int i = 0; i < count; i++) {
+				locationHistory.add(i, -i, i);
+			}
+		});
+
+		// act
+		writer.start();
+		boolean consistent = true;
+		int lastSize = 0;
+		while (lastSize < count) {
+			LocationHistory.View locations = locationHistory.view();
+			for (int i = 0; i < locations.size(); i++) {
+				consistent &= locations.getLatitude(i) == i && locations.getLongitude(i) == -i
+						&& locations.getTimeMillis(i) == i;
+			}
+			lastSize = locations.size();
+		}
+		writer.join();
+
+		// assert
+		assertTrue(consistent);
+		assertEquals(count - 1, locationHistory.last(UUID.randomUUID()).location.latitude, 0);
+	}
+
+	@Test
+	public void last_emptyHistory_null() {
+		// arrange
+		LocationHistory locationHistory = new LocationHistory();
+
+		// act
+		VisitedLocation visitedLocation = locationHistory.last(UUID.randomUUID());
+
+		// assert
+		assertNull(visitedLocation);
+	}
+}
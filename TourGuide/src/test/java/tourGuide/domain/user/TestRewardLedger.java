@@ -0,0 +1,86 @@
+package tourGuide.domain.user;
+
+import org.junit.Test;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.Location;
+import tourGuide.domain.location.VisitedLocation;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class TestRewardLedger {
+
+	private final User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+	private final VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), new Location(1, 2), new Date());
+
+	@Test
+	public void addUserReward_attractionAlreadyRewarded_rewardNotAdded() {
+		// arrange
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595D, -117.922008D);
+		user.addUserReward(new UserReward(visitedLocation, attraction, 10));
+
+		// act
+		boolean added = user.addUserReward(new UserReward(visitedLocation, attraction, 20));
+
+		// assert
+		assertFalse(added);
+		assertEquals(1, user.getUserRewards().size());
+		assertTrue(user.hasUserReward("Disneyland"));
+		assertFalse(user.hasUserReward("Jackson Hole"));
+		assertEquals(10, user.getCumulativeRewardPoints());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void getUserRewards_rewardAddedToList_unsupportedOperationExceptionThrown() {
+		// arrange
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595D, -117.922008D);
+
+		// act
+		user.getUserRewards().add(new UserReward(visitedLocation, attraction, 10));
+	}
+
+	@Test
+	public void setRewardPoints_rewardOfUser_cumulativeRewardPointsUpdated() {
+		// arrange
+		UserReward disneyland = new UserReward(visitedLocation, new Attraction("Disneyland", "Anaheim", "CA", 0, 0), 10);
+		UserReward jacksonHole = new UserReward(visitedLocation, new Attraction("Jackson Hole", "Jackson Hole", "WY", 0, 0));
+		user.addUserReward(disneyland);
+		user.addUserReward(jacksonHole);
+
+		// act
+		user.setRewardPoints(jacksonHole, 25);
+
+		// assert
+		assertEquals(25, jacksonHole.getRewardPoints());
+		assertEquals(35, user.getCumulativeRewardPoints());
+		assertSame(jacksonHole, user.getUserReward("Jackson Hole"));
+	}
+
+	@Test
+	public void addUserReward_concurrentInserts_eachAttractionRewardedOnce() throws InterruptedException {
+		// arrange
+		int attractionCount = 200;
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < attractionCount; i++) {
+					user.addUserReward(new UserReward(visitedLocation, new Attraction("Attraction " + i, "", "", 0, 0), 1));
+				}
+			});
+		}
+
+		// act
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		// assert
+		assertEquals(attractionCount, user.getUserRewards().size());
+		assertEquals(attractionCount, user.getCumulativeRewardPoints());
+	}
+}
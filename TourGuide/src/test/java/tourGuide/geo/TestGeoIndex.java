@@ -0,0 +1,160 @@
+package tourGuide.geo;
+
+import org.junit.Before;
+import org.junit.Test;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.Location;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class TestGeoIndex {
+
+	private List<Attraction> attractions;
+	private GeoIndex geoIndex;
+	private Random random;
+
+	@Before
+	public void setup() {
+		random = new Random(42);
+		attractions = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			attractions.add(new Attraction("attraction" + i, "city", "state", randomLatitude(), randomLongitude()));
+		}
+		attractions.add(new Attraction("Date Line West", "city", "state", 10, 179.9));
+		attractions.add(new Attraction("Date Line East", "city", "state", 10, -179.9));
+		geoIndex = new GeoIndex(attractions);
+	}
+
+	@Test
+	public void withinMiles_randomLocations_sameAttractionsAsFullScan() {
+		for (int i = 0; i < 500; i++) {
+			// arrange
+			Location location = new Location(randomLatitude(), randomLongitude());
+			double miles = random.nextInt(5) == 0 ? random.nextDouble() * 5000 : random.nextDouble() * 300;
+
+			// act
+			List<Attraction> result = geoIndex.withinMiles(location, miles);
+
+			// assert
+			List<Attraction> expected = attractions.stream()
+					.filter(attraction -> GeoMath.distanceMiles(attraction, location) <= miles)
+					.collect(Collectors.toList());
+			assertEquals(new HashSet<>(expected), new HashSet<>(result));
+		}
+	}
+
+	@Test
+	public void withinMiles_acrossDateLine_bothSidesReturned() {
+		// arrange
+		Location location = new Location(10, 180);
+
+		// act
+		List<Attraction> result = geoIndex.withinMiles(location, 20);
+
+		// assert
+		List<String> names = result.stream().map(attraction -> attraction.attractionName).collect(Collectors.toList());
+		assertTrue(names.contains("Date Line West"));
+		assertTrue(names.contains("Date Line East"));
+	}
+
+	@Test
+	public void withinMiles_locationIsAttraction_attractionReturned() {
+		// arrange
+		Attraction attraction = attractions.get(7);
+
+		// act
+		List<Attraction> result = geoIndex.withinMiles(attraction, 0);
+
+		// assert
+		assertTrue(result.contains(attraction));
+	}
+
+	@Test
+	public void isWithinMiles_randomPairs_sameAsDistance() {
+		for (int i = 0; i < 2000; i++) {
+			// arrange
+			// Every other attraction is not in the index, and is checked without a precomputed circle
+			Attraction attraction = i % 2 == 0 ? attractions.get(random.nextInt(attractions.size()))
+					: new Attraction("unindexed", "city", "state", randomLatitude(), randomLongitude());
+			Location location = new Location(Math.max(-90, Math.min(90, attraction.latitude + random.nextGaussian() * 2)),
+					attraction.longitude + random.nextGaussian() * 2);
+			double miles = random.nextDouble() * 200;
+			GeoMath.DistanceMode distanceMode = GeoMath.DistanceMode.values()[i % 4 / 2];
+
+			// act
+			boolean within = geoIndex.isWithinMiles(attraction, location, miles, distanceMode);
+
+			// assert
+			double distance = GeoMath.distanceMiles(GeoPoint.of(attraction), GeoPoint.of(location), distanceMode);
+			assertEquals(distance <= miles, within);
+		}
+	}
+
+	@Test
+	public void isWithinMiles_radiiCheckedInTurn_sameAsDistance() {
+		// One more radius than an attraction keeps circles for, so that cached circles are both reused and dropped
+		double[] radii = {10, 200, 10, 50, 100, 150, 10};
+		for (int i = 0; i < 2000; i++) {
+			// arrange
+			Attraction attraction = attractions.get(i % 3);
+			Location location = new Location(Math.max(-90, Math.min(90, attraction.latitude + random.nextGaussian() * 2)),
+					attraction.longitude + random.nextGaussian() * 2);
+			double miles = radii[i % radii.length];
+
+			// act
+			boolean within = geoIndex.isWithinMiles(attraction, location, miles, GeoMath.DistanceMode.HAVERSINE);
+
+			// assert
+			double distance = GeoMath.distanceMiles(GeoPoint.of(attraction), GeoPoint.of(location));
+			assertEquals(distance <= miles, within);
+		}
+	}
+
+	@Test
+	public void nearest_randomLocations_sameDistancesAsFullSort() {
+		for (int i = 0; i < 200; i++) {
+			// arrange
+			Location location = new Location(randomLatitude(), randomLongitude());
+
+			// act
+			List<Attraction> result = geoIndex.nearest(location, 5);
+
+			// assert
+			List<Attraction> expected = attractions.stream()
+					.sorted(Comparator.comparingDouble(attraction -> GeoMath.distanceMiles(attraction, location)))
+					.limit(5)
+					.collect(Collectors.toList());
+			assertEquals(5, result.size());
+			for (int j = 0; j < 5; j++) {
+				assertEquals(GeoMath.distanceMiles(expected.get(j), location), GeoMath.distanceMiles(result.get(j), location), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void nearest_moreThanCatalog_wholeCatalogReturned() {
+		// arrange
+		GeoIndex smallIndex = new GeoIndex(attractions.subList(0, 3));
+
+		// act
+		List<Attraction> result = smallIndex.nearest(new Location(0, 0), 5);
+
+		// assert
+		assertEquals(3, result.size());
+	}
+
+	private double randomLatitude() {
+		return -85 + random.nextDouble() * 170;
+	}
+
+	private double randomLongitude() {
+		return -180 + random.nextDouble() * 360;
+	}
+}
@@ -0,0 +1,127 @@
+package tourGuide.geo;
+
+import org.junit.Test;
+import tourGuide.domain.location.Location;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestGeoMath {
+
+	private final Random random = new Random(42);
+
+	// Spherical law of cosines, as distances were computed before
+	private static double lawOfCosinesMiles(Location loc1, Location loc2) {
+		double lat1 = Math.toRadians(loc1.latitude);
+		double lon1 = Math.toRadians(loc1.longitude);
+		double lat2 = Math.toRadians(loc2.latitude);
+		double lon2 = Math.toRadians(loc2.longitude);
+		double cosAngle = Math.sin(lat1) * Math.sin(lat2) + Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2);
+		return GeoMath.STATUTE_MILES_PER_NAUTICAL_MILE * 60 * Math.toDegrees(Math.acos(Math.max(-1, Math.min(1, cosAngle))));
+	}
+
+	private Location randomLocation(double maxLatitude) {
+		return new Location(maxLatitude * (2 * random.nextDouble() - 1), 360 * random.nextDouble() - 180);
+	}
+
+	// A location about the given miles away from another, in a random direction
+	private Location randomLocationNear(Location location, double miles) {
+		double bearing = 2 * Math.PI * random.nextDouble();
+		double degrees = miles / GeoMath.MILES_PER_DEGREE;
+		double longitude = location.longitude + degrees * Math.sin(bearing) / Math.cos(Math.toRadians(location.latitude));
+		return new Location(location.latitude + degrees * Math.cos(bearing), (longitude + 540) % 360 - 180);
+	}
+
+	@Test
+	public void distanceMiles_randomLocations_sameAsLawOfCosines() {
+		for (int i = 0; i < 10000; i++) {
+			// arrange
+			Location loc1 = randomLocation(90);
+			Location loc2 = randomLocation(90);
+
+			// act
+			double distance = GeoMath.distanceMiles(loc1, loc2);
+
+			// assert
+			assertEquals(lawOfCosinesMiles(loc1, loc2), distance, 1e-6);
+		}
+	}
+
+	@Test
+	public void distanceMiles_oneThousandthOfADegree_exactToTheInch() {
+		// arrange
+		Location loc1 = new Location(33.817595D, -117.922008D);
+		Location loc2 = new Location(33.818595D, -117.922008D);
+
+		// act
+		double distance = GeoMath.distanceMiles(loc1, loc2);
+
+		// assert
+		assertEquals(GeoMath.MILES_PER_DEGREE / 1000, distance, 1e-9);
+	}
+
+	@Test
+	public void distanceMiles_geoPoints_sameAsLocations() {
+		for (int i = 0; i < 10000; i++) {
+			// arrange
+			Location loc1 = randomLocation(90);
+			Location loc2 = randomLocation(90);
+
+			// act
+			double distance = GeoMath.distanceMiles(GeoPoint.of(loc1), GeoPoint.of(loc2));
+
+			// assert
+			assertEquals(GeoMath.distanceMiles(loc1, loc2), distance, 0);
+		}
+	}
+
+	@Test
+	public void distanceMiles_equirectangularWithin100Miles_withinDocumentedBound() {
+		for (int i = 0; i < 100000; i++) {
+			// arrange
+			GeoPoint point1 = GeoPoint.of(randomLocation(79));
+			GeoPoint point2 = GeoPoint.of(randomLocationNear(new Location(point1.latitude, point1.longitude),
+					99 * random.nextDouble() + 0.01));
+
+			// act
+			double distance = GeoMath.distanceMiles(point1, point2, GeoMath.DistanceMode.EQUIRECTANGULAR);
+
+			// assert
+			double greatCircleDistance = GeoMath.distanceMiles(point1, point2);
+			assertEquals(greatCircleDistance, distance, greatCircleDistance * 0.001);
+		}
+	}
+
+	@Test
+	public void mayContain_pointsInCircle_neverRejected() {
+		for (int i = 0; i < 100000; i++) {
+			// arrange
+			GeoPoint center = GeoPoint.of(randomLocation(80));
+			GeoPoint point = GeoPoint.of(randomLocationNear(new Location(center.latitude, center.longitude),
+					300 * random.nextDouble()));
+			GeoCircle circle = new GeoCircle(center, GeoMath.distanceMiles(center, point));
+
+			// act
+			boolean mayContain = circle.mayContain(point);
+
+			// assert
+			assertTrue(mayContain);
+			assertTrue(circle.contains(point));
+		}
+	}
+
+	@Test
+	public void contains_farLatitude_rejected() {
+		// arrange
+		GeoPoint center = GeoPoint.of(new Location(33.817595D, -117.922008D));
+		Location location = new Location(34.817595D, -117.922008D);
+
+		// act
+		boolean contained = new GeoCircle(center, 10).contains(location);
+
+		// assert
+		assertFalse(contained);
+		assertTrue(new GeoCircle(center, 70).contains(location));
+	}
+}
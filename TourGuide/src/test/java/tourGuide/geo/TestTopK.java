@@ -0,0 +1,73 @@
+package tourGuide.geo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestTopK {
+
+	@Test
+	public void offer_moreItemsThanCapacity_closestKeptInOrder() {
+		// arrange
+		TopK<String> topK = new TopK<>(3);
+
+		// act
+		topK.offer("e", 5);
+		topK.offer("a", 1);
+		topK.offer("d", 4);
+		topK.offer("b", 2);
+		topK.offer("c", 3);
+
+		// assert
+		assertEquals(Arrays.asList("a", "b", "c"), topK.toList());
+		assertEquals(3, topK.distance(2), 0);
+	}
+
+	@Test
+	public void offer_sameDistance_bothItemsKept() {
+		// arrange
+		TopK<String> topK = new TopK<>(5);
+
+		// act
+		topK.offer("first", 2);
+		topK.offer("second", 2);
+		topK.offer("closer", 1);
+
+		// assert
+		assertEquals(Arrays.asList("closer", "first", "second"), topK.toList());
+	}
+
+	@Test
+	public void offer_tieWhenFull_earlierItemKept() {
+		// arrange
+		TopK<String> topK = new TopK<>(2);
+		topK.offer("a", 1);
+		topK.offer("b", 2);
+
+		// act
+		topK.offer("c", 2);
+
+		// assert
+		assertEquals(Arrays.asList("a", "b"), topK.toList());
+	}
+
+	@Test
+	public void offer_afterReading_heapStillValid() {
+		// arrange
+		TopK<String> topK = new TopK<>(3);
+		topK.offer("c", 3);
+		topK.offer("b", 2);
+		topK.offer("d", 4);
+		topK.toList();
+
+		// act
+		topK.offer("a", 1);
+		List<String> result = topK.toList();
+
+		// assert
+		assertEquals(Arrays.asList("a", "b", "c"), result);
+	}
+}
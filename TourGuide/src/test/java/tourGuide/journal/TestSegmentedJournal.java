@@ -0,0 +1,238 @@
+package tourGuide.journal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.Location;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.user.LocationHistory;
+import tourGuide.domain.user.User;
+import tourGuide.domain.user.UserReward;
+import tourGuide.repository.InMemoryUserStore;
+import tourGuide.repository.UserStore;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TestSegmentedJournal {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void replay_appendedRecords_usersRestored() throws Exception {
+		// arrange
+		Path directory = temporaryFolder.getRoot().toPath();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), new Location(33.817595D, -117.922008D), new Date());
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595D, -117.922008D);
+		UserReward userReward = new UserReward(visitedLocation, attraction);
+		try (SegmentedJournal journal = new SegmentedJournal(directory)) {
+			journal.appendUser(user);
+			journal.appendLocation(user.getUserId(), 0, visitedLocation);
+			journal.appendReward(user.getUserId(), userReward);
+			userReward.setRewardPoints(42);
+			journal.appendReward(user.getUserId(), userReward).get(5, TimeUnit.SECONDS);
+		}
+		UserStore userStore = new InMemoryUserStore();
+
+		// act
+		int replayedRecords;
+		try (SegmentedJournal journal = new SegmentedJournal(directory)) {
+			replayedRecords = journal.replay(userStore);
+		}
+
+		// assert
+		assertEquals(4, replayedRecords);
+		User restoredUser = userStore.getUserById(user.getUserId());
+		assertEquals("jon", restoredUser.getUserName());
+		assertEquals(1, restoredUser.getVisitedLocationCount());
+		assertEquals(visitedLocation.location.latitude, restoredUser.getLastVisitedLocation().location.latitude, 0);
+		assertEquals(visitedLocation.location.longitude, restoredUser.getLastVisitedLocation().location.longitude, 0);
+		assertEquals(visitedLocation.timeVisited, restoredUser.getLastVisitedLocation().timeVisited);
+		assertEquals(1, restoredUser.getUserRewards().size());
+		assertEquals("Disneyland", restoredUser.getUserRewards().get(0).attraction.attractionName);
+		assertEquals(42, restoredUser.getUserRewards().get(0).getRewardPoints());
+	}
+
+	@Test
+	public void append_concurrentRecords_committedInGroups() throws Exception {
+		// arrange
+		Path directory = temporaryFolder.getRoot().toPath();
+		int appenders = 8;
+		int recordsPerAppender = 125;
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < appenders; i++) {
+			users.add(new User(UUID.randomUUID(), "jon" + i, "000", "jon" + i + "@tourGuide.com"));
+		}
+		ExecutorService executorService = Executors.newFixedThreadPool(appenders);
+		CountDownLatch start = new CountDownLatch(1);
+
+		// act
+		try (SegmentedJournal journal = new SegmentedJournal(directory, 1024 * 1024, 5, true, 8, 10000)) {
+			for (User user : users) {
+				journal.appendUser(user);
+			}
+			List<Future<List<CompletableFuture<Void>>>> appended = new ArrayList<>();
+			for (User user : users) {
+				appended.add(executorService.submit(() -> {
+					start.await();
+					List<CompletableFuture<Void>> committed = new ArrayList<>();
+					for (int i = 0; i < recordsPerAppender; i++) {
+						committed.add(journal.appendLocation(user.getUserId(), i, i, -i, i));
+					}
+					return committed;
+				}));
+			}
+			start.countDown();
+			for (Future<List<CompletableFuture<Void>>> committed : appended) {
+				CompletableFuture.allOf(committed.get(10, TimeUnit.SECONDS).toArray(new CompletableFuture<?>[0]))
+						.get(10, TimeUnit.SECONDS);
+			}
+			executorService.shutdown();
+
+			// assert
+			assertEquals(appenders * (recordsPerAppender + 1), journal.getCommittedRecords());
+			// One fsync per group
+			assertTrue(journal.getCommittedGroups() < appenders * recordsPerAppender);
+		}
+		UserStore userStore = new InMemoryUserStore();
+		try (SegmentedJournal journal = new SegmentedJournal(directory)) {
+			assertEquals(appenders * (recordsPerAppender + 1), journal.replay(userStore));
+		}
+		for (User user : users) {
+			LocationHistory.View locations = userStore.getUserById(user.getUserId()).getLocationHistory();
+			assertEquals(recordsPerAppender, locations.size());
+			for (int i = 0; i < recordsPerAppender; i++) {
+				assertEquals(i, locations.getLatitude(i), 0);
+				assertEquals(-i, locations.getLongitude(i), 0);
+			}
+		}
+	}
+
+	@Test
+	public void replay_tornLastRecord_previousRecordsRestored() throws Exception {
+		// arrange
+		Path directory = temporaryFolder.getRoot().toPath();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		try (SegmentedJournal journal = new SegmentedJournal(directory)) {
+			journal.appendUser(user);
+			journal.appendLocation(user.getUserId(), 0, 1, 2, 3).get(5, TimeUnit.SECONDS);
+		}
+		Path segment = segments(directory).get(0);
+		Files.write(segment, ByteBuffer.allocate(12).putInt(64).putInt(0).putInt(7).array(), StandardOpenOption.APPEND);
+		UserStore userStore = new InMemoryUserStore();
+
+		// act
+		try (SegmentedJournal journal = new SegmentedJournal(directory)) {
+			journal.replay(userStore);
+		}
+
+		// assert
+		assertEquals(1, userStore.getUserById(user.getUserId()).getVisitedLocationCount());
+	}
+
+	@Test
+	public void append_writerQueueFull_recordRejectedWithoutBlocking() throws Exception {
+		// arrange
+		Path directory = temporaryFolder.getRoot().toPath();
+		UUID userId = UUID.randomUUID();
+
+		// act
+		List<CompletableFuture<Void>> committed = new ArrayList<>();
+		try (SegmentedJournal journal = new SegmentedJournal(directory, 1024 * 1024, 1000, false, 8, 1)) {
+			// The writer holds at most one record while it waits for its group, and the queue holds one more
+			for (int i = 0; i < 3; i++) {
+				committed.add(journal.appendLocation(userId, i, i, i, i));
+			}
+
+			// assert
+			assertTrue(journal.getRejectedRecords() > 0);
+			assertTrue(committed.stream().anyMatch(CompletableFuture::isCompletedExceptionally));
+		}
+	}
+
+	@Test
+	public void replay_manySegments_compactedIntoOne() throws Exception {
+		// arrange
+		Path directory = temporaryFolder.getRoot().toPath();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		for (int run = 0; run < 3; run++) {
+			try (SegmentedJournal journal = new SegmentedJournal(directory, 1024, 0, false, 2, 100)) {
+				journal.replay(new InMemoryUserStore());
+				if (run == 0) {
+					journal.appendUser(user);
+				}
+				journal.appendLocation(user.getUserId(), run, run, run, run).get(5, TimeUnit.SECONDS);
+			}
+		}
+
+		// act
+		UserStore userStore = new InMemoryUserStore();
+		try (SegmentedJournal journal = new SegmentedJournal(directory, 1024, 0, false, 2, 100)) {
+			journal.replay(userStore);
+		}
+		UserStore reopenedUserStore = new InMemoryUserStore();
+		try (SegmentedJournal journal = new SegmentedJournal(directory, 1024, 0, false, 2, 100)) {
+			journal.replay(reopenedUserStore);
+		}
+
+		// assert
+		assertTrue(segments(directory).stream().anyMatch(path -> path.toString().endsWith(".compact")));
+		assertEquals(3, userStore.getUserById(user.getUserId()).getVisitedLocationCount());
+		assertEquals(3, reopenedUserStore.getUserById(user.getUserId()).getVisitedLocationCount());
+	}
+
+	@Test
+	public void replay_locationsAlreadyRestored_locationsSkipped() throws Exception {
+		// arrange
+		Path directory = temporaryFolder.getRoot().toPath();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		try (SegmentedJournal journal = new SegmentedJournal(directory)) {
+			journal.appendUser(user);
+			for (int i = 0; i < 3; i++) {
+				journal.appendLocation(user.getUserId(), i, i, i, i);
+			}
+			journal.appendLocation(user.getUserId(), 3, 3, 3, 3).get(5, TimeUnit.SECONDS);
+		}
+		UserStore userStore = new InMemoryUserStore();
+		User restoredUser = new User(user.getUserId(), "jon", "000", "jon@tourGuide.com");
+		restoredUser.addToVisitedLocations(0, 0, 0);
+		restoredUser.addToVisitedLocations(1, 1, 1);
+		userStore.addUser(restoredUser);
+
+		// act
+		int replayedRecords;
+		try (SegmentedJournal journal = new SegmentedJournal(directory)) {
+			replayedRecords = journal.replay(userStore);
+		}
+
+		// assert
+		assertEquals(2, replayedRecords);
+		assertEquals(4, restoredUser.getVisitedLocationCount());
+		assertEquals(3, restoredUser.getLocationHistory().getLatitude(3), 0);
+	}
+
+	private static List<Path> segments(Path directory) throws Exception {
+		try (Stream<Path> paths = Files.list(directory)) {
+			return paths.filter(path -> Files.isRegularFile(path)).sorted().collect(Collectors.toList());
+		}
+	}
+}
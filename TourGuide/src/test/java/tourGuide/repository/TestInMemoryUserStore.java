@@ -0,0 +1,101 @@
+package tourGuide.repository;
+
+import org.junit.Test;
+import tourGuide.domain.user.User;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestInMemoryUserStore {
+
+	@Test
+	public void addUser_newUser_foundByNameAndId() {
+		// arrange
+		UserStore userStore = new InMemoryUserStore();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		// act
+		boolean added = userStore.addUser(user);
+
+		// assert
+		assertTrue(added);
+		assertSame(user, userStore.getUser("jon"));
+		assertSame(user, userStore.getUserById(user.getUserId()));
+		assertEquals(1, userStore.size());
+	}
+
+	@Test
+	public void addUser_nameAlreadyStored_userNotReplaced() {
+		// arrange
+		UserStore userStore = new InMemoryUserStore();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User sameName = new User(UUID.randomUUID(), "jon", "111", "jon2@tourGuide.com");
+		userStore.addUser(user);
+
+		// act
+		boolean added = userStore.addUser(sameName);
+
+		// assert
+		assertFalse(added);
+		assertSame(user, userStore.getUser("jon"));
+		assertNull(userStore.getUserById(sameName.getUserId()));
+	}
+
+	@Test
+	public void removeUser_storedUser_removedFromBothIndexes() {
+		// arrange
+		UserStore userStore = new InMemoryUserStore();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		userStore.addUser(user);
+
+		// act
+		User removed = userStore.removeUser("jon");
+
+		// assert
+		assertSame(user, removed);
+		assertNull(userStore.getUser("jon"));
+		assertNull(userStore.getUserById(user.getUserId()));
+		assertTrue(userStore.getUsers().isEmpty());
+	}
+
+	@Test
+	public void getUsers_usersAddedWhileIterating_iterationCompletes() throws Exception {
+		// arrange
+		UserStore userStore = new InMemoryUserStore();
+		for (int i = 0; i < 1000; i++) {
+			userStore.addUser(new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"));
+		}
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		CountDownLatch iterationStarted = new CountDownLatch(1);
+
+		// act
+		Future<?> writer = executorService.submit(() -> {
+			iterationStarted.await();
+			for (int i = 1000; i < 20000; i++) {
+				userStore.addUser(new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"));
+			}
+			return null;
+		});
+		int iterated;
+		// The writer only starts once the first iteration has, so that at least one iteration overlaps it
+		do {
+			iterated = 0;
+			for (User ignored : userStore.getUsers()) {
+				iterationStarted.countDown();
+				iterated++;
+			}
+		} while (!writer.isDone());
+		writer.get(1, TimeUnit.SECONDS);
+		executorService.shutdown();
+
+		// assert
+		assertTrue(iterated >= 1000);
+		assertEquals(20000, userStore.size());
+	}
+}
@@ -0,0 +1,89 @@
+package tourGuide.repository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import tourGuide.domain.user.LocationHistory;
+import tourGuide.domain.user.User;
+import tourGuide.helper.InternalTestHelper;
+
+import static org.junit.Assert.*;
+
+public class TestInternalUserGeneration {
+
+	private int internalUserNumber;
+
+	@Before
+	public void setup() {
+		internalUserNumber = InternalTestHelper.getInternalUserNumber();
+		InternalTestHelper.setInternalUserNumber(10000);
+	}
+
+	@After
+	public void tearDown() {
+		InternalTestHelper.setInternalUserNumber(internalUserNumber);
+	}
+
+	@Test
+	public void initializeInternalUsers_sameSeed_sameUsers() throws InterruptedException {
+		// arrange
+		TestUserRepository testUserRepository = new TestUserRepository(new InMemoryUserStore(), 42, 3);
+		TestUserRepository otherTestUserRepository = new TestUserRepository(new InMemoryUserStore(), 42, 3);
+
+		// act
+		testUserRepository.initializeInternalUsers();
+		// later, so that times taken from the clock would differ
+		Thread.sleep(5);
+		otherTestUserRepository.initializeInternalUsers();
+
+		// assert
+		for (int i = 0; i < 10000; i += 997) {
+			User user = testUserRepository.getUserStore().getUser("internalUser" + i);
+			User otherUser = otherTestUserRepository.getUserStore().getUser("internalUser" + i);
+			assertEquals(user.getUserId(), otherUser.getUserId());
+			LocationHistory.View locations = user.getLocationHistory();
+			LocationHistory.View otherLocations = otherUser.getLocationHistory();
+			for (int j = 0; j < locations.size(); j++) {
+				assertEquals(locations.getLatitude(j), otherLocations.getLatitude(j), 0);
+				assertEquals(locations.getLongitude(j), otherLocations.getLongitude(j), 0);
+				assertEquals(locations.getTimeMillis(j), otherLocations.getTimeMillis(j));
+			}
+		}
+	}
+
+	@Test
+	public void initializeInternalUsers_otherSeed_otherUsers() {
+		// arrange
+		TestUserRepository testUserRepository = new TestUserRepository(new InMemoryUserStore(), 42, 3);
+		TestUserRepository otherTestUserRepository = new TestUserRepository(new InMemoryUserStore(), 43, 3);
+
+		// act
+		testUserRepository.initializeInternalUsers();
+		otherTestUserRepository.initializeInternalUsers();
+
+		// assert
+		assertNotEquals(testUserRepository.getUserStore().getUser("internalUser0").getUserId(),
+				otherTestUserRepository.getUserStore().getUser("internalUser0").getUserId());
+	}
+
+	@Test
+	public void initializeInternalUsers_historyDepth_locationsGenerated() {
+		// arrange
+		TestUserRepository testUserRepository = new TestUserRepository(new InMemoryUserStore(), 42, 10);
+
+		// act
+		testUserRepository.initializeInternalUsers();
+
+		// assert
+		UserStore userStore = testUserRepository.getUserStore();
+		assertEquals(10000, userStore.size());
+		for (User user : userStore.getUsers()) {
+			LocationHistory.View locations = user.getLocationHistory();
+			assertEquals(10, locations.size());
+			for (int i = 0; i < locations.size(); i++) {
+				assertTrue(Math.abs(locations.getLatitude(i)) <= 85.05112878);
+				assertTrue(Math.abs(locations.getLongitude(i)) <= 180);
+			}
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package tourGuide.repository;
+
+import org.javamoney.moneta.Money;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.Location;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.user.LocationHistory;
+import tourGuide.domain.user.User;
+import tourGuide.domain.user.UserPreferences;
+import tourGuide.domain.user.UserReward;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class TestUserStoreSnapshot {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void load_writtenSnapshot_usersRestored() throws Exception {
+		// arrange
+		Path path = temporaryFolder.getRoot().toPath().resolve("users.snapshot");
+		UserStore userStore = new InMemoryUserStore();
+		for (int i = 0; i < 100; i++) {
+			userStore.addUser(new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"));
+		}
+		User user = userStore.getUser("user42");
+		UserPreferences userPreferences = new UserPreferences();
+		userPreferences.setTripDuration(7);
+		userPreferences.setNumberOfAdults(2);
+		userPreferences.setLowerPricePoint(Money.of(100, "USD"));
+		user.setUserPreferences(userPreferences);
+		for (int i = 0; i < 150; i++) {
+			user.addToVisitedLocations(i, -i, 1000L * i);
+		}
+		VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), new Location(33.817595D, -117.922008D), new Date());
+		user.addUserReward(new UserReward(visitedLocation, new Attraction("Disneyland", "Anaheim", "CA", 33.817595D, -117.922008D), 42));
+		UserStoreSnapshot userStoreSnapshot = new UserStoreSnapshot(path);
+		userStoreSnapshot.write(userStore);
+		UserStore restoredUserStore = new InMemoryUserStore();
+
+		// act
+		int loadedUsers = userStoreSnapshot.load(restoredUserStore);
+
+		// assert
+		assertEquals(100, loadedUsers);
+		assertEquals(100, restoredUserStore.size());
+		User restoredUser = restoredUserStore.getUserById(user.getUserId());
+		assertEquals("user42", restoredUser.getUserName());
+		assertEquals(7, restoredUser.getUserPreferences().getTripDuration());
+		assertEquals(2, restoredUser.getUserPreferences().getNumberOfAdults());
+		assertEquals(Money.of(100, "USD"), restoredUser.getUserPreferences().getLowerPricePoint());
+		LocationHistory.View locations = restoredUser.getLocationHistory();
+		assertEquals(150, locations.size());
+		assertEquals(149, locations.getLatitude(149), 0);
+		assertEquals(-149, locations.getLongitude(149), 0);
+		assertEquals(149000L, locations.getTimeMillis(149));
+		assertEquals(1, restoredUser.getUserRewards().size());
+		assertEquals("Disneyland", restoredUser.getUserRewards().get(0).attraction.attractionName);
+		assertEquals(42, restoredUser.getUserRewards().get(0).getRewardPoints());
+		assertEquals(visitedLocation.timeVisited, restoredUser.getUserRewards().get(0).visitedLocation.timeVisited);
+	}
+
+	@Test
+	public void write_rewardsAddedWhileWriting_snapshotWritten() throws Exception {
+		// arrange
+		Path path = temporaryFolder.getRoot().toPath().resolve("users.snapshot");
+		UserStore userStore = new InMemoryUserStore();
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			User user = new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com");
+			userStore.addUser(user);
+			users.add(user);
+		}
+		UserStoreSnapshot userStoreSnapshot = new UserStoreSnapshot(path);
+		AtomicBoolean writing = new AtomicBoolean(true);
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		Future<?> tracker = executorService.submit(() -> {
+			VisitedLocation visitedLocation = new VisitedLocation(UUID.randomUUID(), new Location(0, 0), new Date());
+			for (int i = 0; writing.get(); i++) {
+				users.get(i % users.size()).addUserReward(new UserReward(visitedLocation,
+						new Attraction("attraction" + i, "city", "state", 0, 0), 1));
+			}
+		});
+
+		// act
+		try {
+			for (int i = 0; i < 20; i++) {
+				userStoreSnapshot.write(userStore);
+			}
+		} finally {
+			writing.set(false);
+			tracker.get(5, TimeUnit.SECONDS);
+			executorService.shutdown();
+		}
+		UserStore restoredUserStore = new InMemoryUserStore();
+		int loadedUsers = userStoreSnapshot.load(restoredUserStore);
+
+		// assert
+		assertEquals(200, loadedUsers);
+		for (User user : users) {
+			List<UserReward> restoredRewards = restoredUserStore.getUserById(user.getUserId()).getUserRewards();
+			assertTrue(restoredRewards.size() <= user.getUserRewards().size());
+			for (int i = 0; i < restoredRewards.size(); i++) {
+				assertEquals(user.getUserRewards().get(i).attraction.attractionName,
+						restoredRewards.get(i).attraction.attractionName);
+			}
+		}
+	}
+
+	@Test
+	public void load_noSnapshot_noUserAdded() throws Exception {
+		// arrange
+		UserStoreSnapshot userStoreSnapshot = new UserStoreSnapshot(temporaryFolder.getRoot().toPath().resolve("missing"));
+		UserStore userStore = new InMemoryUserStore();
+
+		// act
+		int loadedUsers = userStoreSnapshot.load(userStore);
+
+		// assert
+		assertEquals(0, loadedUsers);
+		assertEquals(0, userStore.size());
+	}
+
+	@Test
+	public void load_corruptBlock_exceptionThrownAndNoUserAdded() throws Exception {
+		// arrange
+		Path path = temporaryFolder.getRoot().toPath().resolve("users.snapshot");
+		UserStore userStore = new InMemoryUserStore();
+		for (int i = 0; i < 10; i++) {
+			userStore.addUser(new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"));
+		}
+		UserStoreSnapshot userStoreSnapshot = new UserStoreSnapshot(path);
+		userStoreSnapshot.write(userStore);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xff}), 30);
+		}
+		UserStore restoredUserStore = new InMemoryUserStore();
+
+		// act
+		try {
+			userStoreSnapshot.load(restoredUserStore);
+			fail("Corrupt snapshot loaded");
+		} catch (IOException e) {
+			// assert
+			assertEquals(0, restoredUserStore.size());
+		}
+	}
+}
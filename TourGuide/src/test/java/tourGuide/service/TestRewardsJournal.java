@@ -0,0 +1,127 @@
+package tourGuide.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import tourGuide.cache.RewardPointsCache;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.client.LocationClient;
+import tourGuide.client.LocationServiceStub;
+import tourGuide.client.RewardsClient;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.user.User;
+import tourGuide.domain.user.UserReward;
+import tourGuide.journal.NoOpJournal;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestRewardsJournal {
+
+	private final Attraction disneyland = new Attraction("Disneyland", "Anaheim", "CA", 33.817595D, -117.922008D);
+	private final User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+	private final AtomicInteger journaledRewards = new AtomicInteger();
+
+	private LocationServiceStub locationServiceStub;
+	private AttractionCatalog attractionCatalog;
+
+	@Before
+	public void setup() throws IOException {
+		locationServiceStub = new LocationServiceStub();
+		locationServiceStub.setAttractions(Collections.singletonList(disneyland));
+		attractionCatalog = new AttractionCatalog(new LocationClient(new RestTemplate(), WebClient.create(),
+				locationServiceStub.getURI()), 0);
+		user.addToVisitedLocations(disneyland.latitude, disneyland.longitude, 1000);
+	}
+
+	@After
+	public void tearDown() {
+		attractionCatalog.shutdown();
+		locationServiceStub.stop();
+	}
+
+	private RewardsService rewardsService(RewardsClient rewardsClient) {
+		return new RewardsService(rewardsClient, attractionCatalog, new RewardPointsCache(), new NoOpJournal() {
+			@Override
+			public CompletableFuture<Void> appendReward(UUID userId, UserReward userReward) {
+				journaledRewards.incrementAndGet();
+				return super.appendReward(userId, userReward);
+			}
+		});
+	}
+
+	// Rewards the user for the attraction while its points are being fetched, as a concurrent calculation would
+	private RewardsClient concurrentlyRewardingClient(boolean failing) {
+		return new RewardsClient(new RestTemplate()) {
+			@Override
+			public Integer getRewardPoints(UUID attractionId, UUID userId) {
+				user.addUserReward(new UserReward(new VisitedLocation(userId, disneyland, null), disneyland, 10));
+				if (failing) {
+					throw new RestClientException("Rewards service down");
+				}
+				return 20;
+			}
+
+			@Override
+			public CompletableFuture<Integer> getRewardPointsAsync(UUID attractionId, UUID userId) {
+				CompletableFuture<Integer> rewardPoints = new CompletableFuture<>();
+				try {
+					rewardPoints.complete(getRewardPoints(attractionId, userId));
+				} catch (RestClientException e) {
+					rewardPoints.completeExceptionally(e);
+				}
+				return rewardPoints;
+			}
+		};
+	}
+
+	@Test
+	public void calculateRewards_rewardAddedConcurrently_rewardNotJournaledTwice() {
+		// arrange
+		RewardsService rewardsService = rewardsService(concurrentlyRewardingClient(false));
+
+		// act
+		rewardsService.calculateRewards(user);
+
+		// assert
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(10, user.getCumulativeRewardPoints());
+		assertEquals(0, journaledRewards.get());
+	}
+
+	@Test
+	public void calculateRewards_rewardAddedConcurrentlyWhileRewardsServiceDown_rewardPointsNotDeferred() {
+		// arrange
+		RewardsService rewardsService = rewardsService(concurrentlyRewardingClient(true));
+
+		// act
+		rewardsService.calculateRewards(user);
+
+		// assert
+		assertEquals(0, rewardsService.getPendingRewardPointsCount());
+		assertEquals(0, journaledRewards.get());
+	}
+
+	@Test
+	public void calculateRewardsAsync_rewardAddedConcurrentlyWhileRewardsServiceDown_rewardNotJournaledNorDeferred() {
+		// arrange
+		RewardsService rewardsService = rewardsService(concurrentlyRewardingClient(true));
+
+		// act
+		rewardsService.calculateRewardsAsync(user).join();
+
+		// assert
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(0, rewardsService.getPendingRewardPointsCount());
+		assertEquals(0, journaledRewards.get());
+	}
+}
@@ -31,7 +31,7 @@ public class TestRewardsService {
 		restTemplate = new RestTemplate();
 		rewardsService = new RewardsService(restTemplate);
 		testUserRepository = new TestUserRepository();
-		tourGuideService = new TourGuideService(rewardsService, testUserRepository, restTemplate);
+		tourGuideService = TourGuideService.builder(rewardsService, testUserRepository).restTemplate(restTemplate).build();
 		InternalTestHelper.setInternalUserNumber(0);
 		tourGuideService.tracker.stopTracking();
 	}
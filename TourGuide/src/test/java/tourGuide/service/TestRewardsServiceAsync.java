@@ -0,0 +1,101 @@
+package tourGuide.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import tourGuide.cache.RewardPointsCache;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.client.LocationClient;
+import tourGuide.client.LocationServiceStub;
+import tourGuide.client.RewardsClient;
+import tourGuide.client.RewardsServiceStub;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.user.User;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestRewardsServiceAsync {
+
+	private final Attraction disneyland = new Attraction("Disneyland", "Anaheim", "CA", 33.817595D, -117.922008D);
+	private final User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+	private LocationServiceStub locationServiceStub;
+	private RewardsServiceStub rewardsServiceStub;
+	private AttractionCatalog attractionCatalog;
+	private RewardsService rewardsService;
+
+	@Before
+	public void setup() throws IOException {
+		locationServiceStub = new LocationServiceStub();
+		locationServiceStub.setAttractions(Collections.singletonList(disneyland));
+		rewardsServiceStub = new RewardsServiceStub();
+		attractionCatalog = new AttractionCatalog(new LocationClient(new RestTemplate(), WebClient.create(),
+				locationServiceStub.getURI()), 0);
+		rewardsService = new RewardsService(new RewardsClient(new RestTemplate(), WebClient.create(),
+				rewardsServiceStub.getURI()), attractionCatalog, new RewardPointsCache());
+		user.addToVisitedLocations(disneyland.latitude, disneyland.longitude, 1000);
+	}
+
+	@After
+	public void tearDown() {
+		attractionCatalog.shutdown();
+		locationServiceStub.stop();
+		rewardsServiceStub.stop();
+	}
+
+	@Test
+	public void calculateRewardsAsync_rewardsServiceUp_rewardAddedWithPoints() throws Exception {
+		// arrange
+		rewardsServiceStub.setRewardPoints(250);
+
+		// act
+		rewardsService.calculateRewardsAsync(user).get(5, TimeUnit.SECONDS);
+
+		// assert
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(250, user.getUserReward("Disneyland").getRewardPoints());
+		assertEquals(250, user.getCumulativeRewardPoints());
+	}
+
+	@Test
+	public void calculateRewardsAsync_rewardsServiceFailing_rewardAddedAndPointsFilledLater() throws Exception {
+		// arrange
+		rewardsServiceStub.setFailing(true);
+
+		// act
+		rewardsService.calculateRewardsAsync(user).get(5, TimeUnit.SECONDS);
+		int pendingWhileFailing = rewardsService.getPendingRewardPointsCount();
+		rewardsServiceStub.setFailing(false);
+		int filled = rewardsService.fillPendingRewardPoints().get(5, TimeUnit.SECONDS);
+
+		// assert
+		assertEquals(1, pendingWhileFailing);
+		assertEquals(1, filled);
+		assertEquals(0, rewardsService.getPendingRewardPointsCount());
+		assertEquals(100, user.getCumulativeRewardPoints());
+	}
+
+	@Test
+	public void calculateRewardsAsync_locationServiceDown_futureFailsAndNoRewardAdded() throws Exception {
+		// arrange
+		locationServiceStub.stop();
+
+		// act
+		try {
+			rewardsService.calculateRewardsAsync(user).get(5, TimeUnit.SECONDS);
+			fail("Future completed normally");
+		} catch (ExecutionException e) {
+			// assert
+			assertNotNull(e.getCause());
+		}
+		assertTrue(user.getUserRewards().isEmpty());
+	}
+}
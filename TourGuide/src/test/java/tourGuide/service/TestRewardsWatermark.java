@@ -0,0 +1,142 @@
+package tourGuide.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import tourGuide.cache.RewardPointsCache;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.client.LocationClient;
+import tourGuide.client.LocationServiceStub;
+import tourGuide.client.RewardsClient;
+import tourGuide.client.RewardsServiceStub;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.user.User;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class TestRewardsWatermark {
+
+	private final Attraction disneyland = new Attraction("Disneyland", "Anaheim", "CA", 33.817595D, -117.922008D);
+	private final Attraction jacksonHole = new Attraction("Jackson Hole", "Jackson Hole", "WY", 43.582767D, -110.821999D);
+	private final User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+	private LocationServiceStub locationServiceStub;
+	private RewardsServiceStub rewardsServiceStub;
+	private AttractionCatalog attractionCatalog;
+	private RewardsService rewardsService;
+
+	@Before
+	public void setup() throws IOException {
+		locationServiceStub = new LocationServiceStub();
+		locationServiceStub.setAttractions(Collections.singletonList(disneyland));
+		rewardsServiceStub = new RewardsServiceStub();
+		attractionCatalog = new AttractionCatalog(new LocationClient(new RestTemplate(), WebClient.create(),
+				locationServiceStub.getURI()), 0);
+		rewardsService = new RewardsService(new RewardsClient(new RestTemplate(), WebClient.create(),
+				rewardsServiceStub.getURI()), attractionCatalog, new RewardPointsCache());
+	}
+
+	@After
+	public void tearDown() {
+		attractionCatalog.shutdown();
+		locationServiceStub.stop();
+		rewardsServiceStub.stop();
+	}
+
+	private int firstUnevaluatedLocation() {
+		return rewardsService.firstUnevaluatedLocation(user, user.getLocationHistory(), attractionCatalog.getSnapshot());
+	}
+
+	@Test
+	public void calculateRewards_locationsAdded_onlyNewLocationsScanned() {
+		// arrange
+		user.addToVisitedLocations(0, 0, 1000);
+		user.addToVisitedLocations(1, 1, 2000);
+		rewardsService.calculateRewards(user);
+		user.addToVisitedLocations(disneyland.latitude, disneyland.longitude, 3000);
+
+		// act
+		int firstLocation = firstUnevaluatedLocation();
+		rewardsService.calculateRewards(user);
+
+		// assert
+		assertEquals(2, firstLocation);
+		assertEquals(3, firstUnevaluatedLocation());
+		assertTrue(user.hasUserReward("Disneyland"));
+	}
+
+	@Test
+	public void calculateRewards_fullRescanOfRewardedHistory_noRewardAddedTwice() {
+		// arrange
+		user.addToVisitedLocations(disneyland.latitude, disneyland.longitude, 1000);
+		rewardsService.calculateRewards(user);
+
+		// act
+		rewardsService.calculateRewards(user, true);
+
+		// assert
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(1, rewardsServiceStub.getRewardPointsRequests());
+	}
+
+	@Test
+	public void calculateRewards_historyCleared_fullRescan() {
+		// arrange
+		user.addToVisitedLocations(0, 0, 1000);
+		user.addToVisitedLocations(1, 1, 2000);
+		rewardsService.calculateRewards(user);
+
+		// act
+		user.clearVisitedLocations();
+		user.addToVisitedLocations(disneyland.latitude, disneyland.longitude, 3000);
+		int afterClear = firstUnevaluatedLocation();
+		user.addToVisitedLocations(2, 2, 4000);
+		user.addToVisitedLocations(3, 3, 5000);
+		int afterReplace = firstUnevaluatedLocation();
+		rewardsService.calculateRewards(user);
+
+		// assert
+		assertEquals(0, afterClear);
+		assertEquals(0, afterReplace);
+		assertTrue(user.hasUserReward("Disneyland"));
+	}
+
+	@Test
+	public void calculateRewards_attractionAddedToCatalog_evaluatedLocationsScannedAgain() {
+		// arrange
+		user.addToVisitedLocations(jacksonHole.latitude, jacksonHole.longitude, 1000);
+		rewardsService.calculateRewards(user);
+		locationServiceStub.setAttractions(Arrays.asList(disneyland, jacksonHole));
+
+		// act
+		attractionCatalog.refresh();
+		rewardsService.calculateRewards(user);
+
+		// assert
+		assertEquals(2, attractionCatalog.getVersion());
+		assertTrue(user.hasUserReward("Jackson Hole"));
+	}
+
+	@Test
+	public void calculateRewards_proximityBufferWidened_evaluatedLocationsScannedAgain() {
+		// arrange
+		// about 20 miles north of Disneyland
+		user.addToVisitedLocations(disneyland.latitude + 0.29, disneyland.longitude, 1000);
+		rewardsService.calculateRewards(user);
+		assertFalse(user.hasUserReward("Disneyland"));
+
+		// act
+		rewardsService.setProximityBuffer(30);
+		rewardsService.calculateRewards(user);
+
+		// assert
+		assertTrue(user.hasUserReward("Disneyland"));
+	}
+}
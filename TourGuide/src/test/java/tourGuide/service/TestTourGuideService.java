@@ -4,6 +4,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.Ignore;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import tourGuide.cache.RewardPointsCache;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.client.LocationBatcher;
+import tourGuide.client.LocationClient;
+import tourGuide.client.LocationServiceStub;
+import tourGuide.client.RewardsClient;
 import tourGuide.domain.location.Location;
 import tourGuide.domain.location.NearbyAttraction;
 import tourGuide.domain.location.VisitedLocation;
@@ -33,7 +40,7 @@ public class TestTourGuideService {
 		restTemplate = new RestTemplate();
 		rewardsService = new RewardsService(restTemplate);
 		testUserRepository = new TestUserRepository();
-		tourGuideService = new TourGuideService(rewardsService, testUserRepository, restTemplate);
+		tourGuideService = TourGuideService.builder(rewardsService, testUserRepository).restTemplate(restTemplate).build();
 		InternalTestHelper.setInternalUserNumber(0);
 		tourGuideService.tracker.stopTracking();
 	}
@@ -140,7 +147,11 @@ public class TestTourGuideService {
 		Map<String, Location> resultsMap = tourGuideService.getAllUsersLocations();
 
 		// assert
-		assertEquals(allLocationsMap, resultsMap);
+		assertEquals(allLocationsMap.keySet(), resultsMap.keySet());
+		for (Map.Entry<String, Location> expected : allLocationsMap.entrySet()) {
+			assertEquals(expected.getValue().latitude, resultsMap.get(expected.getKey()).latitude, 0);
+			assertEquals(expected.getValue().longitude, resultsMap.get(expected.getKey()).longitude, 0);
+		}
 	}
 
 	@Ignore
@@ -167,6 +178,36 @@ public class TestTourGuideService {
 		assertEquals(user.getUserId(), visitedLocation.userId);
 	}
 
+	@Test
+	public void trackUserLocations_severalUsers_locationsFetchedInBatches() throws Exception {
+		// arrange
+		LocationServiceStub locationServiceStub = new LocationServiceStub();
+		LocationClient locationClient = new LocationClient(restTemplate, WebClient.create(), locationServiceStub.getURI());
+		AttractionCatalog attractionCatalog = new AttractionCatalog(locationClient, 0);
+		RewardsService stubRewardsService = new RewardsService(new RewardsClient(restTemplate), attractionCatalog, new RewardPointsCache());
+		TourGuideService stubTourGuideService = TourGuideService.builder(stubRewardsService, new TestUserRepository())
+				.restTemplate(restTemplate).locationClient(locationClient).locationBatcher(new LocationBatcher(locationClient, 4, 20))
+				.build();
+		stubTourGuideService.tracker.stopTracking();
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			users.add(new User(UUID.randomUUID(), "jon" + i, "000", "jon" + i + "@tourGuide.com"));
+		}
+
+		// act
+		List<VisitedLocation> visitedLocations = stubTourGuideService.trackUserLocations(users);
+
+		// assert
+		locationServiceStub.stop();
+		assertEquals(10, visitedLocations.size());
+		for (int i = 0; i < users.size(); i++) {
+			assertEquals(users.get(i).getUserId(), visitedLocations.get(i).userId);
+			assertEquals(1, users.get(i).getVisitedLocations().size());
+		}
+		assertEquals(3, locationServiceStub.getBatchRequests());
+		assertEquals(0, locationServiceStub.getUserLocationRequests());
+	}
+
 	@Test
 	public void getUserRewards_usersExistsNoRewards_emptyRewardsListReturned() {
 		// arrange
@@ -0,0 +1,182 @@
+package tourGuide.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import tourGuide.cache.RewardPointsCache;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.client.Bulkhead;
+import tourGuide.client.LocationClient;
+import tourGuide.client.LocationServiceStub;
+import tourGuide.client.RewardsClient;
+import tourGuide.client.RewardsServiceStub;
+import tourGuide.client.TripPricerClient;
+import tourGuide.client.TripPricerServiceStub;
+import tourGuide.domain.location.Attraction;
+import tourGuide.domain.location.VisitedLocation;
+import tourGuide.domain.rewards.Provider;
+import tourGuide.domain.user.User;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.repository.TestUserRepository;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class TestTourGuideServiceAsync {
+
+	private final User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+	private LocationServiceStub locationServiceStub;
+	private RewardsServiceStub rewardsServiceStub;
+	private TripPricerServiceStub tripPricerServiceStub;
+	private LocationClient locationClient;
+	private AttractionCatalog attractionCatalog;
+	private RewardsService rewardsService;
+	private TourGuideService tourGuideService;
+
+	@Before
+	public void setup() throws IOException {
+		InternalTestHelper.setInternalUserNumber(0);
+		locationServiceStub = new LocationServiceStub();
+		rewardsServiceStub = new RewardsServiceStub();
+		tripPricerServiceStub = new TripPricerServiceStub();
+		RestTemplate restTemplate = new RestTemplate();
+		locationClient = new LocationClient(restTemplate, WebClient.create(), locationServiceStub.getURI());
+		attractionCatalog = new AttractionCatalog(locationClient, 0);
+		rewardsService = new RewardsService(new RewardsClient(restTemplate, WebClient.create(),
+				rewardsServiceStub.getURI()), attractionCatalog, new RewardPointsCache());
+		tourGuideService = TourGuideService.builder(rewardsService, new TestUserRepository()).locationClient(locationClient)
+				.tripPricerClient(new TripPricerClient(restTemplate, WebClient.create(), tripPricerServiceStub.getURI()))
+				.build();
+		tourGuideService.tracker.stopTracking();
+	}
+
+	@After
+	public void tearDown() {
+		attractionCatalog.shutdown();
+		locationServiceStub.stop();
+		rewardsServiceStub.stop();
+		tripPricerServiceStub.stop();
+	}
+
+	// The failure a caller joining the future gets
+	private static Throwable failure(CompletableFuture<?> future) throws InterruptedException {
+		try {
+			future.get(5, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			return e.getCause();
+		} catch (TimeoutException e) {
+			fail("Future neither completed nor failed");
+		}
+		fail("Future completed normally");
+		return null;
+	}
+
+	@Test
+	public void trackUserLocationAsync_locationServiceUp_locationAddedAndRewardsCalculated() throws Exception {
+		// arrange
+		Attraction attraction = new Attraction("Everywhere", "", "", 0, 0);
+		locationServiceStub.setAttractions(Collections.singletonList(attraction));
+		rewardsService.setProximityBuffer(25000);
+
+		// act
+		VisitedLocation visitedLocation = tourGuideService.trackUserLocationAsync(user).get(5, TimeUnit.SECONDS);
+
+		// assert
+		assertEquals(user.getUserId(), visitedLocation.userId);
+		assertEquals(1, user.getVisitedLocationCount());
+		assertSame(visitedLocation, user.getLastVisitedLocation());
+		assertTrue(user.hasUserReward("Everywhere"));
+		assertEquals(100, user.getCumulativeRewardPoints());
+	}
+
+	@Test
+	public void trackUserLocationAsync_locationServiceDown_futureFailsAndNoLocationAdded() throws Exception {
+		// arrange
+		locationServiceStub.stop();
+
+		// act
+		Throwable failure = failure(tourGuideService.trackUserLocationAsync(user));
+
+		// assert
+		assertNotNull(failure);
+		assertEquals(0, user.getVisitedLocationCount());
+	}
+
+	@Test
+	public void getTripDealsAsync_pricerServiceUp_dealsReturnedAndCached() throws Exception {
+		// act
+		List<Provider> tripDeals = tourGuideService.getTripDealsAsync(user).get(5, TimeUnit.SECONDS);
+		List<Provider> cachedTripDeals = tourGuideService.getTripDealsAsync(user).get(5, TimeUnit.SECONDS);
+
+		// assert
+		assertEquals(1, tripDeals.size());
+		assertEquals(TripPricerServiceStub.providerName, tripDeals.get(0).name);
+		assertSame(tripDeals, user.getTripDeals());
+		assertSame(tripDeals, cachedTripDeals);
+		assertEquals(1, tripPricerServiceStub.getTripDealsRequests());
+	}
+
+	@Test
+	public void getTripDealsAsync_pricerServiceFailing_futureFailsAndDealsKept() throws Exception {
+		// arrange
+		tripPricerServiceStub.setStatus(500);
+
+		// act
+		Throwable failure = failure(tourGuideService.getTripDealsAsync(user));
+
+		// assert
+		assertTrue(failure instanceof WebClientResponseException);
+		assertEquals(500, ((WebClientResponseException) failure).getRawStatusCode());
+		assertTrue(user.getTripDeals().isEmpty());
+	}
+
+	@Test
+	public void getTripDealsAsync_cancelledWhilePricerServiceSlow_bulkheadPermitReleased() throws Exception {
+		// arrange
+		tripPricerServiceStub.setDelayMillis(TimeUnit.MINUTES.toMillis(1));
+		Bulkhead bulkhead = new Bulkhead("pricer", 1, 0, 0);
+		TourGuideService slowPricerTourGuideService = TourGuideService.builder(rewardsService, new TestUserRepository())
+				.locationClient(locationClient).tripPricerClient(new TripPricerClient(new RestTemplate(), WebClient.create(),
+				tripPricerServiceStub.getURI(), bulkhead)).build();
+		slowPricerTourGuideService.tracker.stopTracking();
+		CompletableFuture<List<Provider>> tripDeals = slowPricerTourGuideService.getTripDealsAsync(user);
+		while (tripPricerServiceStub.getTripDealsRequests() == 0) {
+			TimeUnit.MILLISECONDS.sleep(1);
+		}
+		assertEquals(1, bulkhead.getActiveCalls());
+
+		// act
+		tripDeals.cancel(true);
+
+		// assert
+		assertEquals(0, bulkhead.getActiveCalls());
+		tripPricerServiceStub.setDelayMillis(0);
+		List<Provider> nextTripDeals = slowPricerTourGuideService.getTripDealsAsync(user).get(5, TimeUnit.SECONDS);
+		assertEquals(TripPricerServiceStub.providerName, nextTripDeals.get(0).name);
+	}
+
+	@Test
+	public void getTripDealsAsync_emptyResponse_futureFails() throws Exception {
+		// arrange
+		tripPricerServiceStub.setEmpty(true);
+
+		// act
+		Throwable failure = failure(tourGuideService.getTripDealsAsync(user));
+
+		// assert
+		assertTrue(failure instanceof RestClientException);
+	}
+}
@@ -0,0 +1,63 @@
+package tourGuide.tracker;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class TestTimingWheel {
+
+	@Test
+	public void add_manyKeys_spreadEvenlyOverSlots() {
+		// arrange
+		TimingWheel<UUID, UUID> timingWheel = new TimingWheel<>(100);
+
+		// act
+		for (int i = 0; i < 100000; i++) {
+			UUID userId = UUID.randomUUID();
+			timingWheel.add(userId, userId);
+		}
+
+		// assert
+		assertEquals(100000, timingWheel.size());
+		for (int slot = 0; slot < timingWheel.getSlotCount(); slot++) {
+			int slotSize = timingWheel.getSlot(slot).size();
+			assertTrue("slot " + slot + " has " + slotSize + " entries", slotSize > 800 && slotSize < 1200);
+		}
+	}
+
+	@Test
+	public void addAndRemove_oneKey_otherKeysKeepTheirSlot() {
+		// arrange
+		TimingWheel<UUID, UUID> timingWheel = new TimingWheel<>(10);
+		List<UUID> userIds = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			UUID userId = UUID.randomUUID();
+			userIds.add(userId);
+			timingWheel.add(userId, userId);
+		}
+		List<Integer> slots = new ArrayList<>();
+		userIds.forEach(userId -> slots.add(timingWheel.slotOf(userId)));
+		UUID newUserId = UUID.randomUUID();
+
+		// act
+		timingWheel.add(newUserId, newUserId);
+		timingWheel.remove(userIds.get(0));
+
+		// assert
+		assertTrue(timingWheel.getSlot(timingWheel.slotOf(newUserId)).contains(newUserId));
+		assertFalse(timingWheel.contains(userIds.get(0)));
+		for (int i = 1; i < userIds.size(); i++) {
+			assertTrue(timingWheel.getSlot(slots.get(i)).contains(userIds.get(i)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void new_noSlot_exceptionThrown() {
+		// act
+		new TimingWheel<UUID, UUID>(0);
+	}
+}
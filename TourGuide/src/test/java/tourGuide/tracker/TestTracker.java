@@ -0,0 +1,160 @@
+package tourGuide.tracker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import tourGuide.cache.RewardPointsCache;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.client.LocationBatcher;
+import tourGuide.client.LocationClient;
+import tourGuide.client.LocationServiceStub;
+import tourGuide.client.RewardsClient;
+import tourGuide.domain.user.User;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.repository.TestUserRepository;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideService;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestTracker {
+
+	private LocationServiceStub locationServiceStub;
+	private LocationClient locationClient;
+	private int internalUserNumber;
+
+	@Before
+	public void setup() throws Exception {
+		locationServiceStub = new LocationServiceStub();
+		locationClient = new LocationClient(new RestTemplate(), WebClient.create(), locationServiceStub.getURI());
+		internalUserNumber = InternalTestHelper.getInternalUserNumber();
+	}
+
+	@After
+	public void tearDown() {
+		locationServiceStub.stop();
+		InternalTestHelper.setInternalUserNumber(internalUserNumber);
+	}
+
+	private TourGuideService startTourGuideService(TrackerProperties trackerProperties) {
+		RestTemplate restTemplate = new RestTemplate();
+		AttractionCatalog attractionCatalog = new AttractionCatalog(locationClient, 0);
+		RewardsService rewardsService = new RewardsService(new RewardsClient(restTemplate), attractionCatalog, new RewardPointsCache());
+		return TourGuideService.builder(rewardsService, new TestUserRepository()).restTemplate(restTemplate)
+				.locationClient(locationClient).locationBatcher(new LocationBatcher(locationClient, 10, 20))
+				.trackerProperties(trackerProperties).build();
+	}
+
+	private void awaitCompletedCycles(Tracker tracker, long cycles) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (tracker.getCompletedCycles() < cycles && System.nanoTime() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+	}
+
+	@Test
+	public void tracker_moreUsersThanQueueCapacity_allUsersTrackedInOneCycle() throws Exception {
+		// arrange
+		InternalTestHelper.setInternalUserNumber(50);
+		TrackerProperties trackerProperties = new TrackerProperties();
+		trackerProperties.setPollingIntervalSeconds(2);
+		trackerProperties.setWheelSlots(2);
+		trackerProperties.setWorkers(2);
+		trackerProperties.setQueueCapacity(3);
+
+		// act
+		TourGuideService tourGuideService = startTourGuideService(trackerProperties);
+		awaitCompletedCycles(tourGuideService.tracker, 1);
+		tourGuideService.tracker.stopTracking();
+
+		// assert
+		assertEquals(1, tourGuideService.tracker.getCompletedCycles());
+		assertEquals(0, tourGuideService.tracker.getFailedUsers());
+		assertEquals(50, locationServiceStub.getUserLocationRequests());
+		assertTrue(tourGuideService.getAllUsers().stream().allMatch(user -> user.getVisitedLocations().size() == 4));
+	}
+
+	@Test
+	public void tracker_batchSizeSet_usersTrackedWithBatchRequests() throws Exception {
+		// arrange
+		InternalTestHelper.setInternalUserNumber(50);
+		TrackerProperties trackerProperties = new TrackerProperties();
+		trackerProperties.setPollingIntervalSeconds(2);
+		trackerProperties.setWheelSlots(2);
+		trackerProperties.setWorkers(2);
+		trackerProperties.setBatchSize(10);
+
+		// act
+		TourGuideService tourGuideService = startTourGuideService(trackerProperties);
+		awaitCompletedCycles(tourGuideService.tracker, 1);
+		tourGuideService.tracker.stopTracking();
+
+		// assert
+		assertEquals(1, tourGuideService.tracker.getCompletedCycles());
+		assertEquals(0, locationServiceStub.getUserLocationRequests());
+		assertEquals(50, locationServiceStub.getBatchSizes().stream().mapToInt(Integer::intValue).sum());
+	}
+
+	@Test
+	public void tracker_cycleLongerThanInterval_missedCyclesMerged() throws Exception {
+		// arrange
+		InternalTestHelper.setInternalUserNumber(5);
+		TrackerProperties trackerProperties = new TrackerProperties();
+		trackerProperties.setPollingIntervalSeconds(0);
+
+		// act
+		TourGuideService tourGuideService = startTourGuideService(trackerProperties);
+		awaitCompletedCycles(tourGuideService.tracker, 3);
+		tourGuideService.tracker.stopTracking();
+
+		// assert
+		assertTrue(tourGuideService.tracker.getCompletedCycles() >= 3);
+		assertTrue(tourGuideService.tracker.getMergedCycles() > 0);
+	}
+
+	@Test
+	public void trackUser_userAddedWhileTracking_userTrackedInNextCycle() throws Exception {
+		// arrange
+		InternalTestHelper.setInternalUserNumber(5);
+		TrackerProperties trackerProperties = new TrackerProperties();
+		trackerProperties.setPollingIntervalSeconds(1);
+		trackerProperties.setWheelSlots(10);
+		TourGuideService tourGuideService = startTourGuideService(trackerProperties);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		// act
+		tourGuideService.addUser(user);
+		awaitCompletedCycles(tourGuideService.tracker, 2);
+		tourGuideService.tracker.stopTracking();
+
+		// assert
+		assertEquals(6, tourGuideService.tracker.getTrackedUserCount());
+		assertFalse(user.getVisitedLocations().isEmpty());
+	}
+
+	@Test
+	public void tracker_virtualThreads_allUsersTrackedInOneCycle() throws Exception {
+		// arrange
+		InternalTestHelper.setInternalUserNumber(50);
+		TrackerProperties trackerProperties = new TrackerProperties();
+		trackerProperties.setPollingIntervalSeconds(2);
+		trackerProperties.setWheelSlots(2);
+		trackerProperties.setVirtualThreads(true);
+		trackerProperties.setMaxConcurrency(4);
+
+		// act
+		TourGuideService tourGuideService = startTourGuideService(trackerProperties);
+		awaitCompletedCycles(tourGuideService.tracker, 1);
+		tourGuideService.tracker.stopTracking();
+
+		// assert
+		assertEquals(1, tourGuideService.tracker.getCompletedCycles());
+		assertEquals(0, tourGuideService.tracker.getFailedUsers());
+		assertEquals(50, locationServiceStub.getUserLocationRequests());
+	}
+}